@@ -0,0 +1,42 @@
+package org.sciborgs1155.lib;
+
+import static org.sciborgs1155.lib.UnitTestingUtil.setupTests;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.sciborgs1155.lib.FaultLogger.FaultType;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FaultLoggerBenchmark {
+  /** Roughly one supplier per spark fault id, for a robot's worth of sparks. */
+  @Param({"50", "400"})
+  int reporters;
+
+  int tick;
+
+  @Setup
+  public void setup() {
+    setupTests();
+    for (int i = 0; i < reporters; i++) {
+      int id = i;
+      // a few faults flicker on and off, the rest never fire
+      FaultLogger.register(
+          () -> id % 25 == 0 && tick % 2 == 0, "device " + id, "fault", FaultType.WARNING);
+    }
+  }
+
+  @Benchmark
+  public void update() {
+    tick++;
+    FaultLogger.update();
+  }
+}
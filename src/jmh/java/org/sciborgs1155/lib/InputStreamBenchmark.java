@@ -0,0 +1,87 @@
+package org.sciborgs1155.lib;
+
+import static org.sciborgs1155.lib.UnitTestingUtil.setupTests;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InputStreamBenchmark {
+  double rawX;
+  double rawY;
+  double rawOmega;
+  double multiplier = 1;
+
+  InputStream x;
+  InputStream y;
+  InputStream omega;
+
+  VectorInputStream translation;
+
+  /** Mirrors the teleop drive chains in {@code Robot.configureBindings}. */
+  @Setup
+  public void setup() {
+    setupTests();
+    InputStream rawX = InputStream.of(() -> this.rawX).cache();
+    InputStream rawY = InputStream.of(() -> this.rawY).cache();
+
+    InputStream r =
+        InputStream.hypot(rawX, rawY)
+            .log("Benchmark/raw joystick")
+            .scale(() -> multiplier)
+            .clamp(1.0)
+            .deadband(0.15, 1.0)
+            .signedPow(2.0)
+            .log("Benchmark/processed joystick")
+            .scale(4.0)
+            .cache();
+    InputStream theta = InputStream.atan(rawX, rawY).cache();
+    x = r.scale(theta.map(Math::cos));
+    y = r.scale(theta.map(Math::sin));
+
+    translation =
+        VectorInputStream.of(() -> -this.rawY, () -> -this.rawX)
+            .log("Benchmark/raw vector")
+            .scale(() -> multiplier)
+            .clamp(1.0)
+            .deadband(0.15, 1.0)
+            .pow(2.0)
+            .log("Benchmark/processed vector")
+            .scale(4.0);
+
+    omega =
+        InputStream.of(() -> rawOmega)
+            .negate()
+            .scale(() -> multiplier)
+            .clamp(1.0)
+            .deadband(0.15, 1.0)
+            .signedPow(2.0)
+            .scale(6.0)
+            .rateLimit(12.0);
+  }
+
+  @Benchmark
+  public double driveChains() {
+    rawX = (rawX + 0.013) % 1.0;
+    rawY = (rawY + 0.007) % 1.0;
+    rawOmega = (rawOmega + 0.011) % 1.0;
+    InputUpdater.update();
+    return x.get() + y.get() + omega.get();
+  }
+
+  @Benchmark
+  public double vectorDriveChain() {
+    rawX = (rawX + 0.013) % 1.0;
+    rawY = (rawY + 0.007) % 1.0;
+    InputUpdater.update();
+    return translation.get(0) + translation.get(1);
+  }
+}
@@ -0,0 +1,51 @@
+package org.sciborgs1155.robot;
+
+import static org.sciborgs1155.lib.UnitTestingUtil.reset;
+import static org.sciborgs1155.lib.UnitTestingUtil.setupTests;
+
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.sciborgs1155.lib.InputUpdater;
+import org.sciborgs1155.robot.drive.Drive;
+import org.sciborgs1155.robot.drive.SwerveModule.ControlMode;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DriveBenchmark {
+  Drive drive;
+  ChassisSpeeds speeds;
+
+  @Setup
+  public void setup() {
+    setupTests();
+    drive = Drive.create();
+    speeds = new ChassisSpeeds(2.5, -1.0, 1.5);
+  }
+
+  @TearDown
+  public void destroy() throws Exception {
+    reset(drive);
+  }
+
+  /** Discretization, kinematics, desaturation and every module's updateSetpoint. */
+  @Benchmark
+  public void setChassisSpeeds() {
+    drive.setChassisSpeeds(speeds, ControlMode.CLOSED_LOOP_VELOCITY);
+  }
+
+  /** Reading every module, then odometry and pose estimation. */
+  @Benchmark
+  public void periodic() {
+    InputUpdater.update();
+    drive.periodic();
+  }
+}
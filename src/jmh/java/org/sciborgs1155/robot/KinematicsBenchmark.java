@@ -0,0 +1,79 @@
+package org.sciborgs1155.robot;
+
+import static org.sciborgs1155.robot.drive.DriveConstants.MAX_SPEED;
+import static org.sciborgs1155.robot.drive.DriveConstants.MODULE_OFFSET;
+
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.units.Units;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sciborgs1155.robot.drive.SwerveKinematics;
+
+/** Compares WPILib's swerve kinematics against the primitive {@link SwerveKinematics} kernel. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KinematicsBenchmark {
+  static final double DT = 0.02;
+
+  SwerveDriveKinematics kinematics;
+  ChassisSpeeds speeds;
+  double maxSpeed;
+  SwerveModuleState[] states;
+
+  final double[] chassis = new double[3];
+  final double[] moduleSpeeds = new double[SwerveKinematics.MODULES];
+  final double[] moduleAngles = new double[SwerveKinematics.MODULES];
+
+  @Setup
+  public void setup() {
+    kinematics = new SwerveDriveKinematics(MODULE_OFFSET);
+    speeds = new ChassisSpeeds(2.5, -1.0, 1.5);
+    maxSpeed = MAX_SPEED.in(Units.MetersPerSecond);
+    states = kinematics.toSwerveModuleStates(speeds);
+    SwerveKinematics.toModuleStates(2.5, -1.0, 1.5, moduleSpeeds, moduleAngles);
+  }
+
+  /** Discretization, inverse kinematics and desaturation, as in Drive.setChassisSpeeds. */
+  @Benchmark
+  public SwerveModuleState[] wpilibInverse() {
+    SwerveModuleState[] states =
+        kinematics.toSwerveModuleStates(ChassisSpeeds.discretize(speeds, DT));
+    SwerveDriveKinematics.desaturateWheelSpeeds(states, maxSpeed);
+    return states;
+  }
+
+  @Benchmark
+  public void kernelInverse(Blackhole blackhole) {
+    SwerveKinematics.discretize(
+        speeds.vxMetersPerSecond,
+        speeds.vyMetersPerSecond,
+        speeds.omegaRadiansPerSecond,
+        DT,
+        chassis);
+    SwerveKinematics.toModuleStates(chassis[0], chassis[1], chassis[2], moduleSpeeds, moduleAngles);
+    SwerveKinematics.desaturate(moduleSpeeds, maxSpeed);
+    blackhole.consume(moduleSpeeds);
+    blackhole.consume(moduleAngles);
+  }
+
+  /** Forward kinematics, as in Drive.getRobotRelativeChassisSpeeds. */
+  @Benchmark
+  public ChassisSpeeds wpilibForward() {
+    return kinematics.toChassisSpeeds(states);
+  }
+
+  @Benchmark
+  public double[] kernelForward() {
+    return SwerveKinematics.toChassisSpeeds(moduleSpeeds, moduleAngles, chassis);
+  }
+}
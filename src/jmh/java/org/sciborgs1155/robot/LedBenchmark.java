@@ -0,0 +1,65 @@
+package org.sciborgs1155.robot;
+
+import static org.sciborgs1155.lib.UnitTestingUtil.setupTests;
+
+import edu.wpi.first.wpilibj.util.Color;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.sciborgs1155.robot.led.LedStrip;
+import org.sciborgs1155.robot.led.Pattern;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LedBenchmark {
+  LedStrip led;
+  Pattern alliance = Pattern.alternating(Color.kBlue, Color.kDarkCyan);
+  Pattern rainbow = Pattern.rainbow();
+
+  // shifted every frame, since ticks only advance with time
+  int frames = 0;
+  Pattern moving = (i, tick) -> rainbow.color(i + frames, tick);
+
+  @Setup
+  public void setup() {
+    setupTests();
+    led = new LedStrip();
+  }
+
+  @TearDown
+  public void teardown() {
+    led.close();
+  }
+
+  /** The pattern {@link LedStrip#alliance()} renders every tick, which is only sent once. */
+  @Benchmark
+  public boolean alliance() {
+    led.background.set(alliance);
+    return led.render();
+  }
+
+  /** A pattern that changes, and is sent, every frame. */
+  @Benchmark
+  public boolean rainbow() {
+    frames++;
+    led.background.set(moving);
+    return led.render();
+  }
+
+  /** A changing background under an opaque status segment and a translucent alert. */
+  @Benchmark
+  public boolean layered() {
+    frames++;
+    led.background.set(moving);
+    led.intakeStatus.set(alliance);
+    led.alert.set(alliance, 128);
+    return led.render();
+  }
+}
@@ -0,0 +1,79 @@
+package org.sciborgs1155.robot;
+
+import static org.sciborgs1155.lib.UnitTestingUtil.reset;
+import static org.sciborgs1155.lib.UnitTestingUtil.setupTests;
+import static org.sciborgs1155.robot.Constants.Field.speaker;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.sciborgs1155.robot.commands.Shooting;
+import org.sciborgs1155.robot.drive.Drive;
+import org.sciborgs1155.robot.feeder.Feeder;
+import org.sciborgs1155.robot.pivot.Pivot;
+import org.sciborgs1155.robot.shooter.Shooter;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ShootingBenchmark {
+  // beyond the shot table, shots are solved once rather than iterated on
+  @Param({"1.5", "3.0", "4.5", "8.0", "12.0"})
+  double distance;
+
+  @Param({"0.0", "3.0"})
+  double speed;
+
+  Pivot pivot;
+  Shooter shooter;
+  Feeder feeder;
+  Drive drive;
+  Shooting shooting;
+
+  Pose2d pose;
+  ChassisSpeeds speeds;
+  double velocity;
+
+  @Setup
+  public void setup() {
+    setupTests();
+    pivot = Pivot.create();
+    shooter = Shooter.create();
+    feeder = Feeder.create();
+    drive = Drive.create();
+    shooting = new Shooting(shooter, pivot, feeder, drive);
+
+    pose =
+        new Pose2d(
+            speaker().toTranslation2d().plus(new Translation2d(distance, 0.5)),
+            Rotation2d.fromDegrees(90));
+    speeds = new ChassisSpeeds(speed, -speed / 2, 0);
+    velocity = Shooting.calculateStationaryVelocity(distance);
+  }
+
+  @TearDown
+  public void destroy() throws Exception {
+    reset(pivot, shooter, feeder, drive);
+  }
+
+  @Benchmark
+  public Object calculateNoteVelocity() {
+    return shooting.calculateNoteVelocity(pose, speeds);
+  }
+
+  @Benchmark
+  public double calculateStationaryPitch() {
+    return Shooting.calculateStationaryPitch(distance, velocity, 0);
+  }
+}
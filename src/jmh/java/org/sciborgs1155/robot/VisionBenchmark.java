@@ -0,0 +1,62 @@
+package org.sciborgs1155.robot;
+
+import static org.sciborgs1155.lib.UnitTestingUtil.setupTests;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform3d;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.photonvision.targeting.PhotonPipelineResult;
+import org.photonvision.targeting.PhotonTrackedTarget;
+import org.photonvision.targeting.TargetCorner;
+import org.sciborgs1155.robot.vision.Vision;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VisionBenchmark {
+  @Param({"1", "2", "4"})
+  int tags;
+
+  Vision vision;
+  Pose2d pose;
+  PhotonPipelineResult result;
+
+  @Setup
+  public void setup() {
+    setupTests();
+    vision = new Vision();
+    pose = new Pose2d(2.5, 5.5, Rotation2d.fromDegrees(180));
+
+    List<TargetCorner> corners =
+        List.of(
+            new TargetCorner(0, 0),
+            new TargetCorner(1, 0),
+            new TargetCorner(1, 1),
+            new TargetCorner(0, 1));
+    List<PhotonTrackedTarget> targets = new ArrayList<>();
+    for (int i = 0; i < tags; i++) {
+      // speaker and amp tags
+      int id = new int[] {7, 8, 6, 5}[i];
+      targets.add(
+          new PhotonTrackedTarget(
+              0, 0, 1, 0, id, new Transform3d(), new Transform3d(), 0.1, corners, corners));
+    }
+    result = new PhotonPipelineResult(10, targets);
+  }
+
+  @Benchmark
+  public Object getEstimationStdDevs() {
+    return vision.getEstimationStdDevs(pose, result);
+  }
+}
@@ -2,11 +2,14 @@ package org.sciborgs1155.lib;
 
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import org.sciborgs1155.lib.LoopProfiler.Timing;
 
 /**
  * @see https://github.com/wpilibsuite/allwpilib/pull/5939
  */
 public class CommandRobot extends TimedRobot {
+  private final Timing inputsTiming = LoopProfiler.timing("InputUpdater.update()");
+  private final Timing schedulerTiming = LoopProfiler.timing("CommandScheduler.run()");
 
   protected CommandRobot() {
     this(kDefaultPeriod);
@@ -16,9 +19,34 @@ public class CommandRobot extends TimedRobot {
     super(period);
   }
 
+  /**
+   * Adds a periodic callback that is timed by {@link LoopProfiler}.
+   *
+   * @param name The name to profile the callback under.
+   * @param callback The callback to run.
+   * @param period The period to run the callback at, in seconds.
+   */
+  public void addPeriodic(String name, Runnable callback, double period) {
+    addPeriodic(LoopProfiler.wrap(name, callback), period);
+  }
+
+  /**
+   * Returns whether the robot is replaying a log rather than running on hardware or in simulation.
+   *
+   * @see LogReplay
+   */
+  public static boolean isReplay() {
+    return LogReplay.isActive();
+  }
+
   @Override
   public void robotPeriodic() {
+    inputsTiming.start();
+    InputUpdater.update();
+    inputsTiming.stop();
+    schedulerTiming.start();
     CommandScheduler.getInstance().run();
+    schedulerTiming.stop();
   }
 
   @Override
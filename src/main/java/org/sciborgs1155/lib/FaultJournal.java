@@ -0,0 +1,358 @@
+package org.sciborgs1155.lib;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.MatchType;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.RobotController;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.sciborgs1155.lib.FaultLogger.Fault;
+import org.sciborgs1155.lib.FaultLogger.FaultType;
+
+/**
+ * FaultJournal records every fault transition to a file that survives code restarts and brownouts,
+ * so that what failed can be looked up across matches.
+ *
+ * <pre>
+ * FaultLogger.startJournal(FaultJournal.defaultPath()); // records every fault transition
+ * FaultLogger.journal().get().device("Photon Camera [front]"); // a device's transitions, oldest first
+ * </pre>
+ *
+ * <p>The journal is append-only. Each record is length-prefixed and checksummed, so a record torn
+ * by a power loss is detected and dropped when the journal is next opened. Records are buffered and
+ * synced to disk in batches by {@link #flush()}. Only the most recent {@link #MAX_ENTRIES} records
+ * are kept, and the file is compacted to them when it is opened and whenever it grows past twice
+ * that many records.
+ */
+public final class FaultJournal implements AutoCloseable {
+  /** One fault becoming active or inactive. */
+  public static record Entry(
+      long wallTime,
+      long timestamp,
+      Fault fault,
+      boolean active,
+      String event,
+      MatchType matchType,
+      int match) {
+    @Override
+    public String toString() {
+      return String.format(
+          "%s %s%d @%.1f s: %s %s",
+          event.isEmpty() ? "-" : event,
+          matchType.name().charAt(0),
+          match,
+          timestamp / 1e6,
+          fault,
+          active ? "active" : "cleared");
+    }
+  }
+
+  /** The most records kept in memory, and when the journal is compacted. */
+  public static final int MAX_ENTRIES = 4096;
+
+  private static final int HEADER = 2 * Integer.BYTES;
+  private static final int MAX_RECORD = 4096;
+  private static final int BUFFER = 16 * 1024;
+
+  private static final MatchType[] MATCH_TYPES = MatchType.values();
+  private static final FaultType[] FAULT_TYPES = FaultType.values();
+
+  private final Path path;
+  private final ArrayDeque<Entry> entries;
+  private final ByteBuffer record = ByteBuffer.allocate(MAX_RECORD).order(ByteOrder.LITTLE_ENDIAN);
+  private final CRC32 crc = new CRC32();
+  private final Object flushLock = new Object();
+  private volatile boolean failed = false;
+
+  // records are appended to one buffer while the other is written and synced
+  private ByteBuffer buffer = ByteBuffer.allocate(BUFFER);
+  private ByteBuffer flushing = ByteBuffer.allocate(BUFFER);
+
+  // guarded by flushLock
+  private FileChannel channel;
+
+  // the number of records in the file and buffers, guarded by this
+  private int written;
+
+  private FaultJournal(Path path, Collection<Entry> entries, FileChannel channel) {
+    this.path = path;
+    this.entries = new ArrayDeque<>(entries);
+    this.channel = channel;
+    written = entries.size();
+  }
+
+  /**
+   * Returns where the journal is kept: the robot's home directory on the RIO, and the build
+   * directory in simulation. Faults from replaying a log are kept apart from simulated ones.
+   */
+  public static Path defaultPath() {
+    Path dir = Filesystem.getOperatingDirectory().toPath();
+    if (RobotBase.isReal()) {
+      return dir.resolve("faults.journal");
+    }
+    return dir.resolve(
+        CommandRobot.isReplay() ? "build/replay-faults.journal" : "build/faults.journal");
+  }
+
+  /**
+   * Opens a journal, creating it if needed, and compacts it.
+   *
+   * @param path The journal file.
+   * @return The opened journal.
+   * @throws IOException If the journal can't be read or written.
+   */
+  public static FaultJournal open(Path path) throws IOException {
+    Files.createDirectories(path.toAbsolutePath().getParent());
+    List<Entry> entries = read(path);
+    if (entries.size() > MAX_ENTRIES) {
+      entries = entries.subList(entries.size() - MAX_ENTRIES, entries.size());
+    }
+    // rewriting the kept records also drops anything torn
+    return new FaultJournal(path, entries, rewrite(path, entries));
+  }
+
+  /**
+   * Replaces a journal with records, atomically so that a power loss leaves either the old or the
+   * new journal.
+   *
+   * @return A channel appending to the new journal.
+   */
+  private static FileChannel rewrite(Path path, Collection<Entry> entries) throws IOException {
+    Path compacted = path.resolveSibling(path.getFileName() + ".tmp");
+    try (var out =
+        FileChannel.open(
+            compacted,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      var journal = new FaultJournal(compacted, List.of(), out);
+      int i = 0;
+      for (Entry entry : entries) {
+        journal.write(entry);
+        if (++i % 100 == 0) {
+          journal.flush();
+        }
+      }
+      journal.flush();
+    }
+    Files.move(
+        compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+  }
+
+  /**
+   * Reads every intact record in a journal, stopping at the first torn or corrupt record.
+   *
+   * @param path The journal file.
+   * @return The records, oldest first.
+   * @throws IOException If the journal can't be read.
+   */
+  public static List<Entry> read(Path path) throws IOException {
+    List<Entry> entries = new ArrayList<>();
+    if (!Files.exists(path)) {
+      return entries;
+    }
+    ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+    CRC32 crc = new CRC32();
+    while (data.remaining() >= HEADER) {
+      int length = data.getInt();
+      int checksum = data.getInt();
+      if (length < 0 || length > MAX_RECORD || length > data.remaining()) {
+        break;
+      }
+      crc.reset();
+      crc.update(data.array(), data.position(), length);
+      if ((int) crc.getValue() != checksum) {
+        break;
+      }
+      ByteBuffer payload = data.slice(data.position(), length).order(ByteOrder.LITTLE_ENDIAN);
+      data.position(data.position() + length);
+      try {
+        entries.add(decode(payload));
+      } catch (RuntimeException e) {
+        break;
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Records a fault transition, with the current time and match.
+   *
+   * @param fault The fault.
+   * @param active Whether the fault became active, rather than cleared.
+   */
+  public synchronized void record(Fault fault, boolean active) {
+    var entry =
+        new Entry(
+            System.currentTimeMillis(),
+            RobotController.getFPGATime(),
+            fault,
+            active,
+            DriverStation.getEventName(),
+            DriverStation.getMatchType(),
+            DriverStation.getMatchNumber());
+    if (entries.size() == MAX_ENTRIES) {
+      entries.removeFirst();
+    }
+    entries.addLast(entry);
+    write(entry);
+  }
+
+  /**
+   * Returns the most recent {@link #MAX_ENTRIES} records, including those from earlier runs.
+   *
+   * @return The records, oldest first.
+   */
+  public synchronized List<Entry> entries() {
+    return List.copyOf(entries);
+  }
+
+  /**
+   * Returns every kept record for a device.
+   *
+   * @param name The device's fault name, such as "Photon Camera [front]".
+   * @return The device's records, oldest first.
+   */
+  public synchronized List<Entry> device(String name) {
+    List<Entry> found = new ArrayList<>();
+    for (Entry entry : entries) {
+      if (entry.fault().name().equals(name)) {
+        found.add(entry);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Writes buffered records and syncs them to disk. Syncing can take milliseconds, so this should
+   * be called periodically from a thread other than the main loop, which keeps recording meanwhile.
+   * The file is also compacted here once it holds more than twice {@link #MAX_ENTRIES} records.
+   */
+  public void flush() {
+    synchronized (flushLock) {
+      List<Entry> kept = null;
+      synchronized (this) {
+        if (failed || buffer.position() == 0) {
+          return;
+        }
+        ByteBuffer full = buffer;
+        buffer = flushing;
+        flushing = full;
+        if (written > 2 * MAX_ENTRIES) {
+          // everything recorded so far, which later records are appended after
+          kept = List.copyOf(entries);
+          written = kept.size();
+        }
+      }
+      try {
+        flushing.flip();
+        while (flushing.hasRemaining()) {
+          channel.write(flushing);
+        }
+        channel.force(false);
+        if (kept != null) {
+          channel.close();
+          channel = rewrite(path, kept);
+        }
+      } catch (IOException e) {
+        fail(e);
+      } finally {
+        flushing.clear();
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    flush();
+    synchronized (flushLock) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        fail(e);
+      }
+    }
+  }
+
+  private synchronized void write(Entry entry) {
+    if (failed) {
+      return;
+    }
+    record.clear();
+    encode(entry, record);
+    record.flip();
+    if (buffer.remaining() < HEADER + record.remaining()) {
+      // only if transitions outpace flushing, which should never happen
+      ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+      buffer.flip();
+      buffer = larger.put(buffer);
+    }
+    crc.reset();
+    crc.update(record.array(), 0, record.limit());
+    buffer
+        .order(ByteOrder.LITTLE_ENDIAN)
+        .putInt(record.limit())
+        .putInt((int) crc.getValue())
+        .put(record);
+    written++;
+  }
+
+  private void fail(IOException e) {
+    failed = true;
+    DriverStation.reportWarning("Fault journal disabled: " + e.getMessage(), false);
+  }
+
+  private static void encode(Entry entry, ByteBuffer out) {
+    out.putLong(entry.wallTime())
+        .putLong(entry.timestamp())
+        .put((byte) (entry.active() ? 1 : 0))
+        .put((byte) entry.fault().type().ordinal())
+        .put((byte) entry.matchType().ordinal())
+        .putShort((short) entry.match());
+    putString(out, entry.event());
+    putString(out, entry.fault().name());
+    putString(out, entry.fault().description());
+  }
+
+  private static Entry decode(ByteBuffer in) {
+    long wallTime = in.getLong();
+    long timestamp = in.getLong();
+    boolean active = in.get() != 0;
+    FaultType type = FAULT_TYPES[in.get()];
+    MatchType matchType = MATCH_TYPES[in.get()];
+    int match = in.getShort();
+    String event = getString(in);
+    String name = getString(in);
+    String description = getString(in);
+    return new Entry(
+        wallTime, timestamp, new Fault(name, description, type), active, event, matchType, match);
+  }
+
+  /** Writes a string, truncated so that a record always fits in {@link #MAX_RECORD} bytes. */
+  private static void putString(ByteBuffer out, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    int length = Math.min(bytes.length, 1024);
+    out.putShort((short) length).put(bytes, 0, length);
+  }
+
+  private static String getString(ByteBuffer in) {
+    int length = Short.toUnsignedInt(in.getShort());
+    byte[] bytes = new byte[length];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -1,5 +1,7 @@
 package org.sciborgs1155.lib;
 
+import static edu.wpi.first.units.Units.Microseconds;
+
 import com.kauailabs.navx.frc.AHRS;
 import com.revrobotics.CANSparkBase;
 import com.revrobotics.CANSparkBase.FaultID;
@@ -7,15 +9,26 @@ import com.revrobotics.REVLibError;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.networktables.StringArrayPublisher;
+import edu.wpi.first.units.Measure;
+import edu.wpi.first.units.Time;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.DutyCycleEncoder;
+import edu.wpi.first.wpilibj.Notifier;
 import edu.wpi.first.wpilibj.PowerDistribution;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.BooleanSupplier;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import org.photonvision.PhotonCamera;
 import org.sciborgs1155.robot.Ports;
@@ -28,6 +41,13 @@ import org.sciborgs1155.robot.Ports;
  * spark.set(0.5);
  * FaultLogger.check(spark); // checks that the previous set call did not encounter an error.
  * </pre>
+ *
+ * <p>Each distinct fault is interned with a {@link History} of when it was first and last seen and
+ * how many separate times it has occurred. A fault is active while its reporter keeps reporting it,
+ * and NetworkTables is only written when a fault becomes active or inactive.
+ *
+ * <p>Reporters are polled round-robin at a rate set by their {@link Priority}, within a time budget
+ * per update, so that checking dozens of devices has a small, flat cost every loop.
  */
 public final class FaultLogger {
   /** An individual fault, containing necessary information. */
@@ -43,6 +63,30 @@ public final class FaultLogger {
     void report();
   }
 
+  /**
+   * How often a fault reporter is polled. Reporters are spread across loops, so a reporter may be
+   * polled up to a few loops after it is due.
+   */
+  public static enum Priority {
+    /** Connectivity of sensors the robot can't run without, such as the gyro and cameras. */
+    HIGH(0.5),
+    /** Motor controller faults. */
+    NORMAL(2),
+    /** Slowly changing conditions, such as motor temperature. */
+    LOW(5);
+
+    private final long period;
+
+    Priority(double seconds) {
+      period = (long) (seconds * 1e6);
+    }
+
+    /** Returns how often reporters of this priority are polled. */
+    public Measure<Time> period() {
+      return Microseconds.of(period);
+    }
+  }
+
   /**
    * The type of fault, used for detecting whether the fallible is in a failure state and displaying
    * to NetworkTables.
@@ -53,6 +97,60 @@ public final class FaultLogger {
     ERROR,
   }
 
+  /** The history of a fault since it was first reported, or since the last {@link #clear()}. */
+  public static final class History {
+    private final Fault fault;
+    private double firstSeen = Double.NaN;
+    private double lastSeen = Double.NaN;
+    private int count;
+    private boolean active;
+    private boolean reported;
+
+    private History(Fault fault) {
+      this.fault = fault;
+    }
+
+    /** Returns the interned fault. */
+    public Fault fault() {
+      return fault;
+    }
+
+    /** Returns the FPGA timestamp in seconds that the fault first became active, or NaN. */
+    public double firstSeen() {
+      return firstSeen;
+    }
+
+    /** Returns the FPGA timestamp in seconds that the fault was last reported, or NaN. */
+    public double lastSeen() {
+      return lastSeen;
+    }
+
+    /** Returns how many separate times the fault has become active. */
+    public int count() {
+      return count;
+    }
+
+    /** Returns whether the fault is currently being reported. */
+    public boolean active() {
+      return active;
+    }
+
+    private void reset() {
+      firstSeen = Double.NaN;
+      lastSeen = Double.NaN;
+      count = 0;
+      active = false;
+      reported = false;
+    }
+
+    @Override
+    public String toString() {
+      return active
+          ? String.format("%s (x%d, active)", fault, count)
+          : String.format("%s (x%d, last seen %.1f s)", fault, count, lastSeen);
+    }
+  }
+
   /** A class to represent an alerts widget on NetworkTables */
   public static class Alerts {
     private final StringArrayPublisher errors;
@@ -68,47 +166,204 @@ public final class FaultLogger {
     }
 
     public void set(Set<Fault> faults) {
-      errors.set(filteredStrings(faults, FaultType.ERROR));
-      warnings.set(filteredStrings(faults, FaultType.WARNING));
-      infos.set(filteredStrings(faults, FaultType.INFO));
+      set(faults, f -> f, Fault::toString);
+    }
+
+    private <T> void set(
+        Collection<T> faults, Function<T, Fault> fault, Function<T, String> format) {
+      errors.set(filteredStrings(faults, FaultType.ERROR, fault, format));
+      warnings.set(filteredStrings(faults, FaultType.WARNING, fault, format));
+      infos.set(filteredStrings(faults, FaultType.INFO, fault, format));
+    }
+  }
+
+  /**
+   * The most time {@link #update()} spends polling reporters, unless {@link #setBudget} is used.
+   */
+  public static final Measure<Time> DEFAULT_BUDGET = Microseconds.of(500);
+
+  private static final FaultID[] FAULT_IDS = FaultID.values();
+
+  /** Faults reported together, which stay active until their reporter stops reporting them. */
+  private static final class Group {
+    private List<History> previous = new ArrayList<>();
+    private List<History> current = new ArrayList<>();
+
+    /** Deactivates faults that were reported last time but not this time. */
+    void finish() {
+      for (int i = 0; i < previous.size(); i++) {
+        History history = previous.get(i);
+        if (!history.reported && history.active) {
+          history.active = false;
+          if (journal != null) {
+            journal.record(history.fault, false);
+          }
+          active.remove(history);
+          activeFaults.remove(history.fault);
+          changed = true;
+        }
+      }
+      for (int i = 0; i < current.size(); i++) {
+        current.get(i).reported = false;
+      }
+      List<History> swap = previous;
+      previous = current;
+      current = swap;
+      current.clear();
+    }
+
+    void clear() {
+      previous.clear();
+      current.clear();
+    }
+  }
+
+  private static final class Poller {
+    private final FaultReporter reporter;
+    private final long period;
+    private final Group group = new Group();
+    private long due;
+
+    Poller(FaultReporter reporter, Priority priority) {
+      this.reporter = reporter;
+      this.period = priority.period;
     }
   }
 
   // DATA
-  private static final List<FaultReporter> faultReporters = new ArrayList<>();
-  private static final Set<Fault> newFaults = new HashSet<>();
-  private static final Set<Fault> activeFaults = new HashSet<>();
-  private static final Set<Fault> totalFaults = new HashSet<>();
+  private static final List<Poller> pollers = new ArrayList<>();
+  private static final Group manual = new Group();
+  private static Group reporting = manual;
+  private static int cursor = 0;
+  private static long budget = (long) DEFAULT_BUDGET.in(Microseconds) * 1000;
+
+  private static final Map<Fault, History> histories = new HashMap<>();
+  private static final List<History> active = new ArrayList<>();
+  private static final List<History> total = new ArrayList<>();
+  private static final Set<Fault> activeFaults = new LinkedHashSet<>();
+  private static final Set<Fault> totalFaults = new LinkedHashSet<>();
+  private static boolean changed = false;
+
+  // JOURNAL
+  private static final int JOURNAL_SHOWN = 100;
+  private static FaultJournal journal;
+  private static Notifier journalFlusher;
 
   // NETWORK TABLES
   private static final NetworkTable base = NetworkTableInstance.getDefault().getTable("Faults");
   private static final Alerts activeAlerts = new Alerts(base, "Active Faults");
   private static final Alerts totalAlerts = new Alerts(base, "Total Faults");
+  private static final StringArrayPublisher journalEntries =
+      base.getStringArrayTopic("Journal").publish();
 
-  /** Polls registered fallibles. This method should be called periodically. */
+  /**
+   * Polls the registered fallibles that are due, round-robin, until the time budget is spent. This
+   * method should be called every loop.
+   *
+   * <p>Faults reported by a fallible stay active until it is polled again without reporting them.
+   * Faults reported directly, such as by {@link #check}, stay active until the next update.
+   */
   public static void update() {
-    activeFaults.clear();
+    long start = System.nanoTime();
+    long now = RobotController.getFPGATime();
+    int polled = 0;
+    for (int n = 0; n < pollers.size(); n++) {
+      if (polled > 0 && System.nanoTime() - start > budget) {
+        break;
+      }
+      Poller poller = pollers.get(cursor);
+      cursor = (cursor + 1) % pollers.size();
+      if (now < poller.due) {
+        continue;
+      }
+      poller.due = now + poller.period;
+      reporting = poller.group;
+      poller.reporter.report();
+      reporting = manual;
+      poller.group.finish();
+      polled++;
+    }
+    manual.finish();
+
+    if (changed) {
+      activeAlerts.set(activeFaults);
+      totalAlerts.set(total, History::fault, History::toString);
+      changed = false;
+    }
+  }
+
+  /**
+   * Sets the most time {@link #update()} spends polling reporters. At least one due reporter is
+   * polled every update.
+   *
+   * @param budget The time budget per update.
+   */
+  public static void setBudget(Measure<Time> budget) {
+    FaultLogger.budget = (long) (budget.in(Microseconds) * 1000);
+  }
 
-    faultReporters.forEach(FaultReporter::report);
-    activeFaults.addAll(newFaults);
-    newFaults.clear();
+  /**
+   * Starts recording every fault transition to a journal that persists across restarts, synced to
+   * disk once a second on a separate thread. The most recent entries, including those from earlier
+   * runs, are published to NetworkTables.
+   *
+   * @param path The journal file, usually {@link FaultJournal#defaultPath()}.
+   */
+  public static void startJournal(Path path) {
+    stopJournal();
+    try {
+      journal = FaultJournal.open(path);
+    } catch (IOException e) {
+      DriverStation.reportWarning("Failed to open fault journal: " + e.getMessage(), false);
+      return;
+    }
+    List<FaultJournal.Entry> entries = journal.entries();
+    journalEntries.set(
+        entries.subList(Math.max(0, entries.size() - JOURNAL_SHOWN), entries.size()).stream()
+            .map(FaultJournal.Entry::toString)
+            .toArray(String[]::new));
+    journalFlusher = new Notifier(journal::flush);
+    journalFlusher.setName("FaultJournal");
+    journalFlusher.startPeriodic(1);
+  }
 
-    totalFaults.addAll(activeFaults);
+  /** Stops recording to the journal, syncing anything not yet on disk. */
+  public static void stopJournal() {
+    if (journalFlusher != null) {
+      journalFlusher.close();
+      journalFlusher = null;
+    }
+    if (journal != null) {
+      journal.close();
+      journal = null;
+    }
+  }
 
-    activeAlerts.set(activeFaults);
-    totalAlerts.set(totalFaults);
+  /**
+   * Returns the journal, if it was started.
+   *
+   * @return The journal.
+   */
+  public static Optional<FaultJournal> journal() {
+    return Optional.ofNullable(journal);
   }
 
   /** Clears total faults. */
   public static void clear() {
-    totalFaults.clear();
+    histories.values().forEach(History::reset);
+    manual.clear();
+    pollers.forEach(p -> p.group.clear());
+    active.clear();
+    total.clear();
     activeFaults.clear();
-    newFaults.clear();
+    totalFaults.clear();
+    changed = true;
   }
 
   /** Clears fault suppliers. */
   public static void unregisterAll() {
-    faultReporters.clear();
+    pollers.clear();
+    cursor = 0;
   }
 
   /**
@@ -129,18 +384,23 @@ public final class FaultLogger {
     return totalFaults;
   }
 
+  /**
+   * Returns the history of a fault.
+   *
+   * @param fault The fault to look up.
+   * @return The fault's history, if it has ever been reported or registered.
+   */
+  public static Optional<History> history(Fault fault) {
+    return Optional.ofNullable(histories.get(fault));
+  }
+
   /**
    * Reports a fault.
    *
    * @param fault The fault to report.
    */
   public static void report(Fault fault) {
-    newFaults.add(fault);
-    switch (fault.type) {
-      case ERROR -> DriverStation.reportError(fault.toString(), false);
-      case WARNING -> DriverStation.reportWarning(fault.toString(), false);
-      case INFO -> System.out.println(fault.toString());
-    }
+    report(intern(fault));
   }
 
   /**
@@ -154,17 +414,66 @@ public final class FaultLogger {
     report(new Fault(name, description, type));
   }
 
+  /** Marks an interned fault as reported, activating and printing it if it was not active. */
+  private static void report(History history) {
+    if (history.reported) {
+      return;
+    }
+    history.reported = true;
+    reporting.current.add(history);
+    double now = Timer.getFPGATimestamp();
+    history.lastSeen = now;
+    if (history.active) {
+      return;
+    }
+    if (history.count == 0) {
+      history.firstSeen = now;
+      total.add(history);
+      totalFaults.add(history.fault);
+    }
+    history.active = true;
+    history.count++;
+    active.add(history);
+    activeFaults.add(history.fault);
+    changed = true;
+
+    Fault fault = history.fault;
+    if (journal != null) {
+      journal.record(fault, true);
+    }
+    switch (fault.type) {
+      case ERROR -> DriverStation.reportError(fault.toString(), false);
+      case WARNING -> DriverStation.reportWarning(fault.toString(), false);
+      case INFO -> System.out.println(fault.toString());
+    }
+  }
+
+  /** Returns the single history of every fault equal to {@code fault}. */
+  private static History intern(Fault fault) {
+    return histories.computeIfAbsent(fault, History::new);
+  }
+
   /**
-   * Registers a new fault supplier.
+   * Registers a new fault reporter.
+   *
+   * @param reporter A reporter that calls {@link #report} for each current fault.
+   * @param priority How often to poll the reporter.
+   */
+  public static void register(FaultReporter reporter, Priority priority) {
+    pollers.add(new Poller(reporter, priority));
+  }
+
+  /**
+   * Registers a new fault supplier, polled at {@link Priority#NORMAL}.
    *
    * @param supplier A supplier of an optional fault.
    */
   public static void register(Supplier<Optional<Fault>> supplier) {
-    faultReporters.add(() -> supplier.get().ifPresent(FaultLogger::report));
+    register(() -> supplier.get().ifPresent(FaultLogger::report), Priority.NORMAL);
   }
 
   /**
-   * Registers a new fault supplier.
+   * Registers a new fault supplier, polled at {@link Priority#NORMAL}.
    *
    * @param condition Whether a failure is occuring.
    * @param description The failure's description.
@@ -172,12 +481,31 @@ public final class FaultLogger {
    */
   public static void register(
       BooleanSupplier condition, String name, String description, FaultType type) {
-    faultReporters.add(
+    register(condition, name, description, type, Priority.NORMAL);
+  }
+
+  /**
+   * Registers a new fault supplier.
+   *
+   * @param condition Whether a failure is occuring.
+   * @param description The failure's description.
+   * @param type The type of failure.
+   * @param priority How often to check the condition.
+   */
+  public static void register(
+      BooleanSupplier condition,
+      String name,
+      String description,
+      FaultType type,
+      Priority priority) {
+    History history = intern(new Fault(name, description, type));
+    register(
         () -> {
           if (condition.getAsBoolean()) {
-            report(name, description, type);
+            report(history);
           }
-        });
+        },
+        priority);
   }
 
   /**
@@ -186,24 +514,30 @@ public final class FaultLogger {
    * @param spark The Spark Max or Spark Flex to manage.
    */
   public static void register(CANSparkBase spark) {
-    faultReporters.add(
+    // one read of the fault bitfield per update, rather than one per fault id
+    History[] faults = new History[FAULT_IDS.length];
+    for (int i = 0; i < FAULT_IDS.length; i++) {
+      faults[i] = intern(new Fault(name(spark), FAULT_IDS[i].name(), FaultType.ERROR));
+    }
+    register(
         () -> {
-          for (FaultID fault : FaultID.values()) {
-            if (spark.getFault(fault)) {
-              report(
-                  String.format(
-                      "%s ID %s",
-                      Ports.idToName.get(spark.getDeviceId()), String.valueOf(spark.getDeviceId())),
-                  fault.name(),
-                  FaultType.ERROR);
+          int bits = spark.getFaults() & 0xFFFF;
+          if (bits == 0) {
+            return;
+          }
+          for (int i = 0; i < FAULT_IDS.length; i++) {
+            if ((bits & (1 << FAULT_IDS[i].value)) != 0) {
+              report(faults[i]);
             }
           }
-        });
+        },
+        Priority.NORMAL);
     register(
         () -> spark.getMotorTemperature() > 100,
         SparkUtils.name(spark),
         "motor above 100°C",
-        FaultType.WARNING);
+        FaultType.WARNING,
+        Priority.LOW);
     // FakePDH.register(spark);
   }
 
@@ -217,7 +551,8 @@ public final class FaultLogger {
         () -> !encoder.isConnected(),
         "Duty Cycle Encoder [" + encoder.getSourceChannel() + "]",
         "disconnected",
-        FaultType.ERROR);
+        FaultType.ERROR,
+        Priority.HIGH);
   }
 
   /**
@@ -226,7 +561,7 @@ public final class FaultLogger {
    * @param ahrs The NavX to manage.
    */
   public static void register(AHRS ahrs) {
-    register(() -> !ahrs.isConnected(), "NavX", "disconnected", FaultType.ERROR);
+    register(() -> !ahrs.isConnected(), "NavX", "disconnected", FaultType.ERROR, Priority.HIGH);
   }
 
   /**
@@ -260,7 +595,8 @@ public final class FaultLogger {
         () -> !camera.isConnected(),
         "Photon Camera [" + camera.getName() + "]",
         "disconnected",
-        FaultType.ERROR);
+        FaultType.ERROR,
+        Priority.HIGH);
   }
 
   /**
@@ -288,27 +624,29 @@ public final class FaultLogger {
   public static boolean check(CANSparkBase spark, REVLibError error) {
 
     if (error != REVLibError.kOk) {
-      report(
-          String.format(
-              "%s ID %s",
-              Ports.idToName.get(spark.getDeviceId()), String.valueOf(spark.getDeviceId())),
-          error.name(),
-          FaultType.ERROR);
+      report(name(spark), error.name(), FaultType.ERROR);
       return false;
     }
     return true;
   }
 
+  /** Returns the name a spark's faults are reported under. */
+  private static String name(CANSparkBase spark) {
+    return String.format(
+        "%s ID %s", Ports.idToName.get(spark.getDeviceId()), String.valueOf(spark.getDeviceId()));
+  }
+
   /**
    * Returns an array of descriptions of all faults that match the specified type.
    *
    * @param type The type to filter for.
    * @return An array of description strings.
    */
-  private static String[] filteredStrings(Set<Fault> faults, FaultType type) {
+  private static <T> String[] filteredStrings(
+      Collection<T> faults, FaultType type, Function<T, Fault> fault, Function<T, String> format) {
     return faults.stream()
-        .filter(a -> a.type() == type)
-        .map(Fault::toString)
+        .filter(f -> fault.apply(f).type() == type)
+        .map(format)
         .toArray(String[]::new);
   }
 }
@@ -0,0 +1,142 @@
+package org.sciborgs1155.lib;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.networktables.DoublePublisher;
+import java.util.Arrays;
+import java.util.function.DoubleSupplier;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * An input stream that applies a chain of stages to a source in one loop over flat arrays, rather
+ * than through a lambda per stage. The stages of {@link InputStream} append to the chain they are
+ * called on, so a chain built fluently is flattened as it is built, and consecutive constant scales
+ * or offsets are folded into one.
+ *
+ * <p>A cached stream evaluates its chain at most once per loop, as counted by {@link
+ * InputUpdater#loop()}, and ends the chain: stages applied to it start a new chain that reads the
+ * cached value. Streams read by more than one chain should be cached, so that they are evaluated
+ * once per loop however many chains read them.
+ */
+final class FusedInputStream implements InputStream {
+  enum Op {
+    SCALE,
+    SCALE_BY,
+    ADD,
+    ADD_BY,
+    POW,
+    SIGNED_POW,
+    DEADBAND,
+    CLAMP,
+    MAP,
+    LOG
+  }
+
+  private final DoubleSupplier source;
+
+  // stage i is ops[i], with constant arguments a[i] and b[i] and any other argument in refs[i]
+  private final Op[] ops;
+  private final double[] a;
+  private final double[] b;
+  private final Object[] refs;
+
+  private final boolean cached;
+  private long loop = -1;
+  private double value;
+
+  private FusedInputStream(
+      DoubleSupplier source, Op[] ops, double[] a, double[] b, Object[] refs, boolean cached) {
+    this.source = source;
+    this.ops = ops;
+    this.a = a;
+    this.b = b;
+    this.refs = refs;
+    this.cached = cached;
+  }
+
+  /**
+   * Appends a stage to a stream's chain, or starts a new chain if the stream can't be extended.
+   *
+   * @param stream The stream to append to.
+   * @param op The stage.
+   * @param a The stage's first constant argument.
+   * @param b The stage's second constant argument.
+   * @param ref The stage's supplier, operator, or publisher, if any.
+   * @return A new stream, leaving {@code stream} unchanged.
+   */
+  static InputStream append(InputStream stream, Op op, double a, double b, Object ref) {
+    if (!(stream instanceof FusedInputStream fused) || fused.cached) {
+      return new FusedInputStream(
+          stream, new Op[] {op}, new double[] {a}, new double[] {b}, new Object[] {ref}, false);
+    }
+
+    int n = fused.ops.length;
+    if (n > 0 && op == fused.ops[n - 1] && (op == Op.SCALE || op == Op.ADD)) {
+      double[] as = fused.a.clone();
+      as[n - 1] = op == Op.SCALE ? as[n - 1] * a : as[n - 1] + a;
+      return new FusedInputStream(fused.source, fused.ops, as, fused.b, fused.refs, false);
+    }
+
+    Op[] ops = Arrays.copyOf(fused.ops, n + 1);
+    double[] as = Arrays.copyOf(fused.a, n + 1);
+    double[] bs = Arrays.copyOf(fused.b, n + 1);
+    Object[] refs = Arrays.copyOf(fused.refs, n + 1);
+    ops[n] = op;
+    as[n] = a;
+    bs[n] = b;
+    refs[n] = ref;
+    return new FusedInputStream(fused.source, ops, as, bs, refs, false);
+  }
+
+  /**
+   * Caches a stream's value for each loop.
+   *
+   * @param stream The stream to cache.
+   * @return A cached stream, which may be {@code stream} if it is already cached.
+   */
+  static InputStream cache(InputStream stream) {
+    if (stream instanceof FusedInputStream fused) {
+      return fused.cached
+          ? fused
+          : new FusedInputStream(fused.source, fused.ops, fused.a, fused.b, fused.refs, true);
+    }
+    return new FusedInputStream(
+        stream, new Op[0], new double[0], new double[0], new Object[0], true);
+  }
+
+  /** Returns the number of stages in this stream's chain, after folding. */
+  int stages() {
+    return ops.length;
+  }
+
+  @Override
+  public double getAsDouble() {
+    if (!cached) {
+      return evaluate();
+    }
+    long now = InputUpdater.loop();
+    if (now != loop) {
+      value = evaluate();
+      loop = now;
+    }
+    return value;
+  }
+
+  private double evaluate() {
+    double x = source.getAsDouble();
+    for (int i = 0; i < ops.length; i++) {
+      switch (ops[i]) {
+        case SCALE -> x *= a[i];
+        case SCALE_BY -> x *= ((DoubleSupplier) refs[i]).getAsDouble();
+        case ADD -> x += a[i];
+        case ADD_BY -> x += ((DoubleSupplier) refs[i]).getAsDouble();
+        case POW -> x = Math.pow(x, a[i]);
+        case SIGNED_POW -> x = Math.copySign(Math.pow(x, a[i]), x);
+        case DEADBAND -> x = MathUtil.applyDeadband(x, a[i], b[i]);
+        case CLAMP -> x = MathUtil.clamp(x, -a[i], a[i]);
+        case MAP -> x = ((DoubleUnaryOperator) refs[i]).applyAsDouble(x);
+        case LOG -> ((DoublePublisher) refs[i]).set(x);
+      }
+    }
+    return x;
+  }
+}
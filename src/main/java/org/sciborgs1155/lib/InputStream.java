@@ -1,16 +1,20 @@
 package org.sciborgs1155.lib;
 
-import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.filter.LinearFilter;
 import edu.wpi.first.math.filter.SlewRateLimiter;
 import edu.wpi.first.networktables.DoublePublisher;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import java.util.function.DoubleSupplier;
 import java.util.function.DoubleUnaryOperator;
+import org.sciborgs1155.lib.FusedInputStream.Op;
 
 /**
  * A functional interface to aid in modifying double suppliers, such as from a joystick.
  *
+ * <p>Stages are flattened into one loop as they are applied, instead of nesting a lambda per stage.
+ * Streams read by more than one chain, like joystick axes read by both {@link #hypot} and {@link
+ * #atan}, should be {@link #cache() cached} so they are read once per loop.
+ *
  * <p>Inspired by 694's StuyLib.
  */
 @FunctionalInterface
@@ -50,7 +54,7 @@ public interface InputStream extends DoubleSupplier {
    * @return A mapped stream.
    */
   public default InputStream map(DoubleUnaryOperator operator) {
-    return () -> operator.applyAsDouble(getAsDouble());
+    return FusedInputStream.append(this, Op.MAP, 0, 0, operator);
   }
 
   /**
@@ -60,7 +64,7 @@ public interface InputStream extends DoubleSupplier {
    * @return A scaled stream.
    */
   public default InputStream scale(DoubleSupplier factor) {
-    return map(x -> x * factor.getAsDouble());
+    return FusedInputStream.append(this, Op.SCALE_BY, 0, 0, factor);
   }
 
   /**
@@ -70,7 +74,7 @@ public interface InputStream extends DoubleSupplier {
    * @return A scaled stream.
    */
   public default InputStream scale(double factor) {
-    return scale(() -> factor);
+    return FusedInputStream.append(this, Op.SCALE, factor, 0, null);
   }
 
   /**
@@ -89,7 +93,7 @@ public interface InputStream extends DoubleSupplier {
    * @return An offset stream.
    */
   public default InputStream add(DoubleSupplier offset) {
-    return map(x -> x + offset.getAsDouble());
+    return FusedInputStream.append(this, Op.ADD_BY, 0, 0, offset);
   }
 
   /**
@@ -99,7 +103,7 @@ public interface InputStream extends DoubleSupplier {
    * @return An offset stream.
    */
   public default InputStream add(double factor) {
-    return add(() -> factor);
+    return FusedInputStream.append(this, Op.ADD, factor, 0, null);
   }
 
   /**
@@ -109,7 +113,7 @@ public interface InputStream extends DoubleSupplier {
    * @return An exponentiated stream.
    */
   public default InputStream pow(double exponent) {
-    return map(x -> Math.pow(x, exponent));
+    return FusedInputStream.append(this, Op.POW, exponent, 0, null);
   }
 
   /**
@@ -119,7 +123,7 @@ public interface InputStream extends DoubleSupplier {
    * @return An exponentiated stream.
    */
   public default InputStream signedPow(double exponent) {
-    return map(x -> Math.copySign(Math.pow(x, exponent), x));
+    return FusedInputStream.append(this, Op.SIGNED_POW, exponent, 0, null);
   }
 
   /**
@@ -140,7 +144,7 @@ public interface InputStream extends DoubleSupplier {
    * @return A deadbanded stream.
    */
   public default InputStream deadband(double deadband, double max) {
-    return map(x -> MathUtil.applyDeadband(x, deadband, max));
+    return FusedInputStream.append(this, Op.DEADBAND, deadband, max, null);
   }
 
   /**
@@ -150,7 +154,7 @@ public interface InputStream extends DoubleSupplier {
    * @return A clamped stream.
    */
   public default InputStream clamp(double magnitude) {
-    return map(x -> MathUtil.clamp(x, -magnitude, magnitude));
+    return FusedInputStream.append(this, Op.CLAMP, magnitude, 0, null);
   }
 
   /**
@@ -175,10 +179,18 @@ public interface InputStream extends DoubleSupplier {
    */
   public default InputStream log(String key) {
     DoublePublisher pub = NetworkTableInstance.getDefault().getDoubleTopic(key).publish();
-    return () -> {
-      double val = this.get();
-      pub.set(val);
-      return val;
-    };
+    return FusedInputStream.append(this, Op.LOG, 0, 0, pub);
+  }
+
+  /**
+   * Caches the output of this stream for each loop, as counted by {@link InputUpdater#loop()}.
+   *
+   * <p>A new stream is returned that evaluates this stream at most once per loop, no matter how
+   * many other streams read it.
+   *
+   * @return A stream with the same output as this one, evaluated once per loop.
+   */
+  public default InputStream cache() {
+    return FusedInputStream.cache(this);
   }
 }
@@ -0,0 +1,89 @@
+package org.sciborgs1155.lib;
+
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.IntegerLogEntry;
+import edu.wpi.first.wpilibj.RobotController;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * InputUpdater reads every registered hardware input once at the start of each loop, so that each
+ * sensor is read exactly once per loop and every subsystem and command sees the same values for the
+ * whole loop.
+ *
+ * <pre>
+ * private final PivotIO.Inputs inputs = new PivotIO.Inputs();
+ * InputUpdater.register(inputs, hardware::updateInputs); // in the subsystem constructor
+ *
+ * InputUpdater.update(); // once per loop, before CommandScheduler.run()
+ * </pre>
+ */
+public final class InputUpdater {
+  /** The log entry marking the start of each loop, which {@link LogReplay} replays loops by. */
+  public static final String LOOP_ENTRY = "InputUpdater/loop";
+
+  private static final List<Runnable> updaters = new ArrayList<>();
+  private static IntegerLogEntry loops;
+  private static long loop = 0;
+
+  private InputUpdater() {}
+
+  /**
+   * Registers inputs to be filled every loop, and fills them once immediately so that they are
+   * valid before the first loop.
+   *
+   * @param inputs The inputs object, which is mutated in place.
+   * @param updater A function that fills the inputs from hardware.
+   * @return {@code inputs}, for chaining.
+   */
+  public static <T> T register(T inputs, Consumer<T> updater) {
+    updater.accept(inputs);
+    updaters.add(() -> updater.accept(inputs));
+    return inputs;
+  }
+
+  /**
+   * Registers a callback that reads hardware, to be run with every other input every loop.
+   *
+   * @param updater The callback to run.
+   */
+  public static void register(Runnable updater) {
+    updaters.add(updater);
+  }
+
+  /**
+   * Starts recording the start of every loop to a log, so that the log can be replayed.
+   *
+   * @param log The log to record to.
+   */
+  public static void startLog(DataLog log) {
+    loops = new IntegerLogEntry(log, LOOP_ENTRY);
+  }
+
+  /**
+   * Returns the number of loops inputs have been read in, which identifies the current loop.
+   *
+   * @return The number of calls to {@link #update()}.
+   */
+  public static long loop() {
+    return loop;
+  }
+
+  /** Reads all registered inputs, in the order they were registered. */
+  public static void update() {
+    loop++;
+    if (loops != null) {
+      long now = RobotController.getFPGATime();
+      loops.append(now, now);
+    }
+    for (int i = 0; i < updaters.size(); i++) {
+      updaters.get(i).run();
+    }
+  }
+
+  /** Unregisters all inputs. Only use this in tests. */
+  public static void unregisterAll() {
+    updaters.clear();
+  }
+}
@@ -0,0 +1,326 @@
+package org.sciborgs1155.lib;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.util.struct.Struct;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * LogReplay plays back the inputs recorded in a log, one robot loop at a time, so that the robot
+ * code can be re-run against a real match.
+ *
+ * <p>Loops are delimited by the {@link InputUpdater#LOOP_ENTRY} records written at the start of
+ * each loop, and the value of an entry during a loop is the last value recorded before the next
+ * loop started. Only inputs (entries logged under an {@code inputs} object), driver station state,
+ * and FMS info are loaded.
+ *
+ * <pre>
+ * LogReplay.load(Path.of("FRC_20240301_123456.wpilog"));
+ * while (LogReplay.advance()) {
+ *   LogReplay.updateDriverStation();
+ *   double velocity = LogReplay.getDouble("NT:/Robot/shooter/topInputs/velocity", 0);
+ *   ...
+ * }
+ * </pre>
+ */
+public final class LogReplay {
+  /** Every recorded value of one entry, in order. */
+  private static final class Series {
+    private long[] timestamps = new long[64];
+    private double[] values = new double[64];
+    private Object[] objects;
+    private int size = 0;
+
+    private void add(long timestamp, double value) {
+      grow();
+      timestamps[size] = timestamp;
+      values[size++] = value;
+    }
+
+    private void add(long timestamp, Object value) {
+      grow();
+      if (objects == null) {
+        objects = new Object[timestamps.length];
+      }
+      timestamps[size] = timestamp;
+      objects[size++] = value;
+    }
+
+    private void grow() {
+      if (size == timestamps.length) {
+        timestamps = Arrays.copyOf(timestamps, size * 2);
+        values = Arrays.copyOf(values, size * 2);
+        if (objects != null) {
+          objects = Arrays.copyOf(objects, size * 2);
+        }
+      }
+    }
+
+    /** Returns the index of the last value recorded before a time, or -1 if there is none. */
+    private int before(long bound) {
+      int low = 0;
+      int high = size - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        if (timestamps[mid] < bound) {
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      return high;
+    }
+  }
+
+  private static final String[] PREFIXES = {"DS:", "NT:/FMSInfo/"};
+  private static final int JOYSTICKS = 6;
+  private static final String[] AXES = new String[JOYSTICKS];
+  private static final String[] BUTTONS = new String[JOYSTICKS];
+  private static final String[] POVS = new String[JOYSTICKS];
+  private static final double[] NONE = new double[0];
+
+  static {
+    for (int i = 0; i < JOYSTICKS; i++) {
+      AXES[i] = "DS:joystick" + i + "/axes";
+      BUTTONS[i] = "DS:joystick" + i + "/buttons";
+      POVS[i] = "DS:joystick" + i + "/povs";
+    }
+  }
+
+  private static boolean active = false;
+  private static Map<String, Series> series = Map.of();
+  private static long[] loops = new long[0];
+  private static int loop = -1;
+  private static long bound = Long.MIN_VALUE;
+
+  private LogReplay() {}
+
+  /**
+   * Loads the inputs recorded in a log and starts replaying it, before its first loop.
+   *
+   * @param path The path of the log.
+   * @throws IOException If the log could not be read.
+   */
+  public static void load(Path path) throws IOException {
+    Map<String, Series> loaded = new HashMap<>();
+    Series loopSeries = new Series();
+    try (WPILogReader reader = new WPILogReader(path)) {
+      reader.forEach(
+          (entry, timestamp, payload) -> {
+            if (entry.name().equals(InputUpdater.LOOP_ENTRY)) {
+              loopSeries.add(timestamp, 0);
+            } else if (replayed(entry.name())) {
+              decode(
+                  loaded.computeIfAbsent(entry.name(), k -> new Series()),
+                  entry,
+                  timestamp,
+                  payload);
+            }
+          });
+    }
+    series = loaded;
+    loops = Arrays.copyOf(loopSeries.timestamps, loopSeries.size);
+    loop = -1;
+    bound = Long.MIN_VALUE;
+    active = true;
+  }
+
+  private static boolean replayed(String name) {
+    for (String prefix : PREFIXES) {
+      if (name.startsWith(prefix)) {
+        return true;
+      }
+    }
+    int object = name.lastIndexOf('/');
+    return name.startsWith("NT:")
+        && object > 0
+        && name.regionMatches(true, object - "inputs".length(), "inputs", 0, "inputs".length());
+  }
+
+  private static void decode(
+      Series series, WPILogReader.Entry entry, long timestamp, ByteBuffer payload) {
+    switch (entry.type()) {
+      case "double" -> series.add(timestamp, payload.getDouble(0));
+      case "float" -> series.add(timestamp, payload.getFloat(0));
+      case "int64" -> series.add(timestamp, payload.getLong(0));
+      case "boolean" -> series.add(timestamp, payload.get(0) != 0 ? 1 : 0);
+      case "double[]" -> {
+        double[] values = new double[payload.limit() / 8];
+        payload.asDoubleBuffer().get(values);
+        series.add(timestamp, values);
+      }
+      case "float[]" -> {
+        double[] values = new double[payload.limit() / 4];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = payload.getFloat(4 * i);
+        }
+        series.add(timestamp, values);
+      }
+      case "int64[]" -> {
+        double[] values = new double[payload.limit() / 8];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = payload.getLong(8 * i);
+        }
+        series.add(timestamp, values);
+      }
+      case "boolean[]" -> {
+        double[] values = new double[payload.limit()];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = payload.get(i) != 0 ? 1 : 0;
+        }
+        series.add(timestamp, values);
+      }
+      default -> {
+        if (entry.type().startsWith("struct:") || entry.type().equals("raw")) {
+          byte[] bytes = new byte[payload.limit()];
+          payload.get(0, bytes);
+          series.add(timestamp, bytes);
+        }
+      }
+    }
+  }
+
+  /** Returns whether a log is loaded for replay. */
+  public static boolean isActive() {
+    return active;
+  }
+
+  /** Returns the number of loops recorded in the loaded log. */
+  public static int loops() {
+    return loops.length;
+  }
+
+  /**
+   * Moves to the next recorded loop.
+   *
+   * @return Whether there was another loop, false once the log is finished.
+   */
+  public static boolean advance() {
+    if (loop + 1 >= loops.length) {
+      return false;
+    }
+    loop++;
+    bound = loop + 1 < loops.length ? loops[loop + 1] : Long.MAX_VALUE;
+    return true;
+  }
+
+  /** Returns the time the current loop started when it was recorded, in seconds. */
+  public static double timestamp() {
+    return loop >= 0 ? loops[loop] / 1e6 : 0;
+  }
+
+  private static int index(String key) {
+    Series values = series.get(key);
+    return values == null ? -1 : values.before(bound);
+  }
+
+  /**
+   * Returns the recorded value of a numeric or boolean entry during the current loop.
+   *
+   * @param key The full name of the entry, such as {@code NT:/Robot/pivot/inputs/position}.
+   * @param defaultValue The value to return if nothing has been recorded yet.
+   * @return The recorded value.
+   */
+  public static double getDouble(String key, double defaultValue) {
+    int i = index(key);
+    return i < 0 ? defaultValue : series.get(key).values[i];
+  }
+
+  /**
+   * Returns the recorded value of a boolean entry during the current loop.
+   *
+   * @param key The full name of the entry, such as {@code DS:enabled}.
+   * @param defaultValue The value to return if nothing has been recorded yet.
+   * @return The recorded value.
+   */
+  public static boolean getBoolean(String key, boolean defaultValue) {
+    int i = index(key);
+    return i < 0 ? defaultValue : series.get(key).values[i] != 0;
+  }
+
+  /**
+   * Returns the recorded value of a numeric or boolean array entry during the current loop.
+   *
+   * @param key The full name of the entry, such as {@code DS:joystick0/axes}.
+   * @param defaultValue The value to return if nothing has been recorded yet.
+   * @return The recorded value, which must not be modified.
+   */
+  public static double[] getDoubleArray(String key, double[] defaultValue) {
+    int i = index(key);
+    return i < 0 || series.get(key).objects == null
+        ? defaultValue
+        : (double[]) series.get(key).objects[i];
+  }
+
+  /**
+   * Returns the recorded value of a struct entry during the current loop.
+   *
+   * @param key The full name of the entry, such as {@code NT:/Robot/drive/gyroInputs/rotation}.
+   * @param struct The struct to decode the value with.
+   * @param defaultValue The value to return if nothing has been recorded yet.
+   * @return The decoded value.
+   */
+  public static <T> T getStruct(String key, Struct<T> struct, T defaultValue) {
+    int i = index(key);
+    if (i < 0 || series.get(key).objects == null) {
+      return defaultValue;
+    }
+    byte[] bytes = (byte[]) series.get(key).objects[i];
+    return struct.unpack(ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN));
+  }
+
+  /** Sets the simulated driver station to its recorded state during the current loop. */
+  public static void updateDriverStation() {
+    DriverStationSim.setEnabled(getBoolean("DS:enabled", false));
+    DriverStationSim.setAutonomous(getBoolean("DS:autonomous", false));
+    DriverStationSim.setTest(getBoolean("DS:test", false));
+    DriverStationSim.setEStop(getBoolean("DS:estop", false));
+
+    boolean red = getBoolean("NT:/FMSInfo/IsRedAlliance", false);
+    int station = (int) getDouble("NT:/FMSInfo/StationNumber", 1);
+    DriverStationSim.setAllianceStationId(
+        switch (station) {
+          case 2 -> red ? AllianceStationID.Red2 : AllianceStationID.Blue2;
+          case 3 -> red ? AllianceStationID.Red3 : AllianceStationID.Blue3;
+          default -> red ? AllianceStationID.Red1 : AllianceStationID.Blue1;
+        });
+
+    for (int stick = 0; stick < JOYSTICKS; stick++) {
+      double[] axes = getDoubleArray(AXES[stick], NONE);
+      DriverStationSim.setJoystickAxisCount(stick, axes.length);
+      for (int i = 0; i < axes.length; i++) {
+        DriverStationSim.setJoystickAxis(stick, i, axes[i]);
+      }
+
+      double[] buttons = getDoubleArray(BUTTONS[stick], NONE);
+      int pressed = 0;
+      for (int i = 0; i < buttons.length; i++) {
+        pressed |= buttons[i] != 0 ? 1 << i : 0;
+      }
+      DriverStationSim.setJoystickButtonCount(stick, buttons.length);
+      DriverStationSim.setJoystickButtons(stick, pressed);
+
+      double[] povs = getDoubleArray(POVS[stick], NONE);
+      DriverStationSim.setJoystickPOVCount(stick, povs.length);
+      for (int i = 0; i < povs.length; i++) {
+        DriverStationSim.setJoystickPOV(stick, i, (int) povs[i]);
+      }
+    }
+    DriverStationSim.notifyNewData();
+  }
+
+  /** Stops replaying and unloads the log. Only use this in tests. */
+  public static void clear() {
+    active = false;
+    series = Map.of();
+    loops = new long[0];
+    loop = -1;
+    bound = Long.MIN_VALUE;
+  }
+}
@@ -0,0 +1,206 @@
+package org.sciborgs1155.lib;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * LoopProfiler times individual pieces of the robot loop and publishes rolling percentiles of each
+ * to NetworkTables, which DataLogManager also records.
+ *
+ * <pre>
+ * addPeriodic(LoopProfiler.wrap("Vision", vision::update), PERIOD); // times a periodic callback
+ *
+ * Timing timing = LoopProfiler.timing("Vision.estimate()"); // times a block of code
+ * timing.start();
+ * ...
+ * timing.stop();
+ * </pre>
+ *
+ * <p>Subsystems that extend {@link ProfiledSubsystem} have their periodic timed automatically.
+ */
+public final class LoopProfiler {
+  /** The number of samples each timing keeps, a little over 5 seconds of 20 ms loops. */
+  public static final int WINDOW = 256;
+
+  /** A rolling window of durations for one piece of the loop. */
+  public static final class Timing {
+    public final String name;
+
+    // ring buffer of durations in nanoseconds, and scratch space to sort them into
+    private final long[] samples = new long[WINDOW];
+    private final long[] sorted = new long[WINDOW];
+    private int index = 0;
+    private int count = 0;
+    private long start = 0;
+
+    private double p50 = 0;
+    private double p99 = 0;
+    private double max = 0;
+
+    private final DoublePublisher p50Publisher;
+    private final DoublePublisher p99Publisher;
+    private final DoublePublisher maxPublisher;
+
+    private Timing(String name) {
+      this.name = name;
+      NetworkTable table = base.getSubTable(name);
+      p50Publisher = table.getDoubleTopic("p50 ms").publish();
+      p99Publisher = table.getDoubleTopic("p99 ms").publish();
+      maxPublisher = table.getDoubleTopic("max ms").publish();
+    }
+
+    /** Starts timing. */
+    public void start() {
+      start = System.nanoTime();
+    }
+
+    /** Stops timing, and records the time since {@link #start()}. */
+    public void stop() {
+      record(System.nanoTime() - start);
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration, in nanoseconds.
+     */
+    public void record(long nanos) {
+      samples[index] = nanos;
+      index = (index + 1) % WINDOW;
+      count = Math.min(count + 1, WINDOW);
+    }
+
+    /** Recomputes percentiles from the current window. */
+    private void summarize() {
+      if (count == 0) {
+        return;
+      }
+      System.arraycopy(samples, 0, sorted, 0, count);
+      Arrays.sort(sorted, 0, count);
+      p50 = sorted[(count - 1) / 2] / 1e6;
+      p99 = sorted[(int) Math.ceil(0.99 * count) - 1] / 1e6;
+      max = sorted[count - 1] / 1e6;
+    }
+
+    /** Returns the median duration in the window as of the last publish, in milliseconds. */
+    public double p50() {
+      return p50;
+    }
+
+    /**
+     * Returns the 99th percentile duration in the window as of the last publish, in milliseconds.
+     */
+    public double p99() {
+      return p99;
+    }
+
+    /** Returns the longest duration in the window as of the last publish, in milliseconds. */
+    public double max() {
+      return max;
+    }
+
+    /** Returns the number of samples in the window. */
+    public int count() {
+      return count;
+    }
+
+    private void clear() {
+      index = 0;
+      count = 0;
+      p50 = 0;
+      p99 = 0;
+      max = 0;
+    }
+  }
+
+  // DATA
+  private static final Map<String, Timing> timings = new LinkedHashMap<>();
+  private static final Map<Command, Timing> commandTimings = new WeakHashMap<>();
+  private static long commandMark = 0;
+
+  // NETWORK TABLES
+  private static final NetworkTable base = NetworkTableInstance.getDefault().getTable("Profiler");
+
+  /**
+   * Returns the timing with a name, creating it if it does not exist yet.
+   *
+   * @param name The name of the timing, which is also its NetworkTables subtable.
+   * @return The timing.
+   */
+  public static Timing timing(String name) {
+    return timings.computeIfAbsent(name, Timing::new);
+  }
+
+  /**
+   * Wraps a callback so that every run of it is timed.
+   *
+   * @param name The name of the timing.
+   * @param callback The callback to time.
+   * @return The timed callback.
+   */
+  public static Runnable wrap(String name, Runnable callback) {
+    Timing timing = timing(name);
+    return () -> {
+      timing.start();
+      try {
+        callback.run();
+      } finally {
+        timing.stop();
+      }
+    };
+  }
+
+  /**
+   * Times the execute of every scheduled command. This should be called once, after all triggers
+   * have been bound.
+   *
+   * <p>The scheduler has no hook before a command executes, so each command is timed from the
+   * previous command's execute, or from the end of trigger polling for the first command. This
+   * includes the previous command's isFinished and end, which are typically negligible.
+   */
+  public static void profileCommands() {
+    CommandScheduler scheduler = CommandScheduler.getInstance();
+    // runs after every trigger bound so far, just before the first command executes
+    scheduler.getDefaultButtonLoop().bind(() -> commandMark = System.nanoTime());
+    scheduler.onCommandExecute(
+        command -> {
+          long now = System.nanoTime();
+          commandTimings
+              .computeIfAbsent(command, c -> timing(c.getName() + ".execute()"))
+              .record(now - commandMark);
+          commandMark = now;
+        });
+  }
+
+  /** Recomputes and publishes percentiles for every timing. This should be called periodically. */
+  public static void publish() {
+    for (Timing timing : timings.values()) {
+      timing.summarize();
+      timing.p50Publisher.set(timing.p50);
+      timing.p99Publisher.set(timing.p99);
+      timing.maxPublisher.set(timing.max);
+    }
+  }
+
+  /**
+   * Returns all timings.
+   *
+   * @return All timings, in the order they were created.
+   */
+  public static Collection<Timing> timings() {
+    return timings.values();
+  }
+
+  /** Clears all recorded durations. */
+  public static void clear() {
+    timings.values().forEach(Timing::clear);
+  }
+}
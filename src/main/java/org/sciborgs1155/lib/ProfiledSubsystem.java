@@ -0,0 +1,35 @@
+package org.sciborgs1155.lib;
+
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import org.sciborgs1155.lib.LoopProfiler.Timing;
+
+/**
+ * A subsystem whose periodic is timed by {@link LoopProfiler}, as "ClassName.periodic()".
+ *
+ * <pre>
+ * public class Pivot extends ProfiledSubsystem {
+ *   &#64;Override
+ *   protected void profiledPeriodic() {
+ *     ...
+ *   }
+ * }
+ * </pre>
+ */
+public abstract class ProfiledSubsystem extends SubsystemBase {
+  private final Timing periodicTiming =
+      LoopProfiler.timing(getClass().getSimpleName() + ".periodic()");
+
+  /** Runs {@link #profiledPeriodic()}, timing it even if it throws. */
+  @Override
+  public final void periodic() {
+    periodicTiming.start();
+    try {
+      profiledPeriodic();
+    } finally {
+      periodicTiming.stop();
+    }
+  }
+
+  /** This method is called periodically by the scheduler, and is timed by {@link LoopProfiler}. */
+  protected void profiledPeriodic() {}
+}
@@ -3,21 +3,27 @@ package org.sciborgs1155.lib;
 import com.revrobotics.CANSparkBase;
 import com.revrobotics.CANSparkLowLevel.PeriodicFrame;
 import com.revrobotics.REVLibError;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 /** Utility class for configuration of Spark motor controllers */
 public class SparkUtils {
 
-  private static final List<Runnable> runnables = new ArrayList<>();
+  private static final Map<String, Runnable> runnables = new LinkedHashMap<>();
 
-  public static void addChecker(Runnable runnable) {
-    runnables.add(runnable);
+  /**
+   * Adds a check to run periodically, replacing any check with the same name.
+   *
+   * @param name The name of the check, which it is profiled under.
+   * @param runnable The check to run.
+   */
+  public static void addChecker(String name, Runnable runnable) {
+    runnables.put(name, runnable);
   }
 
-  public static List<Runnable> getRunnables() {
+  public static Map<String, Runnable> getRunnables() {
     return runnables;
   }
 
@@ -0,0 +1,106 @@
+package org.sciborgs1155.lib;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, lock-free queue for handing objects from exactly one producer thread to exactly one
+ * consumer thread, such as from a sensor thread to the main robot loop.
+ *
+ * <pre>
+ * SpscQueue&lt;Reading&gt; queue = new SpscQueue&lt;&gt;(16);
+ * queue.offer(reading); // on the producer thread
+ * queue.drain(this::use); // on the consumer thread
+ * </pre>
+ *
+ * @param <T> The type of element held.
+ */
+public final class SpscQueue<T> {
+  private final Object[] buffer;
+  private final int mask;
+
+  // index of the next element to read, only written by the consumer
+  private final AtomicLong head = new AtomicLong();
+  // index of the next element to write, only written by the producer
+  private final AtomicLong tail = new AtomicLong();
+
+  /**
+   * Creates a new queue.
+   *
+   * @param capacity The minimum number of elements the queue can hold, rounded up to a power of 2.
+   */
+  public SpscQueue(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+    }
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) {
+      size <<= 1;
+    }
+    buffer = new Object[size];
+    mask = size - 1;
+  }
+
+  /**
+   * Adds an element to the queue. This must only be called from the producer thread.
+   *
+   * @param value The element to add, which must not be null.
+   * @return Whether the element was added, which is false if the queue is full.
+   */
+  public boolean offer(T value) {
+    long t = tail.get();
+    if (t - head.get() == buffer.length) {
+      return false;
+    }
+    buffer[(int) t & mask] = value;
+    // ordered write publishes the element before the consumer can see the new tail
+    tail.lazySet(t + 1);
+    return true;
+  }
+
+  /**
+   * Removes the oldest element from the queue. This must only be called from the consumer thread.
+   *
+   * @return The oldest element, or null if the queue is empty.
+   */
+  @SuppressWarnings("unchecked")
+  public T poll() {
+    long h = head.get();
+    if (h == tail.get()) {
+      return null;
+    }
+    int i = (int) h & mask;
+    T value = (T) buffer[i];
+    buffer[i] = null;
+    head.lazySet(h + 1);
+    return value;
+  }
+
+  /**
+   * Removes every element currently in the queue, oldest first. This must only be called from the
+   * consumer thread.
+   *
+   * @param consumer The action to run on each element.
+   * @return The number of elements removed.
+   */
+  public int drain(Consumer<? super T> consumer) {
+    int count = 0;
+    for (T value = poll(); value != null; value = poll()) {
+      consumer.accept(value);
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of elements in the queue, which may be stale if another thread is active.
+   */
+  public int size() {
+    return (int) (tail.get() - head.get());
+  }
+
+  /** Returns the number of elements the queue can hold. */
+  public int capacity() {
+    return buffer.length;
+  }
+}
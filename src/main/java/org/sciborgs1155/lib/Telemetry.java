@@ -0,0 +1,491 @@
+package org.sciborgs1155.lib;
+
+import static edu.wpi.first.units.Units.Microseconds;
+import static edu.wpi.first.units.Units.Seconds;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.RawPublisher;
+import edu.wpi.first.units.Measure;
+import edu.wpi.first.units.Time;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.util.datalog.RawLogEntry;
+import edu.wpi.first.util.struct.Struct;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Telemetry publishes frequently changing values only when they change, so that values which sit
+ * still cost neither radio bandwidth nor serialization time on the RIO.
+ *
+ * <p>Every value is sampled every loop. Each sample is struct-encoded once, and written to the
+ * DataLog if its encoding changed at all, so the log keeps every change for replay and analysis.
+ * Every value also has a {@link Rate}, which sets how often it may be published to NetworkTables in
+ * each mode. Only {@link Rate#FAST} and {@link Rate#ON_CHANGE} values may be published more often
+ * than every {@link #NT_PERIOD}. A value is only published if a field moved by more than its
+ * deadband. Unchanged values are sent again every {@link #HEARTBEAT} so that late dashboards and
+ * log readers always have a recent value.
+ *
+ * <pre>
+ * Telemetry.add("/Robot/shooter/topVelocity", Rate.FAST, this::topVelocity, 1); // in the subsystem constructor
+ * Telemetry.addArray("/Robot/drive/getModuleStates", Rate.FAST, SwerveModuleState.struct, this::getModuleStates, 0.01);
+ * Telemetry.schedule(Rate.SLOW, this::updateVisualizers);
+ *
+ * Telemetry.update(); // once per loop
+ * </pre>
+ *
+ * <p>Each value and task is sampled until the {@link Registration} returned for it is closed, which
+ * subsystems do when they are closed. Adding a value under a key that is already registered
+ * replaces the old value.
+ */
+public final class Telemetry {
+  /** How often changed values are published to NetworkTables, except for fast values. */
+  public static final Measure<Time> NT_PERIOD = Seconds.of(0.1);
+
+  /** How often unchanged values are sent anyway. */
+  public static final Measure<Time> HEARTBEAT = Seconds.of(1);
+
+  private static final long NT_PERIOD_US = (long) NT_PERIOD.in(Microseconds);
+  private static final long HEARTBEAT_US = (long) HEARTBEAT.in(Microseconds);
+
+  /** How early a value may be published or a task run, so loop jitter doesn't skip periods. */
+  private static final long TOLERANCE_US = 5_000;
+
+  /**
+   * How often values are published to NetworkTables, and scheduled tasks are run, by mode.
+   * Diagnostics are cheap to send often while disabled or in test mode, but take bandwidth and loop
+   * time away from control during a match. Values are logged every loop regardless.
+   */
+  public enum Rate {
+    /** Values used for control or tuning, published every loop they change. */
+    FAST(0.02, 0.02, 0.02, 0.02),
+    /** Values a driver watches, published at 10 Hz. */
+    MEDIUM(0.1, 0.1, 0.1, 0.02),
+    /** Diagnostics and visualizations, published at 1 Hz during a match. */
+    SLOW(0.1, 1, 1, 0.02),
+    /** Values that change rarely, published to NT as soon as they change. */
+    ON_CHANGE(0.02, 0.02, 0.02, 0.02);
+
+    private final long[] periods;
+
+    /** Periods in seconds while disabled, in autonomous, in teleop, and in test. */
+    Rate(double disabled, double auto, double teleop, double test) {
+      periods =
+          new long[] {
+            (long) (disabled * 1e6), (long) (auto * 1e6), (long) (teleop * 1e6), (long) (test * 1e6)
+          };
+    }
+
+    /**
+     * Returns how often values are published, and tasks run, in the current mode.
+     *
+     * @return The period.
+     */
+    public Measure<Time> period() {
+      return Microseconds.of(periods[mode()]);
+    }
+  }
+
+  /** A registered value or task, which is sampled every loop until it is closed. */
+  public static final class Registration implements AutoCloseable {
+    private final Channel channel;
+
+    private Registration(Channel channel) {
+      this.channel = channel;
+    }
+
+    /** Stops sampling the value or running the task, and releases its publisher. */
+    @Override
+    public void close() {
+      if (channels.remove(channel)) {
+        channel.close();
+      }
+    }
+  }
+
+  private static final List<Channel> channels = new ArrayList<>();
+  private static DataLog log;
+
+  private Telemetry() {}
+
+  /**
+   * Publishes a number.
+   *
+   * @param key The absolute NetworkTables key, such as "/Robot/shooter/topVelocity".
+   * @param rate How often to publish the value.
+   * @param value The value to publish.
+   * @param deadband How far the value must move from the last published value to be published
+   *     again.
+   * @return The registration, to close when the value is no longer needed.
+   */
+  public static Registration add(String key, Rate rate, DoubleSupplier value, double deadband) {
+    return register(new DoubleChannel(key, rate, value, deadband));
+  }
+
+  /**
+   * Publishes a struct.
+   *
+   * @param key The absolute NetworkTables key, such as "/Robot/pivot/rotation".
+   * @param rate How often to publish the value.
+   * @param struct The struct serializer for the value.
+   * @param value The value to publish.
+   * @param deadbands How far each field must move from the last published value to be published
+   *     again. Either one deadband for every field, or one per field. Only structs made entirely of
+   *     doubles, such as the geometry and kinematics classes, may have nonzero deadbands.
+   * @return The registration, to close when the value is no longer needed.
+   */
+  public static <T> Registration add(
+      String key, Rate rate, Struct<T> struct, Supplier<T> value, double... deadbands) {
+    return register(
+        new StructChannel<>(
+            key,
+            rate,
+            struct,
+            struct.getTypeString(),
+            b -> struct.pack(b, value.get()),
+            deadbands));
+  }
+
+  /**
+   * Publishes an array of structs.
+   *
+   * @param key The absolute NetworkTables key, such as "/Robot/drive/getModuleStates".
+   * @param rate How often to publish the values.
+   * @param struct The struct serializer for each element.
+   * @param value The values to publish.
+   * @param deadbands How far each field of each element must move to be published again, as in
+   *     {@link #add(String, Rate, Struct, Supplier, double...)}.
+   * @return The registration, to close when the values are no longer needed.
+   */
+  public static <T> Registration addArray(
+      String key, Rate rate, Struct<T> struct, Supplier<T[]> value, double... deadbands) {
+    return register(
+        new StructChannel<>(
+            key,
+            rate,
+            struct,
+            struct.getTypeString() + "[]",
+            b -> {
+              T[] values = value.get();
+              for (int i = 0; i < values.length; i++) {
+                b = StructChannel.ensure(b, struct.getSize());
+                struct.pack(b, values[i]);
+              }
+              return b;
+            },
+            deadbands));
+  }
+
+  /**
+   * Runs a task that publishes its own telemetry, such as updating a {@link
+   * edu.wpi.first.wpilibj.smartdashboard.Mechanism2d} or {@link
+   * edu.wpi.first.wpilibj.smartdashboard.Field2d}, at a rate.
+   *
+   * @param rate How often to run the task.
+   * @param task The task to run.
+   * @return The registration, to close when the task should stop running.
+   */
+  public static Registration schedule(Rate rate, Runnable task) {
+    return register(new Task(rate, task));
+  }
+
+  private static Registration register(Channel channel) {
+    if (channel.key != null) {
+      for (int i = 0; i < channels.size(); i++) {
+        if (channel.key.equals(channels.get(i).key)) {
+          channels.remove(i).close();
+          break;
+        }
+      }
+    }
+    channels.add(channel);
+    return new Registration(channel);
+  }
+
+  /**
+   * Starts writing every change to a log, independent of the NetworkTables rate.
+   *
+   * @param log The log to write to.
+   */
+  public static void startLog(DataLog log) {
+    Telemetry.log = log;
+  }
+
+  /** Samples and logs every value, publishes those that are due, and runs due tasks. */
+  public static void update() {
+    long now = RobotController.getFPGATime();
+    int mode = mode();
+    for (int i = 0; i < channels.size(); i++) {
+      channels.get(i).update(now, mode);
+    }
+  }
+
+  /** Removes every value. Only use this in tests. */
+  public static void unregisterAll() {
+    for (Channel channel : channels) {
+      channel.close();
+    }
+    channels.clear();
+    log = null;
+  }
+
+  /** The current mode, as an index into {@link Rate#periods}. */
+  private static int mode() {
+    if (DriverStation.isDisabled()) {
+      return 0;
+    } else if (DriverStation.isAutonomous()) {
+      return 1;
+    } else if (DriverStation.isTest()) {
+      return 3;
+    }
+    return 2;
+  }
+
+  private abstract static class Channel implements AutoCloseable {
+    /** The NetworkTables key, or null for tasks. */
+    final String key;
+
+    final Rate rate;
+    private boolean published = false;
+    private long publishedAt;
+
+    Channel(String key, Rate rate) {
+      this.key = key;
+      this.rate = rate;
+    }
+
+    /** Runs once every loop. */
+    abstract void update(long now, int mode);
+
+    /**
+     * Returns whether a sample should be published to NT.
+     *
+     * @param changed Whether the sample moved beyond its deadband.
+     */
+    final boolean publish(long now, int mode, boolean changed) {
+      if (!published || now - publishedAt >= HEARTBEAT_US) {
+        return true;
+      }
+      if (!changed) {
+        return false;
+      }
+      long period = rate.periods[mode] - TOLERANCE_US;
+      return switch (rate) {
+        case ON_CHANGE -> true;
+        case FAST -> now - publishedAt >= period;
+        default -> now - publishedAt >= Math.max(NT_PERIOD_US, period);
+      };
+    }
+
+    /** Records that a sample was published to NT. */
+    final void markPublished(long now) {
+      published = true;
+      publishedAt = now;
+    }
+
+    @Override
+    public void close() {}
+  }
+
+  /** A task that publishes its own telemetry, which skips loops between runs. */
+  private static final class Task extends Channel {
+    private final Runnable task;
+    private boolean ran = false;
+    private long ranAt;
+
+    Task(Rate rate, Runnable task) {
+      super(null, rate);
+      this.task = task;
+    }
+
+    @Override
+    void update(long now, int mode) {
+      if (ran && now - ranAt < rate.periods[mode] - TOLERANCE_US) {
+        return;
+      }
+      ran = true;
+      ranAt = now;
+      task.run();
+    }
+  }
+
+  private static final class DoubleChannel extends Channel {
+    private final DoubleSupplier value;
+    private final double deadband;
+    private final DoublePublisher publisher;
+    private DoubleLogEntry entry;
+
+    private double lastPublished = Double.NaN;
+    private double lastLogged = Double.NaN;
+    private long loggedAt;
+
+    DoubleChannel(String key, Rate rate, DoubleSupplier value, double deadband) {
+      super(key, rate);
+      this.value = value;
+      this.deadband = deadband;
+      publisher =
+          NetworkTableInstance.getDefault()
+              .getDoubleTopic(key)
+              .publish(PubSubOption.keepDuplicates(true));
+    }
+
+    @Override
+    void update(long now, int mode) {
+      double v = value.getAsDouble();
+      if (log != null) {
+        if (entry == null) {
+          entry = new DoubleLogEntry(log, key);
+        }
+        if (Double.doubleToLongBits(v) != Double.doubleToLongBits(lastLogged)
+            || now - loggedAt >= HEARTBEAT_US) {
+          entry.append(v, now);
+          lastLogged = v;
+          loggedAt = now;
+        }
+      }
+      // written so that NaN on either side counts as a change
+      if (publish(now, mode, !(Math.abs(v - lastPublished) <= deadband))) {
+        publisher.set(v);
+        lastPublished = v;
+        markPublished(now);
+      }
+    }
+
+    @Override
+    public void close() {
+      publisher.close();
+    }
+  }
+
+  private static final class StructChannel<T> extends Channel {
+    private final Struct<T> struct;
+    private final String type;
+    private final Packer packer;
+    private final double[] deadbands;
+    private final boolean exact;
+    private final RawPublisher publisher;
+    private RawLogEntry entry;
+
+    private ByteBuffer current = buffer(64);
+    private ByteBuffer sent = buffer(64);
+    private ByteBuffer logged = buffer(64);
+    private boolean hasLogged = false;
+    private long loggedAt;
+
+    @FunctionalInterface
+    interface Packer {
+      /** Packs the current value into the buffer, returning it or a larger copy. */
+      ByteBuffer pack(ByteBuffer buffer);
+    }
+
+    StructChannel(
+        String key, Rate rate, Struct<T> struct, String type, Packer packer, double[] deadbands) {
+      super(key, rate);
+      int fields = struct.getSize() / Double.BYTES;
+      boolean exact = true;
+      for (double deadband : deadbands) {
+        exact &= deadband == 0;
+      }
+      if (!exact && struct.getSize() % Double.BYTES != 0) {
+        throw new IllegalArgumentException(
+            struct.getTypeString() + " is not made of doubles, so cannot have deadbands");
+      }
+      if (deadbands.length > 1 && deadbands.length != fields) {
+        throw new IllegalArgumentException(
+            "Expected 1 or " + fields + " deadbands for " + struct.getTypeString());
+      }
+      this.struct = struct;
+      this.type = type;
+      this.packer = packer;
+      this.deadbands = deadbands.length == 0 ? new double[] {0} : deadbands;
+      this.exact = exact;
+      var nt = NetworkTableInstance.getDefault();
+      nt.addSchema(struct);
+      publisher = nt.getRawTopic(key).publish(type, PubSubOption.keepDuplicates(true));
+    }
+
+    @Override
+    void update(long now, int mode) {
+      current.clear();
+      if (!type.endsWith("[]")) {
+        current = ensure(current, struct.getSize());
+      }
+      current = packer.pack(current);
+      current.flip();
+
+      if (log != null) {
+        if (entry == null) {
+          log.addSchema(struct);
+          entry = new RawLogEntry(log, key, "", type);
+        }
+        if (!hasLogged || !current.equals(logged) || now - loggedAt >= HEARTBEAT_US) {
+          entry.append(current.array(), 0, current.limit(), now);
+          logged = copy(current, logged);
+          hasLogged = true;
+          loggedAt = now;
+        }
+      }
+      if (publish(now, mode, changed())) {
+        publisher.set(current.array(), 0, current.limit());
+        sent = copy(current, sent);
+        markPublished(now);
+      }
+    }
+
+    /** Whether any field moved by more than its deadband since it was last published. */
+    private boolean changed() {
+      if (current.limit() != sent.limit()) {
+        return true;
+      }
+      if (exact) {
+        return !current.equals(sent);
+      }
+      for (int i = 0; i < current.limit() / Double.BYTES; i++) {
+        int offset = i * Double.BYTES;
+        double deadband = deadbands[deadbands.length == 1 ? 0 : i % deadbands.length];
+        if (!(Math.abs(current.getDouble(offset) - sent.getDouble(offset)) <= deadband)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public void close() {
+      publisher.close();
+    }
+
+    static ByteBuffer buffer(int capacity) {
+      return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** Returns a buffer with room for {@code bytes} more bytes, growing (rarely) if needed. */
+    static ByteBuffer ensure(ByteBuffer buffer, int bytes) {
+      if (buffer.remaining() >= bytes) {
+        return buffer;
+      }
+      ByteBuffer larger = buffer(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+      buffer.flip();
+      return larger.put(buffer);
+    }
+
+    /** Copies {@code src} into {@code dst}, growing {@code dst} if needed. */
+    static ByteBuffer copy(ByteBuffer src, ByteBuffer dst) {
+      if (dst.capacity() < src.limit()) {
+        dst = buffer(src.capacity());
+      }
+      dst.clear();
+      dst.put(src.array(), 0, src.limit());
+      dst.flip();
+      return dst;
+    }
+  }
+}
@@ -21,6 +21,8 @@ public class UnitTestingUtil {
     DriverStationSim.notifyNewData();
     FaultLogger.clear();
     FaultLogger.unregisterAll();
+    InputUpdater.unregisterAll();
+    Telemetry.unregisterAll();
   }
 
   /**
@@ -37,12 +39,14 @@ public class UnitTestingUtil {
   }
 
   /**
-   * Runs CommandScheduler and updates timer repeatedly to fast forward subsystems and run commands.
+   * Reads inputs, runs CommandScheduler and updates timer repeatedly to fast forward subsystems and
+   * run commands.
    *
    * @param ticks The number of times CommandScheduler is run
    */
   public static void fastForward(int ticks) {
     for (int i = 0; i < ticks; i++) {
+      InputUpdater.update();
       CommandScheduler.getInstance().run();
       SimHooks.stepTiming(TICK_RATE.in(Seconds));
     }
@@ -72,6 +76,7 @@ public class UnitTestingUtil {
    */
   public static void run(Command command) {
     command.schedule();
+    InputUpdater.update();
     CommandScheduler.getInstance().run();
   }
 
@@ -99,4 +104,14 @@ public class UnitTestingUtil {
       fastForward(1);
     }
   }
+
+  /**
+   * Spins for a duration, to stand in for work that takes real time.
+   *
+   * @param nanos The duration, in nanoseconds.
+   */
+  public static void busyWait(long nanos) {
+    long start = System.nanoTime();
+    while (System.nanoTime() - start < nanos) {}
+  }
 }
@@ -0,0 +1,274 @@
+package org.sciborgs1155.lib;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.Timer;
+import java.util.Arrays;
+import java.util.function.DoubleSupplier;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A stream of 2D or 3D vectors, such as from a joystick's axes, shaped by magnitude and direction
+ * rather than one axis at a time. Deadbanding or curving each axis separately distorts diagonals;
+ * shaping the magnitude keeps the direction the driver pushed.
+ *
+ * <pre>
+ * VectorInputStream translation =
+ *     VectorInputStream.of(() -> -driver.getLeftY(), () -> -driver.getLeftX())
+ *         .deadband(DEADBAND, 1)
+ *         .pow(2)
+ *         .scale(MAX_SPEED.in(MetersPerSecond));
+ * drive.drive(translation.x(), translation.y(), omega);
+ * </pre>
+ *
+ * <p>A stream is evaluated at most once per loop, as counted by {@link InputUpdater#loop()}, into
+ * an array it reuses, so reading every component allocates nothing and reads each axis once.
+ */
+public final class VectorInputStream {
+  /** A stage that modifies a vector in place. */
+  @FunctionalInterface
+  private interface Stage {
+    void apply(double[] v);
+  }
+
+  private final DoubleSupplier[] components;
+  private final Stage[] stages;
+
+  private final double[] value;
+  private long loop = -1;
+
+  private VectorInputStream(DoubleSupplier[] components, Stage[] stages) {
+    this.components = components;
+    this.stages = stages;
+    value = new double[components.length];
+  }
+
+  /**
+   * Creates a 2D vector stream.
+   *
+   * @param x The x component.
+   * @param y The y component.
+   * @return A new vector stream.
+   */
+  public static VectorInputStream of(DoubleSupplier x, DoubleSupplier y) {
+    return new VectorInputStream(new DoubleSupplier[] {x, y}, new Stage[0]);
+  }
+
+  /**
+   * Creates a 3D vector stream.
+   *
+   * @param x The x component.
+   * @param y The y component.
+   * @param z The z component.
+   * @return A new vector stream.
+   */
+  public static VectorInputStream of(DoubleSupplier x, DoubleSupplier y, DoubleSupplier z) {
+    return new VectorInputStream(new DoubleSupplier[] {x, y, z}, new Stage[0]);
+  }
+
+  /** Returns the number of components in this stream's vectors. */
+  public int dimension() {
+    return components.length;
+  }
+
+  /**
+   * Returns a component of this loop's vector.
+   *
+   * @param i The component, starting from x at 0.
+   * @return The component's value.
+   */
+  public double get(int i) {
+    update();
+    return value[i];
+  }
+
+  /** Returns this loop's vector's magnitude. */
+  public double norm() {
+    update();
+    return norm(value);
+  }
+
+  /** Returns a stream of the x component. */
+  public InputStream x() {
+    return () -> get(0);
+  }
+
+  /** Returns a stream of the y component. */
+  public InputStream y() {
+    return () -> get(1);
+  }
+
+  /** Returns a stream of the z component, for 3D streams. */
+  public InputStream z() {
+    if (components.length < 3) {
+      throw new IllegalStateException("A 2D stream has no z component");
+    }
+    return () -> get(2);
+  }
+
+  /** Returns a stream of the magnitude. */
+  public InputStream magnitude() {
+    return this::norm;
+  }
+
+  /**
+   * Scales the stream's vectors by a factor.
+   *
+   * @param factor A supplier of scaling factors.
+   * @return A scaled stream.
+   */
+  public VectorInputStream scale(DoubleSupplier factor) {
+    return stage(v -> scale(v, factor.getAsDouble()));
+  }
+
+  /**
+   * Scales the stream's vectors by a factor.
+   *
+   * @param factor A scaling factor.
+   * @return A scaled stream.
+   */
+  public VectorInputStream scale(double factor) {
+    return stage(v -> scale(v, factor));
+  }
+
+  /**
+   * Maps the magnitude of the stream's vectors, keeping their direction.
+   *
+   * @param curve A function from a magnitude to a new magnitude.
+   * @return A mapped stream.
+   */
+  public VectorInputStream curve(DoubleUnaryOperator curve) {
+    return stage(
+        v -> {
+          double norm = norm(v);
+          scale(v, norm == 0 ? 0 : curve.applyAsDouble(norm) / norm);
+        });
+  }
+
+  /**
+   * Raises the magnitude of the stream's vectors to an exponent, keeping their direction.
+   *
+   * @param exponent The exponent to raise them to.
+   * @return An exponentiated stream.
+   */
+  public VectorInputStream pow(double exponent) {
+    return curve(norm -> Math.pow(norm, exponent));
+  }
+
+  /**
+   * Deadbands the magnitude of the stream's vectors by a minimum bound and scales it from 0 to a
+   * maximum bound, keeping their direction.
+   *
+   * @param deadband The lower bound to deadband with.
+   * @param max The maximum value to scale with.
+   * @return A deadbanded stream.
+   */
+  public VectorInputStream deadband(double deadband, double max) {
+    return curve(norm -> MathUtil.applyDeadband(norm, deadband, max));
+  }
+
+  /**
+   * Clamps the magnitude of the stream's vectors, keeping their direction.
+   *
+   * @param magnitude The upper bound to clamp with.
+   * @return A clamped stream.
+   */
+  public VectorInputStream clamp(double magnitude) {
+    return curve(norm -> Math.min(norm, magnitude));
+  }
+
+  /**
+   * Rotates the x and y components of the stream's vectors counterclockwise about the z axis, such
+   * as from the driver's perspective to the field's.
+   *
+   * @param angle A supplier of angles, in radians.
+   * @return A rotated stream.
+   */
+  public VectorInputStream rotate(DoubleSupplier angle) {
+    return stage(
+        v -> {
+          double theta = angle.getAsDouble();
+          double cos = Math.cos(theta);
+          double sin = Math.sin(theta);
+          double x = v[0];
+          v[0] = x * cos - v[1] * sin;
+          v[1] = x * sin + v[1] * cos;
+        });
+  }
+
+  /**
+   * Rate limits the stream's vectors, so that they move towards their input by at most a distance
+   * per second in any direction. Unlike limiting each component, this limits diagonal changes as
+   * much as straight ones.
+   *
+   * @param rate The rate in units / s.
+   * @return A rate limited stream.
+   */
+  public VectorInputStream rateLimit(double rate) {
+    double[] previous = new double[components.length];
+    double[] time = {Timer.getFPGATimestamp()};
+    return stage(
+        v -> {
+          double now = Timer.getFPGATimestamp();
+          double step = rate * (now - time[0]);
+          time[0] = now;
+          double distance = 0;
+          for (int i = 0; i < v.length; i++) {
+            distance += (v[i] - previous[i]) * (v[i] - previous[i]);
+          }
+          distance = Math.sqrt(distance);
+          if (distance > step) {
+            for (int i = 0; i < v.length; i++) {
+              v[i] = previous[i] + (v[i] - previous[i]) * step / distance;
+            }
+          }
+          System.arraycopy(v, 0, previous, 0, v.length);
+        });
+  }
+
+  /**
+   * Logs the stream's vectors to networktables every loop.
+   *
+   * @param key The NetworkTables key to publish to.
+   * @return A stream with the same output as this one.
+   */
+  public VectorInputStream log(String key) {
+    DoubleArrayPublisher pub = NetworkTableInstance.getDefault().getDoubleArrayTopic(key).publish();
+    return stage(pub::set);
+  }
+
+  private VectorInputStream stage(Stage stage) {
+    Stage[] appended = Arrays.copyOf(stages, stages.length + 1);
+    appended[stages.length] = stage;
+    return new VectorInputStream(components, appended);
+  }
+
+  private void update() {
+    long now = InputUpdater.loop();
+    if (now == loop) {
+      return;
+    }
+    loop = now;
+    for (int i = 0; i < value.length; i++) {
+      value[i] = components[i].getAsDouble();
+    }
+    for (Stage stage : stages) {
+      stage.apply(value);
+    }
+  }
+
+  private static double norm(double[] v) {
+    double sum = 0;
+    for (double c : v) {
+      sum += c * c;
+    }
+    return Math.sqrt(sum);
+  }
+
+  private static void scale(double[] v, double factor) {
+    for (int i = 0; i < v.length; i++) {
+      v[i] *= factor;
+    }
+  }
+}
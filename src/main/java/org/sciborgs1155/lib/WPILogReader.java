@@ -0,0 +1,549 @@
+package org.sciborgs1155.lib;
+
+import edu.wpi.first.util.struct.Struct;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * WPILogReader reads .wpilog files written by {@link edu.wpi.first.util.datalog.DataLog}, such as
+ * those from {@link edu.wpi.first.wpilibj.DataLogManager} and URCL.
+ *
+ * <p>The file is memory mapped rather than read into memory, in windows so that logs larger than 2
+ * GB can be read. The first call to {@link #entries()} or a record cursor scans the log once to
+ * index where every entry's records are, after which each entry's records can be read lazily, in
+ * order or from any time, without copying or decoding the rest of the log.
+ *
+ * <pre>
+ * try (var reader = new WPILogReader(Path.of("FRC_20240301_123456.wpilog"))) {
+ *   var poses = reader.structs(reader.entry("NT:/Robot/drive/pose").get(), Pose2d.struct);
+ *   poses.seek(30_000_000); // 30 seconds in
+ *   while (poses.next()) {
+ *     System.out.println(poses.timestamp() + ": " + poses.value());
+ *   }
+ * }
+ * </pre>
+ *
+ * @see https://github.com/wpilibsuite/allwpilib/blob/main/wpiutil/doc/datalog.adoc
+ */
+public final class WPILogReader implements AutoCloseable {
+  private static final byte[] MAGIC = "WPILOG".getBytes(StandardCharsets.US_ASCII);
+  private static final int VERSION = 0x0100;
+
+  private static final int CONTROL_START = 0;
+  private static final int CONTROL_FINISH = 1;
+  private static final int CONTROL_SET_METADATA = 2;
+
+  /**
+   * An entry in a log, started by a control record.
+   *
+   * @param id The id of records belonging to the entry.
+   * @param name The name of the entry, such as {@code NT:/Robot/drive/pose}.
+   * @param type The type of the entry's data, such as {@code double} or {@code struct:Pose2d}.
+   * @param metadata The entry's metadata, usually empty or JSON.
+   */
+  public static record Entry(int id, String name, String type, String metadata) {}
+
+  /** Handles one data record. */
+  @FunctionalInterface
+  public static interface RecordHandler {
+    /**
+     * Handles a data record.
+     *
+     * @param entry The entry the record belongs to.
+     * @param timestamp The timestamp of the record, in microseconds.
+     * @param payload A little endian view of the record's data, only valid during this call.
+     */
+    void accept(Entry entry, long timestamp, ByteBuffer payload);
+  }
+
+  /** Visits one record of any entry, including control records. */
+  @FunctionalInterface
+  private static interface RecordVisitor {
+    void visit(int id, long timestamp, ByteBuffer window, int payload, int size, long offset);
+  }
+
+  /**
+   * A cursor over the records of one entry, oldest first. Records are only read when the cursor
+   * reaches them, straight from the mapped file.
+   */
+  public static class Records {
+    private final long[] offsets;
+    private final int count;
+    private final ByteBuffer[] views;
+    private final long[] bases;
+    private int index = -1;
+
+    protected ByteBuffer buffer;
+    protected int payload;
+    protected int size;
+    private long timestamp;
+
+    private Records(WPILogReader reader, Entry entry) {
+      Offsets entryOffsets = reader.index().get(entry);
+      if (entryOffsets == null) {
+        throw new IllegalArgumentException("Entry is not in this log: " + entry);
+      }
+      offsets = entryOffsets.offsets;
+      count = entryOffsets.size;
+      // every cursor gets its own views, so cursors do not move each other's positions
+      views = new ByteBuffer[reader.windows.size()];
+      for (int i = 0; i < views.length; i++) {
+        views[i] = reader.windows.get(i).duplicate().order(ByteOrder.LITTLE_ENDIAN);
+      }
+      bases = Arrays.copyOf(reader.bases, views.length);
+    }
+
+    /** Returns the number of records in the entry. */
+    public int count() {
+      return count;
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return Whether there was another record.
+     */
+    public boolean next() {
+      if (index + 1 >= count) {
+        index = count;
+        return false;
+      }
+      read(++index);
+      return true;
+    }
+
+    /**
+     * Moves to just before the first record at or after a time, so that the next call to {@link
+     * #next()} reads it.
+     *
+     * @param timestamp The time to seek to, in microseconds.
+     */
+    public void seek(long timestamp) {
+      int low = 0;
+      int high = count - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        read(mid);
+        if (this.timestamp < timestamp) {
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      index = low - 1;
+    }
+
+    private void read(int i) {
+      long offset = offsets[i];
+      int window = Arrays.binarySearch(bases, offset);
+      window = window >= 0 ? window : -window - 2;
+      buffer = views[window];
+      buffer.limit(buffer.capacity());
+      int position = (int) (offset - bases[window]);
+
+      int header = Byte.toUnsignedInt(buffer.get(position));
+      int idLength = (header & 0x3) + 1;
+      int sizeLength = ((header >> 2) & 0x3) + 1;
+      int timestampLength = ((header >> 4) & 0x7) + 1;
+      size = (int) unsigned(buffer, position + 1 + idLength, sizeLength);
+      timestamp = unsigned(buffer, position + 1 + idLength + sizeLength, timestampLength);
+      payload = position + 1 + idLength + sizeLength + timestampLength;
+    }
+
+    /** Returns the timestamp of the current record, in microseconds. */
+    public long timestamp() {
+      return timestamp;
+    }
+
+    /** Returns a little endian view of the current record's data, only valid until it moves. */
+    public ByteBuffer payload() {
+      return buffer.limit(payload + size).position(payload);
+    }
+  }
+
+  /** A cursor over the records of a {@code double} entry. */
+  public static final class DoubleRecords extends Records {
+    private DoubleRecords(WPILogReader reader, Entry entry) {
+      super(reader, entry);
+    }
+
+    /** Returns the value of the current record. */
+    public double value() {
+      return buffer.getDouble(payload);
+    }
+  }
+
+  /** A cursor over the records of a struct entry, such as {@code struct:Pose2d}. */
+  public static final class StructRecords<T> extends Records {
+    private final Struct<T> struct;
+
+    private StructRecords(WPILogReader reader, Entry entry, Struct<T> struct) {
+      super(reader, entry);
+      this.struct = struct;
+    }
+
+    /** Decodes and returns the value of the current record. */
+    public T value() {
+      return struct.unpack(payload());
+    }
+  }
+
+  /** A cursor over the records of a {@code string[]} entry. */
+  public static final class StringArrayRecords extends Records {
+    private StringArrayRecords(WPILogReader reader, Entry entry) {
+      super(reader, entry);
+    }
+
+    /** Decodes and returns the value of the current record. */
+    public String[] value() {
+      String[] value = new String[buffer.getInt(payload)];
+      int position = payload + 4;
+      for (int i = 0; i < value.length; i++) {
+        int length = buffer.getInt(position);
+        value[i] = string(buffer, position + 4, length);
+        position += 4 + length;
+      }
+      return value;
+    }
+  }
+
+  /** Offsets of every record of one entry, in order. */
+  private static final class Offsets {
+    private long[] offsets = new long[16];
+    private int size = 0;
+
+    private void add(long offset) {
+      if (size == offsets.length) {
+        offsets = Arrays.copyOf(offsets, size * 2);
+      }
+      offsets[size++] = offset;
+    }
+  }
+
+  private final FileChannel channel;
+  private final long length;
+  private final long windowSize;
+  private final String extraHeader;
+  private final long start;
+
+  // windows are mapped as the log is scanned, each starting at a record so none straddle two
+  private final List<ByteBuffer> windows = new ArrayList<>();
+  private long[] bases = new long[0];
+
+  private List<Entry> entries;
+  private Map<Entry, Offsets> index;
+
+  /**
+   * Opens and maps a log.
+   *
+   * @param path The path of the log.
+   * @throws IOException If the file could not be read or is not a supported log.
+   */
+  public WPILogReader(Path path) throws IOException {
+    this(path, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Opens and maps a log, in windows of at most a given size.
+   *
+   * @param path The path of the log.
+   * @param windowSize The largest window to map, in bytes.
+   * @throws IOException If the file could not be read or is not a supported log.
+   */
+  WPILogReader(Path path, long windowSize) throws IOException {
+    channel = FileChannel.open(path);
+    try {
+      length = channel.size();
+      this.windowSize = Math.min(windowSize, Integer.MAX_VALUE);
+      ByteBuffer first = window(0, 0);
+
+      if (first.limit() < 12 || !first.slice(0, MAGIC.length).equals(ByteBuffer.wrap(MAGIC))) {
+        throw new IOException("Not a wpilog: " + path);
+      }
+      int version = Short.toUnsignedInt(first.getShort(6));
+      if (version != VERSION) {
+        throw new IOException("Unsupported wpilog version " + Integer.toHexString(version));
+      }
+      int headerLength = first.getInt(8);
+      extraHeader = string(first, 12, headerLength);
+      start = 12 + headerLength;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /** Returns the extra header written when the log was created. */
+  public String extraHeader() {
+    return extraHeader;
+  }
+
+  /** Returns the window with an index, mapping it from a record's offset if it is new. */
+  private ByteBuffer window(int i, long offset) throws IOException {
+    if (i < windows.size()) {
+      return windows.get(i);
+    }
+    ByteBuffer window =
+        channel
+            .map(FileChannel.MapMode.READ_ONLY, offset, Math.min(windowSize, length - offset))
+            .order(ByteOrder.LITTLE_ENDIAN);
+    windows.add(window);
+    bases = Arrays.copyOf(bases, windows.size());
+    bases[i] = offset;
+    return window;
+  }
+
+  /** Visits every record in order, stopping at the first truncated record. */
+  private void scan(RecordVisitor visitor) {
+    try {
+      int w = 0;
+      long base = 0;
+      ByteBuffer window = window(0, 0);
+      long position = start;
+
+      while (position < length) {
+        int p = (int) (position - base);
+        if (!fits(window, p)) {
+          // a record cut off by the end of the file was being written when the log stopped
+          if (base + window.limit() >= length || p == 0) {
+            return;
+          }
+          window = window(++w, position);
+          base = position;
+          continue;
+        }
+
+        int header = Byte.toUnsignedInt(window.get(p));
+        int idLength = (header & 0x3) + 1;
+        int sizeLength = ((header >> 2) & 0x3) + 1;
+        int headerLength = headerLength(header);
+        int id = (int) unsigned(window, p + 1, idLength);
+        int size = (int) unsigned(window, p + 1 + idLength, sizeLength);
+        long timestamp = unsigned(window, p + 1 + idLength + sizeLength, ((header >> 4) & 0x7) + 1);
+        visitor.visit(id, timestamp, window, p + headerLength, size, position);
+        position += headerLength + size;
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to map log", e);
+    }
+  }
+
+  /** Returns the length of a record's header, from its first byte. */
+  private static int headerLength(int header) {
+    return 1 + (header & 0x3) + 1 + ((header >> 2) & 0x3) + 1 + ((header >> 4) & 0x7) + 1;
+  }
+
+  /** Returns whether the whole record at a position is within a window. */
+  private static boolean fits(ByteBuffer window, int position) {
+    int limit = window.limit();
+    if (position >= limit) {
+      return false;
+    }
+    int header = Byte.toUnsignedInt(window.get(position));
+    int headerLength = headerLength(header);
+    if (position + headerLength > limit) {
+      return false;
+    }
+    long size = unsigned(window, position + 1 + (header & 0x3) + 1, ((header >> 2) & 0x3) + 1);
+    return position + headerLength + size <= limit;
+  }
+
+  /**
+   * Handles a control record, updating the active entries.
+   *
+   * @return The entry started or updated, or null if none was.
+   */
+  private static Entry control(
+      Map<Integer, Entry> active, ByteBuffer buffer, int position, int size) {
+    if (size < 5) {
+      return null;
+    }
+    int type = Byte.toUnsignedInt(buffer.get(position));
+    int id = buffer.getInt(position + 1);
+    switch (type) {
+      case CONTROL_START -> {
+        int offset = position + 5;
+        int nameLength = buffer.getInt(offset);
+        String name = string(buffer, offset + 4, nameLength);
+        offset += 4 + nameLength;
+        int typeLength = buffer.getInt(offset);
+        String dataType = string(buffer, offset + 4, typeLength);
+        offset += 4 + typeLength;
+        int metadataLength = buffer.getInt(offset);
+        String metadata = string(buffer, offset + 4, metadataLength);
+        Entry entry = new Entry(id, name, dataType, metadata);
+        active.put(id, entry);
+        return entry;
+      }
+      case CONTROL_FINISH -> active.remove(id);
+      case CONTROL_SET_METADATA -> {
+        Entry entry = active.get(id);
+        if (entry != null) {
+          String metadata = string(buffer, position + 9, buffer.getInt(position + 5));
+          Entry updated = new Entry(id, entry.name(), entry.type(), metadata);
+          active.put(id, updated);
+          return updated;
+        }
+      }
+      default -> {}
+    }
+    return null;
+  }
+
+  /**
+   * Reads every data record in the log, in the order they were written. Control records are handled
+   * internally to track which entry each record belongs to.
+   *
+   * <p>Reading stops at the first truncated record, such as one left by a robot losing power.
+   *
+   * @param handler The handler to pass each data record to.
+   */
+  public void forEach(RecordHandler handler) {
+    Map<Integer, Entry> active = new HashMap<>();
+    scan(
+        (id, timestamp, window, payload, size, offset) -> {
+          if (id == 0) {
+            control(active, window, payload, size);
+          } else {
+            Entry entry = active.get(id);
+            if (entry != null) {
+              handler.accept(
+                  entry, timestamp, window.slice(payload, size).order(ByteOrder.LITTLE_ENDIAN));
+            }
+          }
+        });
+  }
+
+  /** Returns the index of every entry's records, scanning the log the first time. */
+  private Map<Entry, Offsets> index() {
+    if (index == null) {
+      Map<Integer, Entry> active = new HashMap<>();
+      List<Entry> started = new ArrayList<>();
+      Map<Entry, Offsets> offsets = new IdentityHashMap<>();
+      scan(
+          (id, timestamp, window, payload, size, offset) -> {
+            if (id == 0) {
+              Entry previous = size >= 5 ? active.get(window.getInt(payload + 1)) : null;
+              Entry entry = control(active, window, payload, size);
+              if (entry == null) {
+                return;
+              }
+              if (window.get(payload) == CONTROL_SET_METADATA) {
+                // new metadata for a running entry, which keeps its records
+                offsets.put(entry, offsets.remove(previous));
+                started.set(started.lastIndexOf(previous), entry);
+              } else {
+                offsets.put(entry, new Offsets());
+                started.add(entry);
+              }
+            } else {
+              Entry entry = active.get(id);
+              if (entry != null) {
+                offsets.get(entry).add(offset);
+              }
+            }
+          });
+      entries = Collections.unmodifiableList(started);
+      index = offsets;
+    }
+    return index;
+  }
+
+  /** Returns every entry started in the log, in the order they were started. */
+  public List<Entry> entries() {
+    index();
+    return entries;
+  }
+
+  /**
+   * Finds an entry by name.
+   *
+   * @param name The name of the entry, such as {@code NT:/Robot/drive/pose}.
+   * @return The first entry started with that name, if any.
+   */
+  public Optional<Entry> entry(String name) {
+    return entries().stream().filter(e -> e.name().equals(name)).findFirst();
+  }
+
+  private static void checkType(Entry entry, String type) {
+    if (!entry.type().equals(type)) {
+      throw new IllegalArgumentException(
+          entry.name() + " is a " + entry.type() + " entry, not " + type);
+    }
+  }
+
+  /**
+   * Returns a cursor over the raw records of an entry of any type.
+   *
+   * @param entry The entry, from {@link #entries()}.
+   * @return A new cursor, before the first record.
+   */
+  public Records records(Entry entry) {
+    return new Records(this, entry);
+  }
+
+  /**
+   * Returns a cursor over the records of a {@code double} entry.
+   *
+   * @param entry The entry, from {@link #entries()}.
+   * @return A new cursor, before the first record.
+   */
+  public DoubleRecords doubles(Entry entry) {
+    checkType(entry, "double");
+    return new DoubleRecords(this, entry);
+  }
+
+  /**
+   * Returns a cursor over the records of a struct entry.
+   *
+   * @param entry The entry, from {@link #entries()}.
+   * @param struct The struct to decode records with, such as {@code Pose2d.struct}.
+   * @return A new cursor, before the first record.
+   */
+  public <T> StructRecords<T> structs(Entry entry, Struct<T> struct) {
+    checkType(entry, struct.getTypeString());
+    return new StructRecords<>(this, entry, struct);
+  }
+
+  /**
+   * Returns a cursor over the records of a {@code string[]} entry.
+   *
+   * @param entry The entry, from {@link #entries()}.
+   * @return A new cursor, before the first record.
+   */
+  public StringArrayRecords stringArrays(Entry entry) {
+    checkType(entry, "string[]");
+    return new StringArrayRecords(this, entry);
+  }
+
+  private static long unsigned(ByteBuffer buffer, int position, int length) {
+    long value = 0;
+    for (int i = 0; i < length; i++) {
+      value |= (long) Byte.toUnsignedInt(buffer.get(position + i)) << (8 * i);
+    }
+    return value;
+  }
+
+  private static String string(ByteBuffer buffer, int position, int length) {
+    byte[] bytes = new byte[length];
+    buffer.get(position, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
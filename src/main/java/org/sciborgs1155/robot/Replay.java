@@ -0,0 +1,56 @@
+package org.sciborgs1155.robot;
+
+import static edu.wpi.first.units.Units.Seconds;
+import static org.sciborgs1155.robot.Constants.PERIOD;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import java.nio.file.Path;
+import org.sciborgs1155.lib.LogReplay;
+
+/**
+ * Re-runs the robot against the inputs and driver station state recorded in a log, as fast as the
+ * desktop allows. The replayed robot writes its own log, which can be compared to the original.
+ *
+ * <p>Run with {@code ./gradlew replay -Plog=path/to/log.wpilog}.
+ */
+public final class Replay {
+  private Replay() {}
+
+  public static void main(String... args) throws Exception {
+    if (args.length != 1 || args[0].isEmpty()) {
+      System.err.println("Usage: Replay <path to .wpilog>");
+      System.exit(1);
+    }
+
+    LogReplay.load(Path.of(args[0]));
+    if (!HAL.initialize(500, 0)) {
+      throw new IllegalStateException("Failed to initialize HAL");
+    }
+    // the robot's loop only runs when time is stepped below
+    SimHooks.pauseTiming();
+
+    Robot robot = new Robot();
+    Thread thread = new Thread(robot::startCompetition, "Replay");
+    thread.setDaemon(true);
+    thread.start();
+    SimHooks.waitForProgramStart();
+
+    long start = System.nanoTime();
+    while (LogReplay.advance()) {
+      LogReplay.updateDriverStation();
+      // returns once every notifier due in this period, including the robot's loop, has run
+      SimHooks.stepTiming(PERIOD.in(Seconds));
+    }
+    double elapsed = (System.nanoTime() - start) / 1e9;
+
+    robot.endCompetition();
+    robot.close();
+    DataLogManager.stop();
+    System.out.printf(
+        "Replayed %d loops (%.1f s) in %.1f s%n",
+        LogReplay.loops(), LogReplay.loops() * PERIOD.in(Seconds), elapsed);
+    System.exit(0);
+  }
+}
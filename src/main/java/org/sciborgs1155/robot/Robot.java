@@ -23,6 +23,7 @@ import edu.wpi.first.wpilibj.PowerDistribution;
 import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.Commands;
@@ -32,10 +33,15 @@ import monologue.Logged;
 import monologue.Monologue;
 import org.littletonrobotics.urcl.URCL;
 import org.sciborgs1155.lib.CommandRobot;
+import org.sciborgs1155.lib.FaultJournal;
 import org.sciborgs1155.lib.FaultLogger;
 import org.sciborgs1155.lib.InputStream;
+import org.sciborgs1155.lib.InputUpdater;
+import org.sciborgs1155.lib.LoopProfiler;
 import org.sciborgs1155.lib.SparkUtils;
+import org.sciborgs1155.lib.Telemetry;
 import org.sciborgs1155.lib.Test;
+import org.sciborgs1155.lib.VectorInputStream;
 import org.sciborgs1155.robot.Ports.OI;
 import org.sciborgs1155.robot.commands.Alignment;
 import org.sciborgs1155.robot.commands.Autos;
@@ -44,7 +50,9 @@ import org.sciborgs1155.robot.commands.Shooting;
 import org.sciborgs1155.robot.drive.Drive;
 import org.sciborgs1155.robot.feeder.Feeder;
 import org.sciborgs1155.robot.intake.Intake;
+import org.sciborgs1155.robot.led.LedConstants;
 import org.sciborgs1155.robot.led.LedStrip;
+import org.sciborgs1155.robot.led.Pattern;
 import org.sciborgs1155.robot.pivot.Pivot;
 import org.sciborgs1155.robot.pivot.PivotConstants;
 import org.sciborgs1155.robot.shooter.Shooter;
@@ -104,33 +112,38 @@ public class Robot extends CommandRobot implements Logged {
     super(PERIOD.in(Seconds));
     configureGameBehavior();
     configureBindings();
+    LoopProfiler.profileCommands();
   }
 
   /** Configures basic behavior during different parts of the game. */
   private void configureGameBehavior() {
     // Configure logging with DataLogManager, Monologue, and FailureManagement
     DataLogManager.start();
+    DriverStation.startDataLog(DataLogManager.getLog());
+    InputUpdater.startLog(DataLogManager.getLog());
+    Telemetry.startLog(DataLogManager.getLog());
     Monologue.setupMonologue(this, "/Robot", false, true);
-    addPeriodic(Monologue::updateAll, PERIOD.in(Seconds));
-    addPeriodic(FaultLogger::update, 2);
+    addPeriodic("Monologue.updateAll()", Monologue::updateAll, PERIOD.in(Seconds));
+    addPeriodic("Telemetry.update()", Telemetry::update, PERIOD.in(Seconds));
+    FaultLogger.startJournal(FaultJournal.defaultPath());
+    led.start(LedConstants.FRAME_PERIOD.in(Seconds));
+    addPeriodic("FaultLogger.update()", FaultLogger::update, PERIOD.in(Seconds));
     addPeriodic(
-        () -> log("dist", Shooting.translationToSpeaker(drive.pose().getTranslation()).getNorm()),
-        kDefaultPeriod);
+        "Shooting distance", () -> log("dist", shooting.solution().distance()), kDefaultPeriod);
+    addPeriodic(LoopProfiler::publish, 0.5);
 
     SmartDashboard.putData(CommandScheduler.getInstance());
     // Log PDH
     SmartDashboard.putData("PDH", pdh);
     // addPeriodic(() -> log("current", FakePDH.update()), PERIOD.in(Seconds));
 
-    // Configure pose estimation updates every tick
-    addPeriodic(() -> drive.updateEstimates(vision.getEstimatedGlobalPoses()), PERIOD.in(Seconds));
+    // Estimate poses on the vision thread, which drive picks up every tick
+    vision.start(drive.visionEstimates());
 
     // polls intake at faster speed
-    addPeriodic(intake::pollTrigger, INTAKE_FAST_PERIOD.in(Seconds));
+    addPeriodic("Intake.pollTrigger()", intake::pollTrigger, INTAKE_FAST_PERIOD.in(Seconds));
 
-    for (var r : SparkUtils.getRunnables()) {
-      addPeriodic(r, 5);
-    }
+    SparkUtils.getRunnables().forEach((name, r) -> addPeriodic(name, r, 5));
     // addPeriodic(SparkUtils::update, PERIOD.in(Seconds));
 
     RobotController.setBrownoutVoltage(6.0);
@@ -141,11 +154,17 @@ public class Robot extends CommandRobot implements Logged {
       pdh.setSwitchableChannel(true);
     } else {
       DriverStation.silenceJoystickConnectionWarning(true);
-      addPeriodic(() -> vision.simulationPeriodic(drive.pose()), PERIOD.in(Seconds));
+      // simulated cameras would add made up estimates to a replayed match
+      if (!isReplay()) {
+        addPeriodic(
+            "Vision.simulationPeriodic()",
+            () -> vision.simulationPeriodic(drive.pose()),
+            PERIOD.in(Seconds));
+      }
       NoteVisualizer.setSuppliers(
-          drive::pose,
+          () -> shooting.solution().pose(),
           shooting::shooterPose,
-          drive::getFieldRelativeChassisSpeeds,
+          () -> shooting.solution().speeds(),
           shooter::tangentialVelocity);
       NoteVisualizer.startPublishing();
     }
@@ -153,23 +172,20 @@ public class Robot extends CommandRobot implements Logged {
 
   /** Configures subsystem default commands & trigger -> command bindings. */
   private void configureBindings() {
-    InputStream x = InputStream.of(driver::getLeftX).negate();
-    InputStream y = InputStream.of(driver::getLeftY).negate();
-
-    InputStream r =
-        InputStream.hypot(x, y)
+    // the left stick's direction is kept, and only its magnitude is shaped
+    VectorInputStream translation =
+        VectorInputStream.of(() -> -driver.getLeftY(), () -> -driver.getLeftX())
             .log("Robot/raw joystick")
             .scale(() -> speedMultiplier)
             .clamp(1.0)
             .deadband(Constants.DEADBAND, 1.0)
-            .signedPow(2.0)
+            .pow(2.0)
             .log("Robot/processed joystick")
             .scale(MAX_SPEED.in(MetersPerSecond));
+    // .rateLimit(MAX_ACCEL.in(MetersPerSecondPerSecond));
 
-    InputStream theta = InputStream.atan(x, y);
-
-    x = r.scale(theta.map(Math::cos)); // .rateLimit(MAX_ACCEL.in(MetersPerSecondPerSecond));
-    y = r.scale(theta.map(Math::sin)); // .rateLimit(MAX_ACCEL.in(MetersPerSecondPerSecond));
+    InputStream x = translation.x();
+    InputStream y = translation.y();
 
     InputStream omega =
         InputStream.of(driver::getRightX)
@@ -272,8 +288,17 @@ public class Robot extends CommandRobot implements Logged {
     // operator manual shoot (povDown)
     operator.povDown().whileTrue(shooting.shoot(RadiansPerSecond.of(350))).whileTrue(led.rainbow());
 
-    intake.hasNote().onTrue(rumble(RumbleType.kLeftRumble, 0.3)).whileTrue(led.green());
-    feeder.noteAtShooter().onFalse(rumble(RumbleType.kRightRumble, 0.3)).whileTrue(led.green());
+    // note status is layered over whatever pattern the strip is showing
+    Pattern note = Pattern.solid(Color.kGreen);
+    intake
+        .hasNote()
+        .onTrue(rumble(RumbleType.kLeftRumble, 0.3))
+        .whileTrue(led.intakeStatus.show(note));
+    feeder
+        .noteAtShooter()
+        .onFalse(rumble(RumbleType.kRightRumble, 0.3))
+        .onFalse(led.alert.flash(Pattern.solid(Color.kWhite), Seconds.of(0.2)))
+        .whileTrue(led.feederStatus.show(note));
   }
 
   public Command rumble(RumbleType rumbleType, double strength) {
@@ -309,7 +334,9 @@ public class Robot extends CommandRobot implements Logged {
   public void close() {
     super.close();
     led.close();
+    FaultLogger.stopJournal();
     try {
+      vision.close();
       intake.close();
       shooter.close();
       feeder.close();
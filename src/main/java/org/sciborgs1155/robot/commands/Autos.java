@@ -69,12 +69,7 @@ public class Autos {
         //     .alongWith(
         shooter
             .runShooter(DEFAULT_VELOCITY.in(RadiansPerSecond))
-            .alongWith(
-                Commands.run(
-                    () ->
-                        rotation =
-                            Optional.of(
-                                Shooting.yawFromNoteVelocity(shooting.calculateNoteVelocity()))))
+            .alongWith(Commands.run(() -> rotation = Optional.of(shooting.solution().heading())))
             .finallyDo(() -> rotation = Optional.empty()));
     NamedCommands.registerCommand(
         "shoot", shooting.shootWhileDriving(() -> 0, () -> 0).withTimeout(2));
@@ -84,11 +79,7 @@ public class Autos {
         Commands.waitSeconds(0.3)
             .andThen(shooting.shootWithPivot())
             .withTimeout(2.5)
-            .deadlineWith(
-                drive.drive(
-                    () -> 0,
-                    () -> 0,
-                    () -> Shooting.yawFromNoteVelocity(shooting.calculateNoteVelocity()))));
+            .deadlineWith(drive.drive(() -> 0, () -> 0, () -> shooting.solution().heading())));
     NamedCommands.registerCommand(
         "shoot-subwoofer", shooting.shoot(IDLE_VELOCITY).withTimeout(2.2));
     NamedCommands.registerCommand(
@@ -0,0 +1,289 @@
+package org.sciborgs1155.robot.commands;
+
+import static edu.wpi.first.units.Units.Radians;
+import static edu.wpi.first.units.Units.RadiansPerSecond;
+import static edu.wpi.first.units.Units.Second;
+import static org.sciborgs1155.robot.shooter.ShooterConstants.VELOCITY_TOLERANCE;
+
+import java.util.function.DoubleUnaryOperator;
+import org.sciborgs1155.robot.commands.ShotMath.Vec3;
+import org.sciborgs1155.robot.pivot.PivotConstants;
+import org.sciborgs1155.robot.shooter.ShooterConstants;
+
+/**
+ * Solves for a shot into the speaker while the robot is moving.
+ *
+ * <p>The note keeps the robot's velocity once it leaves the shooter, so the robot aims a stationary
+ * shot at a virtual target, offset from the speaker by the robot's velocity times the note's time
+ * of flight. The note also only leaves once the flywheel has spun up and the pivot has settled, so
+ * the shot is taken from where the robot will be after that latency. Time of flight and latency
+ * depend on each other through the shot, and are solved jointly with a bounded number of Newton
+ * steps.
+ *
+ * <p>Shots the {@link ShotTable} can't interpolate, like those from beyond the table or that can't
+ * reach the speaker, are too expensive to iterate on, since every step would run the exact solver
+ * several times. Those are solved once, as stationary shots from the robot's current position with
+ * no latency, so a solve costs at most two exact solves.
+ *
+ * <p>A solver reuses internal scratch state and is not thread safe.
+ */
+public class MovingShotSolver {
+  /** The most Newton steps taken per solve. Typically converges in 2-3. */
+  public static final int MAX_ITERATIONS = 6;
+
+  /** Convergence tolerance for both time of flight and latency, in seconds. */
+  public static final double TOLERANCE = 1e-4;
+
+  /** Upper bound on time of flight, in seconds. */
+  public static final double MAX_FLIGHT_TIME = 2.0;
+
+  /** Upper bound on spin up and settling latency, in seconds. */
+  public static final double MAX_LATENCY = 1.0;
+
+  private static final double STEP = 1e-3;
+  private static final double NOMINAL_VOLTAGE = 12.0;
+
+  // first order flywheel model, from the top wheel feedforward
+  private static final double FLYWHEEL_TIME_CONSTANT =
+      ShooterConstants.Top.kA / ShooterConstants.Top.kV;
+  private static final double FLYWHEEL_FREE_SPEED = NOMINAL_VOLTAGE / ShooterConstants.Top.kV;
+  private static final double FLYWHEEL_TOLERANCE = VELOCITY_TOLERANCE.in(RadiansPerSecond);
+
+  // trapezoidal pivot model, from the pivot constraints
+  private static final double PIVOT_MAX_VELOCITY = PivotConstants.MAX_VELOCITY.in(RadiansPerSecond);
+  private static final double PIVOT_MAX_ACCEL =
+      PivotConstants.MAX_ACCEL.in(RadiansPerSecond.per(Second));
+  private static final double PIVOT_TOLERANCE = PivotConstants.POSITION_TOLERANCE.in(Radians);
+
+  /** The result of a moving shot solve, reused between calls instead of allocating a new one. */
+  public static final class MovingShot {
+    /** The desired note velocity relative to the robot, in meters per second. */
+    public final Vec3 noteVelocity = new Vec3();
+
+    /** The pivot angle to shoot at, in radians. */
+    public double pitch;
+
+    /** The robot heading to shoot at, in radians. */
+    public double heading;
+
+    /** The flywheel speed to shoot at, in radians per second. */
+    public double flywheelSpeed;
+
+    /** The time from the note leaving the shooter to reaching the speaker, in seconds. */
+    public double timeOfFlight;
+
+    /**
+     * The time until the flywheel and pivot are ready to shoot, in seconds. This is 0 for shots
+     * solved as stationary shots.
+     */
+    public double latency;
+
+    /** The field relative position the note is released from. */
+    public double releaseX;
+
+    public double releaseY;
+
+    /** The field relative position the note is predicted to reach after its time of flight. */
+    public double impactX;
+
+    public double impactY;
+
+    /** The horizontal distance from the predicted impact point to the speaker, in meters. */
+    public double miss;
+
+    /** The number of Newton steps taken. */
+    public int iterations;
+
+    /** Returns whether a shot was found, which may still be outside of the robot's limits. */
+    public boolean valid() {
+      return Double.isFinite(pitch) && Double.isFinite(miss);
+    }
+  }
+
+  private final ShotTable table;
+  private final DoubleUnaryOperator shotVelocity;
+
+  // inputs to the current solve
+  private double robotX, robotY, robotVx, robotVy, speakerX, speakerY, flywheel, pivot;
+
+  // outputs of the last residual evaluation
+  private double dx, dy, distance, speed, pitch, timeResidual, latencyResidual;
+
+  /**
+   * Creates a moving shot solver.
+   *
+   * @param table The stationary shot table to solve pitches from.
+   * @param shotVelocity The note launch speed to use at a distance from the speaker, in meters per
+   *     second.
+   */
+  public MovingShotSolver(ShotTable table, DoubleUnaryOperator shotVelocity) {
+    this.table = table;
+    this.shotVelocity = shotVelocity;
+  }
+
+  /**
+   * Solves for a shot into the speaker.
+   *
+   * @param robotX The field relative x position of the robot.
+   * @param robotY The field relative y position of the robot.
+   * @param robotVx The field relative x velocity of the robot.
+   * @param robotVy The field relative y velocity of the robot.
+   * @param speakerX The field relative x position of the speaker.
+   * @param speakerY The field relative y position of the speaker.
+   * @param flywheelSpeed The current flywheel speed, in radians per second.
+   * @param pivotAngle The current pivot angle, in radians.
+   * @param out The shot to write the solution to.
+   * @return {@code out}, for chaining.
+   */
+  public MovingShot solve(
+      double robotX,
+      double robotY,
+      double robotVx,
+      double robotVy,
+      double speakerX,
+      double speakerY,
+      double flywheelSpeed,
+      double pivotAngle,
+      MovingShot out) {
+    this.robotX = robotX;
+    this.robotY = robotY;
+    this.robotVx = robotVx;
+    this.robotVy = robotVy;
+    this.speakerX = speakerX;
+    this.speakerY = speakerY;
+    this.flywheel = flywheelSpeed;
+    this.pivot = pivotAngle;
+
+    // start from the stationary shot
+    evaluate(0, 0, true);
+    double time = Math.min(distance / (speed * Math.cos(pitch)), MAX_FLIGHT_TIME);
+    double latency = 0;
+
+    if (!table.covers(distance, speed)) {
+      // only correct for the robot's motion when that's cheap, so release from where the shot is
+      // aimed from
+      return write(time, 0, 0, out);
+    }
+
+    int i = 0;
+    while (i < MAX_ITERATIONS && Double.isFinite(time) && Double.isFinite(latency)) {
+      // finite difference jacobian of the residuals, only from the table
+      evaluate(time + STEP, latency, false);
+      double tt = timeResidual;
+      double lt = latencyResidual;
+      evaluate(time, latency + STEP, false);
+      double tl = timeResidual;
+      double ll = latencyResidual;
+      evaluate(time, latency, false);
+      if (!Double.isFinite(tt + lt + tl + ll + timeResidual + latencyResidual)) {
+        // stepped off of the table, so keep the last estimate
+        break;
+      }
+      i++;
+      double a = (tt - timeResidual) / STEP;
+      double b = (tl - timeResidual) / STEP;
+      double c = (lt - latencyResidual) / STEP;
+      double d = (ll - latencyResidual) / STEP;
+      double det = a * d - b * c;
+
+      double dt, dl;
+      if (Math.abs(det) > 1e-9) {
+        dt = (timeResidual * d - latencyResidual * b) / det;
+        dl = (a * latencyResidual - c * timeResidual) / det;
+      } else {
+        // degenerate jacobian, take a fixed point step instead
+        dt = timeResidual;
+        dl = latencyResidual;
+      }
+      time = Math.max(0, Math.min(time - dt, MAX_FLIGHT_TIME));
+      latency = Math.max(0, Math.min(latency - dl, MAX_LATENCY));
+      if (Math.abs(dt) < TOLERANCE && Math.abs(dl) < TOLERANCE) {
+        break;
+      }
+    }
+
+    evaluate(time, latency, true);
+    return write(time, latency, i, out);
+  }
+
+  /** Writes the last evaluated shot, for a time of flight and latency, to a result. */
+  private MovingShot write(double time, double latency, int iterations, MovingShot out) {
+    Vec3 note = ShotMath.noteVelocity(dx, dy, pitch, speed, 0, 0, out.noteVelocity);
+    out.pitch = pitch;
+    out.heading = ShotMath.heading(note.x, note.y);
+    out.flywheelSpeed = ShotMath.flywheelSpeed(note.x, note.y, note.z);
+    out.timeOfFlight = time;
+    out.latency = latency;
+    out.releaseX = robotX + robotVx * latency;
+    out.releaseY = robotY + robotVy * latency;
+    out.impactX = out.releaseX + (note.x + robotVx) * time;
+    out.impactY = out.releaseY + (note.y + robotVy) * time;
+    out.miss = Math.hypot(out.impactX - speakerX, out.impactY - speakerY);
+    out.iterations = iterations;
+    return out;
+  }
+
+  /**
+   * Evaluates the stationary shot at the virtual target for a time of flight and latency, along
+   * with how far those are from being consistent with that shot.
+   *
+   * @param exact Whether to fall back to the exact solver if the table can't interpolate the shot,
+   *     rather than giving NaN.
+   */
+  private void evaluate(double time, double latency, boolean exact) {
+    // shoot from where the robot will be, at where the speaker appears to be
+    dx = speakerX - robotVx * time - (robotX + robotVx * latency);
+    dy = speakerY - robotVy * time - (robotY + robotVy * latency);
+    distance = Math.hypot(dx, dy);
+    speed = shotVelocity.applyAsDouble(distance);
+    pitch = exact ? table.pitch(distance, speed, pivot) : table.interpolate(distance, speed);
+    timeResidual = time - distance / (speed * Math.cos(pitch));
+    latencyResidual =
+        latency
+            - Math.max(
+                flywheelLatency(flywheel, ShotMath.flywheelSpeed(speed, 0, 0)),
+                pivotLatency(pivot, pitch));
+  }
+
+  /**
+   * Estimates the time for the flywheel to reach a speed at full voltage, using a first order
+   * model.
+   *
+   * @param current The current flywheel speed, in radians per second.
+   * @param target The target flywheel speed, in radians per second.
+   * @return The estimated time, in seconds.
+   */
+  public static double flywheelLatency(double current, double target) {
+    if (Math.abs(target - current) < FLYWHEEL_TOLERANCE) {
+      return 0;
+    }
+    double ratio =
+        target > current
+            ? (FLYWHEEL_FREE_SPEED - current) / (FLYWHEEL_FREE_SPEED - target)
+            : (FLYWHEEL_FREE_SPEED + current) / (FLYWHEEL_FREE_SPEED + target);
+    // unreachable targets give a non positive ratio
+    return ratio > 0
+        ? Math.min(FLYWHEEL_TIME_CONSTANT * Math.log(ratio), MAX_LATENCY)
+        : MAX_LATENCY;
+  }
+
+  /**
+   * Estimates the time for the pivot to move between angles, using a trapezoidal profile.
+   *
+   * @param current The current pivot angle, in radians.
+   * @param target The target pivot angle, in radians.
+   * @return The estimated time, in seconds.
+   */
+  public static double pivotLatency(double current, double target) {
+    double distance = Math.abs(target - current);
+    if (distance < PIVOT_TOLERANCE) {
+      return 0;
+    }
+    double time =
+        distance <= PIVOT_MAX_VELOCITY * PIVOT_MAX_VELOCITY / PIVOT_MAX_ACCEL
+            ? 2 * Math.sqrt(distance / PIVOT_MAX_ACCEL)
+            : distance / PIVOT_MAX_VELOCITY + PIVOT_MAX_VELOCITY / PIVOT_MAX_ACCEL;
+    // NaN targets are not reachable
+    return Double.isNaN(time) ? MAX_LATENCY : Math.min(time, MAX_LATENCY);
+  }
+}
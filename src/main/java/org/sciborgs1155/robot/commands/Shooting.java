@@ -17,7 +17,6 @@ import edu.wpi.first.math.Vector;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.math.geometry.Rotation3d;
 import edu.wpi.first.math.geometry.Transform3d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.geometry.Translation3d;
@@ -30,6 +29,7 @@ import edu.wpi.first.units.Distance;
 import edu.wpi.first.units.Measure;
 import edu.wpi.first.units.Time;
 import edu.wpi.first.units.Velocity;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import java.util.function.BooleanSupplier;
@@ -38,8 +38,15 @@ import monologue.Annotations.IgnoreLogged;
 import monologue.Annotations.Log;
 import monologue.Logged;
 import org.sciborgs1155.lib.InputStream;
+import org.sciborgs1155.lib.InputUpdater;
+import org.sciborgs1155.lib.Telemetry;
+import org.sciborgs1155.lib.Telemetry.Rate;
 import org.sciborgs1155.lib.Tuning;
+import org.sciborgs1155.robot.commands.MovingShotSolver.MovingShot;
+import org.sciborgs1155.robot.commands.ShotMath.MutablePose;
+import org.sciborgs1155.robot.commands.ShotMath.Vec3;
 import org.sciborgs1155.robot.drive.Drive;
+import org.sciborgs1155.robot.drive.Drive.PoseState;
 import org.sciborgs1155.robot.drive.DriveConstants;
 import org.sciborgs1155.robot.feeder.Feeder;
 import org.sciborgs1155.robot.pivot.Pivot;
@@ -48,6 +55,38 @@ import org.sciborgs1155.robot.shooter.Shooter;
 
 public class Shooting implements Logged {
 
+  /**
+   * A snapshot of everything needed to aim and shoot at the speaker, computed at most once per loop
+   * so that every actuator aims at the same solution within a tick.
+   *
+   * @param timestamp The FPGA timestamp this solution was computed at.
+   * @param pose The robot pose this solution was computed from.
+   * @param speeds The field relative chassis speeds this solution was computed from.
+   * @param noteVelocity The desired note velocity relative to the robot.
+   * @param pitch The pivot angle to shoot at, in radians.
+   * @param heading The robot heading to shoot at, which already leads the robot's motion.
+   * @param flywheelSpeed The flywheel speed to shoot at, in radians per second.
+   * @param distance The distance to the speaker, in meters.
+   * @param timeOfFlight The time from the note leaving the shooter to reaching the speaker, in
+   *     seconds.
+   * @param latency The time until the flywheel and pivot are ready to shoot, in seconds.
+   * @param impact The field relative point the note is predicted to reach.
+   * @param miss The horizontal distance from the predicted impact point to the speaker, in meters.
+   */
+  public static record ShotSolution(
+      double timestamp,
+      Pose2d pose,
+      ChassisSpeeds speeds,
+      Vector<N3> noteVelocity,
+      double pitch,
+      Rotation2d heading,
+      double flywheelSpeed,
+      double distance,
+      double timeOfFlight,
+      double latency,
+      Translation2d impact,
+      double miss) {}
+
   /**
    * The conversion between shooter tangential velocity and note launch velocity. Perhaps. This may
    * also account for other errors with our model.
@@ -64,6 +103,16 @@ public class Shooting implements Logged {
   @IgnoreLogged private final Feeder feeder;
   @IgnoreLogged private final Drive drive;
 
+  private final ShotTable shotTable;
+  private final MovingShotSolver solver;
+
+  // the input loop the current solution was computed in
+  private long solutionLoop = -1;
+  private ShotSolution solution;
+
+  // scratch space for the allocation free hot path
+  private final MovingShot shotScratch = new MovingShot();
+
   public Shooting(Shooter shooter, Pivot pivot, Feeder feeder, Drive drive) {
     this.shooter = shooter;
     this.pivot = pivot;
@@ -74,6 +123,11 @@ public class Shooting implements Logged {
     shotVelocityLookup.put(1.0, 450.0);
     // shotVelocityLookup.put(4.0, 550.0);
     shotVelocityLookup.put(4.0, MAX_VELOCITY.in(RadiansPerSecond));
+
+    shotTable = new ShotTable();
+    solver = new MovingShotSolver(shotTable, Shooting::calculateStationaryVelocity);
+
+    Telemetry.add("/Robot/shooting/shooterPose", Rate.SLOW, Pose3d.struct, this::shooterPose, 1e-3);
   }
 
   /**
@@ -120,13 +174,11 @@ public class Shooting implements Logged {
 
   /** Shoots while stationary at correct flywheel speed and pivot angle, doesn't auto-turret. */
   public Command shootWithPivot() {
-    return shootWithPivot(
-        () -> pitchFromNoteVelocity(calculateNoteVelocity()),
-        () -> rotationalVelocityFromNoteVelocity(calculateNoteVelocity()));
+    return shootWithPivot(() -> solution().pitch(), () -> solution().flywheelSpeed());
   }
 
   public Command aimWithoutShooting() {
-    return pivot.runPivot(() -> pitchFromNoteVelocity(calculateNoteVelocity()));
+    return pivot.runPivot(() -> solution().pitch());
   }
 
   /**
@@ -138,16 +190,11 @@ public class Shooting implements Logged {
    */
   public Command shootWhileDriving(InputStream vx, InputStream vy) {
     return shoot(
-            () -> rotationalVelocityFromNoteVelocity(calculateNoteVelocity()),
-            () ->
-                pivot.atPosition(pitchFromNoteVelocity(calculateNoteVelocity()))
-                    && atYaw(yawFromNoteVelocity(calculateNoteVelocity())))
+            () -> solution().flywheelSpeed(),
+            () -> pivot.atPosition(solution().pitch()) && atYaw(solution().heading()))
         .deadlineWith(
-            drive.drive(
-                vx.scale(0.5),
-                vy.scale(0.5),
-                () -> yawFromNoteVelocity(calculateNoteVelocity(Seconds.of(0.2)))),
-            pivot.runPivot(() -> pitchFromNoteVelocity(calculateNoteVelocity())));
+            drive.drive(vx.scale(0.5), vy.scale(0.5), () -> solution().heading()),
+            pivot.runPivot(() -> solution().pitch()));
   }
 
   public static Pose2d robotPoseFacingSpeaker(Translation2d robotTranslation) {
@@ -158,49 +205,118 @@ public class Shooting implements Logged {
             .plus(Rotation2d.fromRadians(Math.PI / 2)));
   }
 
+  /**
+   * Returns the shot solution for the current loop, computing it if it has not been computed yet
+   * since inputs were last read by {@link InputUpdater#update()}.
+   *
+   * @return The current shot solution.
+   */
+  public ShotSolution solution() {
+    long loop = InputUpdater.loop();
+    if (solution == null || solutionLoop != loop) {
+      solution = calculateSolution(Timer.getFPGATimestamp());
+      solutionLoop = loop;
+    }
+    return solution;
+  }
+
+  private ShotSolution calculateSolution(double timestamp) {
+    // one snapshot, so the pose and speeds are from the same odometry update
+    PoseState state = drive.state();
+    Pose2d pose = state.pose();
+    ChassisSpeeds speeds = state.fieldRelativeSpeeds();
+    Translation3d speaker = speaker();
+    double vx = speeds.vxMetersPerSecond;
+    double vy = speeds.vyMetersPerSecond;
+
+    // the solver shoots from where the robot will be once ready, so the pose isn't predicted here
+    MovingShot shot = solve(pose.getX(), pose.getY(), vx, vy, shotScratch);
+    double distance = Math.hypot(speaker.getX() - pose.getX(), speaker.getY() - pose.getY());
+
+    return new ShotSolution(
+        timestamp,
+        pose,
+        speeds,
+        VecBuilder.fill(shot.noteVelocity.x, shot.noteVelocity.y, shot.noteVelocity.z),
+        shot.pitch,
+        Rotation2d.fromRadians(shot.heading),
+        shot.flywheelSpeed,
+        distance,
+        shot.timeOfFlight,
+        shot.latency,
+        new Translation2d(shot.impactX, shot.impactY),
+        shot.miss);
+  }
+
+  /**
+   * Solves for a moving shot from a robot position, starting from the current flywheel speed and
+   * pivot angle.
+   *
+   * @param out The shot to write the solution to.
+   * @return {@code out}, for chaining.
+   */
+  private MovingShot solve(
+      double robotX, double robotY, double robotVx, double robotVy, MovingShot out) {
+    Translation3d speaker = speaker();
+    return solver.solve(
+        robotX,
+        robotY,
+        robotVx,
+        robotVy,
+        speaker.getX(),
+        speaker.getY(),
+        shooter.rotationalVelocity(),
+        pivot.position(),
+        out);
+  }
+
   public Vector<N3> calculateNoteVelocity() {
-    return calculateNoteVelocity(drive.pose());
+    return solution().noteVelocity();
   }
 
   public Vector<N3> calculateNoteVelocity(Measure<Time> predictionTime) {
+    PoseState state = drive.state();
     return calculateNoteVelocity(
-        predictedPose(drive.pose(), drive.getFieldRelativeChassisSpeeds(), predictionTime));
+        predictedPose(state.pose(), state.fieldRelativeSpeeds(), predictionTime));
+  }
+
+  public Vector<N3> calculateNoteVelocity(Pose2d robotPose) {
+    return calculateNoteVelocity(robotPose, drive.getFieldRelativeChassisSpeeds());
   }
 
   /**
    * Calculates a vector for the desired note velocity relative to the robot for it to travel into
-   * the speaker, accounting for the robot's current motion.
+   * the speaker, accounting for the robot's motion during spin up and the note's time of flight.
    *
+   * @param robotPose The pose of the robot.
+   * @param speeds The field relative chassis speeds of the robot.
    * @return A 3d vector representing the desired note initial velocity.
    */
-  public Vector<N3> calculateNoteVelocity(Pose2d robotPose) {
-    ChassisSpeeds speeds = drive.getFieldRelativeChassisSpeeds();
-    Vector<N3> robotVelocity =
-        VecBuilder.fill(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, 0);
-    Translation2d difference = translationToSpeaker(robotPose.getTranslation());
-    double shotVelocity = calculateStationaryVelocity(difference.getNorm());
-    Rotation3d noteOrientation =
-        new Rotation3d(
-            0,
-            -calculateStationaryPitch(
-                robotPoseFacingSpeaker(robotPose.getTranslation()), shotVelocity, pivot.position()),
-            difference.getAngle().getRadians());
-    // rotate unit forward vector by note orientation and scale by our shot velocity
-    Vector<N3> noteVelocity =
-        new Translation3d(1, 0, 0).rotateBy(noteOrientation).toVector().unit().times(shotVelocity);
-
-    return noteVelocity.minus(robotVelocity);
+  public Vector<N3> calculateNoteVelocity(Pose2d robotPose, ChassisSpeeds speeds) {
+    Vec3 note =
+        solve(
+                robotPose.getX(),
+                robotPose.getY(),
+                speeds.vxMetersPerSecond,
+                speeds.vyMetersPerSecond,
+                new MovingShot())
+            .noteVelocity;
+    return VecBuilder.fill(note.x, note.y, note.z);
   }
 
   public static Pose2d predictedPose(
       Pose2d robotPose, ChassisSpeeds speeds, Measure<Time> predictionTime) {
-    Vector<N3> current =
-        VecBuilder.fill(robotPose.getX(), robotPose.getY(), robotPose.getRotation().getRadians());
-    Vector<N3> velocity =
-        VecBuilder.fill(
-            speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond);
-    Vector<N3> predicted = current.plus(velocity.times(predictionTime.in(Seconds)));
-    return new Pose2d(predicted.get(0), predicted.get(1), Rotation2d.fromRadians(predicted.get(2)));
+    MutablePose predicted =
+        ShotMath.predict(
+            robotPose.getX(),
+            robotPose.getY(),
+            robotPose.getRotation().getRadians(),
+            speeds.vxMetersPerSecond,
+            speeds.vyMetersPerSecond,
+            speeds.omegaRadiansPerSecond,
+            predictionTime.in(Seconds),
+            new MutablePose());
+    return new Pose2d(predicted.x, predicted.y, Rotation2d.fromRadians(predicted.theta));
   }
 
   /**
@@ -208,9 +324,8 @@ public class Shooting implements Logged {
    *
    * @return The pose of the shooter in 3d space.
    */
-  @Log.NT
   public Pose3d shooterPose() {
-    return new Pose3d(drive.pose())
+    return new Pose3d(solution().pose())
         .transformBy(pivot.transform())
         .transformBy(PivotConstants.SHOOTER_FROM_AXLE);
   }
@@ -226,12 +341,15 @@ public class Shooting implements Logged {
    */
   @Log.NT
   public boolean inRange() {
-    Vector<N3> shot = calculateNoteVelocity();
-    double pitch = pitchFromNoteVelocity(shot);
+    ShotSolution shot = solution();
+    return inRange(shot.pitch(), shot.flywheelSpeed(), shot.distance());
+  }
+
+  private static boolean inRange(double pitch, double flywheelSpeed, double distance) {
     return MIN_ANGLE.in(Radians) < pitch
         && pitch < MAX_ANGLE.in(Radians)
-        && Math.abs(rotationalVelocityFromNoteVelocity(shot)) < MAX_VELOCITY.in(RadiansPerSecond)
-        && translationToSpeaker(drive.pose().getTranslation()).getNorm() < MAX_DISTANCE.in(Meters);
+        && Math.abs(flywheelSpeed) < MAX_VELOCITY.in(RadiansPerSecond)
+        && distance < MAX_DISTANCE.in(Meters);
   }
 
   public boolean atYaw(Rotation2d yaw) {
@@ -248,7 +366,7 @@ public class Shooting implements Logged {
    * @return Pitch/pivot angle
    */
   public static double pitchFromNoteVelocity(Vector<N3> velocity) {
-    return Math.atan(velocity.get(2) / VecBuilder.fill(velocity.get(0), velocity.get(1)).norm());
+    return ShotMath.pitch(velocity.get(0), velocity.get(1), velocity.get(2));
   }
 
   /**
@@ -259,7 +377,7 @@ public class Shooting implements Logged {
    * @return Heading
    */
   public static Rotation2d yawFromNoteVelocity(Vector<N3> velocity) {
-    return Rotation2d.fromRadians(Math.PI).plus(new Rotation2d(velocity.get(0), velocity.get(1)));
+    return Rotation2d.fromRadians(ShotMath.heading(velocity.get(0), velocity.get(1)));
   }
 
   /**
@@ -271,7 +389,7 @@ public class Shooting implements Logged {
    * @return Flywheel speed (rads / s)
    */
   public static double rotationalVelocityFromNoteVelocity(Vector<N3> velocity) {
-    return velocity.norm() / RADIUS.in(Meters) * siggysConstant.get();
+    return ShotMath.flywheelSpeed(velocity.get(0), velocity.get(1), velocity.get(2));
   }
 
   /**
@@ -304,6 +422,22 @@ public class Shooting implements Logged {
     return calculateStationaryPitch(robotPose, velocity, prevPitch, 0);
   }
 
+  /**
+   * Calculates a stationary pitch from a distance to the speaker so that the note goes into the
+   * speaker. The solution is the same regardless of which direction the speaker is in.
+   *
+   * @param distance The horizontal distance from the robot to the speaker.
+   * @param velocity The magnitude of velocity to launch the note at.
+   * @param prevPitch The pitch to start solving from.
+   * @return The pitch to shoot the note at.
+   */
+  public static double calculateStationaryPitch(
+      double distance, double velocity, double prevPitch) {
+    Translation2d robotTranslation =
+        speaker().toTranslation2d().minus(new Translation2d(distance, 0));
+    return calculateStationaryPitch(robotPoseFacingSpeaker(robotTranslation), velocity, prevPitch);
+  }
+
   private static double calculateStationaryPitch(
       Pose2d robotPose, double velocity, double prevPitch, int i) {
     double G = 9.81;
@@ -0,0 +1,120 @@
+package org.sciborgs1155.robot.commands;
+
+import static edu.wpi.first.units.Units.Meters;
+import static org.sciborgs1155.robot.shooter.ShooterConstants.RADIUS;
+
+/**
+ * Allocation free shooting math, operating on primitive doubles and caller owned scratch objects.
+ *
+ * <p>These are the kernels behind the object based methods in {@link Shooting}, which wrap them and
+ * are kept for use off of the hot path.
+ */
+public final class ShotMath {
+  private static final double RADIUS_METERS = RADIUS.in(Meters);
+
+  /** A mutable 3d vector, reused between calls instead of allocating a new one. */
+  public static final class Vec3 {
+    public double x;
+    public double y;
+    public double z;
+
+    public Vec3 set(double x, double y, double z) {
+      this.x = x;
+      this.y = y;
+      this.z = z;
+      return this;
+    }
+
+    public double norm() {
+      return Math.sqrt(x * x + y * y + z * z);
+    }
+  }
+
+  /** A mutable 2d pose, reused between calls instead of allocating a new one. */
+  public static final class MutablePose {
+    public double x;
+    public double y;
+    public double theta;
+  }
+
+  private ShotMath() {}
+
+  /**
+   * Calculates pitch from note initial velocity.
+   *
+   * @see Shooting#pitchFromNoteVelocity
+   */
+  public static double pitch(double vx, double vy, double vz) {
+    return Math.atan(vz / Math.hypot(vx, vy));
+  }
+
+  /**
+   * Calculates heading from note initial velocity, in radians within [-pi, pi].
+   *
+   * @see Shooting#yawFromNoteVelocity
+   */
+  public static double heading(double vx, double vy) {
+    // equivalent to pi + atan2(vy, vx), wrapped
+    return Math.atan2(-vy, -vx);
+  }
+
+  /**
+   * Calculates flywheel speed from note initial velocity, in radians per second.
+   *
+   * @see Shooting#rotationalVelocityFromNoteVelocity
+   */
+  public static double flywheelSpeed(double vx, double vy, double vz) {
+    return Math.sqrt(vx * vx + vy * vy + vz * vz) / RADIUS_METERS * Shooting.siggysConstant.get();
+  }
+
+  /**
+   * Calculates the desired note velocity relative to the robot, given the shot found for a
+   * stationary robot.
+   *
+   * @param dx The x distance from the robot to the speaker.
+   * @param dy The y distance from the robot to the speaker.
+   * @param pitch The stationary shot pitch, in radians.
+   * @param shotVelocity The stationary shot speed, in meters per second.
+   * @param robotVx The field relative x velocity of the robot.
+   * @param robotVy The field relative y velocity of the robot.
+   * @param out The vector to write the note velocity to.
+   * @return {@code out}, for chaining.
+   */
+  public static Vec3 noteVelocity(
+      double dx,
+      double dy,
+      double pitch,
+      double shotVelocity,
+      double robotVx,
+      double robotVy,
+      Vec3 out) {
+    double distance = Math.hypot(dx, dy);
+    double horizontal = Math.cos(pitch) * shotVelocity;
+    return out.set(
+        horizontal * dx / distance - robotVx,
+        horizontal * dy / distance - robotVy,
+        Math.sin(pitch) * shotVelocity);
+  }
+
+  /**
+   * Predicts a robot pose after moving at constant field relative speeds.
+   *
+   * @param out The pose to write the prediction to.
+   * @return {@code out}, for chaining.
+   * @see Shooting#predictedPose
+   */
+  public static MutablePose predict(
+      double x,
+      double y,
+      double theta,
+      double vx,
+      double vy,
+      double omega,
+      double dt,
+      MutablePose out) {
+    out.x = x + vx * dt;
+    out.y = y + vy * dt;
+    out.theta = theta + omega * dt;
+    return out;
+  }
+}
@@ -0,0 +1,156 @@
+package org.sciborgs1155.robot.commands;
+
+import java.util.Random;
+
+/**
+ * A precomputed grid of stationary shot pitches, indexed by horizontal distance from the robot to
+ * the speaker and by note launch speed.
+ *
+ * <p>The pitch returned by {@link Shooting#calculateStationaryPitch(double, double, double)} only
+ * depends on those two values, so the grid is solved once at startup and bilinearly interpolated
+ * every tick. Queries that fall outside of the grid, touch an unreachable cell, or land in a region
+ * where the solution changes too quickly to interpolate fall back to the exact solver.
+ */
+public class ShotTable {
+  /** Comparison of the table against the exact solver, see {@link #accuracy(int, long)}. */
+  public static record Report(double maxError, double meanError, int samples, int fallbacks) {
+    @Override
+    public String toString() {
+      return String.format(
+          "max error: %.5f rad, mean error: %.6f rad, %d samples, %d fallbacks",
+          maxError, meanError, samples, fallbacks);
+    }
+  }
+
+  // distance from robot center to speaker, in meters
+  public static final double MIN_DISTANCE = 0.5;
+  public static final double MAX_DISTANCE = 6.0;
+  public static final double DISTANCE_STEP = 0.1;
+
+  // note launch speed, in meters per second
+  public static final double MIN_SPEED = 5.0;
+  public static final double MAX_SPEED = 16.0;
+  public static final double SPEED_STEP = 0.25;
+
+  /** Largest pitch difference (rad) across a cell that is still trusted for interpolation. */
+  public static final double MAX_SPREAD = 0.05;
+
+  private final int distances;
+  private final int speeds;
+
+  // row major, indexed by [distance][speed]
+  private final double[] pitches;
+
+  /** Solves every cell of the table. This is slow and should only be done once, at startup. */
+  public ShotTable() {
+    distances = (int) Math.round((MAX_DISTANCE - MIN_DISTANCE) / DISTANCE_STEP) + 1;
+    speeds = (int) Math.round((MAX_SPEED - MIN_SPEED) / SPEED_STEP) + 1;
+    pitches = new double[distances * speeds];
+
+    for (int i = 0; i < distances; i++) {
+      // seed each row with the previous solution to keep the solver to a couple iterations
+      double seed = 0;
+      for (int j = 0; j < speeds; j++) {
+        double pitch =
+            Shooting.calculateStationaryPitch(
+                MIN_DISTANCE + i * DISTANCE_STEP, MIN_SPEED + j * SPEED_STEP, seed);
+        pitches[i * speeds + j] = pitch;
+        if (!Double.isNaN(pitch)) {
+          seed = pitch;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the stationary pitch to shoot into the speaker from, interpolated from the table when
+   * possible.
+   *
+   * @param distance The horizontal distance from the robot to the speaker, in meters.
+   * @param velocity The magnitude of velocity to launch the note at, in meters per second.
+   * @param prevPitch The current pitch, used to seed the exact solver if it is needed.
+   * @return The pitch to shoot the note at, in radians.
+   */
+  public double pitch(double distance, double velocity, double prevPitch) {
+    double interpolated = interpolate(distance, velocity);
+    return Double.isNaN(interpolated)
+        ? Shooting.calculateStationaryPitch(distance, velocity, prevPitch)
+        : interpolated;
+  }
+
+  /**
+   * Returns whether a pitch can be interpolated from the table, without the exact solver.
+   *
+   * @param distance The horizontal distance from the robot to the speaker, in meters.
+   * @param velocity The magnitude of velocity to launch the note at, in meters per second.
+   * @return Whether {@link #pitch(double, double, double)} is a table lookup.
+   */
+  public boolean covers(double distance, double velocity) {
+    return !Double.isNaN(interpolate(distance, velocity));
+  }
+
+  /**
+   * Interpolates a pitch from the table.
+   *
+   * @param distance The horizontal distance from the robot to the speaker, in meters.
+   * @param velocity The magnitude of velocity to launch the note at, in meters per second.
+   * @return The interpolated pitch, or NaN if the exact solver should be used instead.
+   */
+  public double interpolate(double distance, double velocity) {
+    double di = (distance - MIN_DISTANCE) / DISTANCE_STEP;
+    double vi = (velocity - MIN_SPEED) / SPEED_STEP;
+    // negated to also reject NaN inputs
+    if (!(di >= 0 && di <= distances - 1 && vi >= 0 && vi <= speeds - 1)) {
+      return Double.NaN;
+    }
+
+    int i = Math.min((int) di, distances - 2);
+    int j = Math.min((int) vi, speeds - 2);
+    double u = di - i;
+    double w = vi - j;
+
+    double p00 = pitches[i * speeds + j];
+    double p01 = pitches[i * speeds + j + 1];
+    double p10 = pitches[(i + 1) * speeds + j];
+    double p11 = pitches[(i + 1) * speeds + j + 1];
+
+    double max = Math.max(Math.max(p00, p01), Math.max(p10, p11));
+    double min = Math.min(Math.min(p00, p01), Math.min(p10, p11));
+    if (max - min > MAX_SPREAD) {
+      return Double.NaN;
+    }
+
+    // any unreachable corner propagates NaN through here
+    return (1 - u) * ((1 - w) * p00 + w * p01) + u * ((1 - w) * p10 + w * p11);
+  }
+
+  /**
+   * Compares the table against the exact iterative solver at random points within its bounds.
+   *
+   * @param samples The number of points to compare at.
+   * @param seed The random seed, for reproducible reports.
+   * @return A report of the absolute pitch error of the interpolated solutions.
+   */
+  public Report accuracy(int samples, long seed) {
+    Random random = new Random(seed);
+    double max = 0;
+    double sum = 0;
+    int compared = 0;
+    int fallbacks = 0;
+    for (int k = 0; k < samples; k++) {
+      double distance = MIN_DISTANCE + random.nextDouble() * (MAX_DISTANCE - MIN_DISTANCE);
+      double velocity = MIN_SPEED + random.nextDouble() * (MAX_SPEED - MIN_SPEED);
+      double exact = Shooting.calculateStationaryPitch(distance, velocity, 0);
+      double interpolated = interpolate(distance, velocity);
+      if (Double.isNaN(interpolated) || Double.isNaN(exact)) {
+        fallbacks++;
+        continue;
+      }
+      double error = Math.abs(interpolated - exact);
+      max = Math.max(max, error);
+      sum += error;
+      compared++;
+    }
+    return new Report(max, compared == 0 ? 0 : sum / compared, samples, fallbacks);
+  }
+}
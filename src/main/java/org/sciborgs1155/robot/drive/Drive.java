@@ -17,10 +17,10 @@ import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.controller.ProfiledPIDController;
 import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.geometry.Pose2d;
-import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Transform2d;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.interpolation.TimeInterpolatableBuffer;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
@@ -28,16 +28,18 @@ import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
 import edu.wpi.first.wpilibj.smartdashboard.FieldObject2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine.Direction;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.DoubleSupplier;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -49,6 +51,12 @@ import monologue.Logged;
 import org.photonvision.EstimatedRobotPose;
 import org.sciborgs1155.lib.Assertion;
 import org.sciborgs1155.lib.InputStream;
+import org.sciborgs1155.lib.InputUpdater;
+import org.sciborgs1155.lib.ProfiledSubsystem;
+import org.sciborgs1155.lib.SpscQueue;
+import org.sciborgs1155.lib.Telemetry;
+import org.sciborgs1155.lib.Telemetry.Rate;
+import org.sciborgs1155.lib.Telemetry.Registration;
 import org.sciborgs1155.lib.Test;
 import org.sciborgs1155.robot.Constants;
 import org.sciborgs1155.robot.Robot;
@@ -56,8 +64,27 @@ import org.sciborgs1155.robot.drive.DriveConstants.Rotation;
 import org.sciborgs1155.robot.drive.DriveConstants.Translation;
 import org.sciborgs1155.robot.drive.SwerveModule.ControlMode;
 import org.sciborgs1155.robot.vision.Vision.PoseEstimate;
+import org.sciborgs1155.robot.vision.VisionFusion;
+import org.sciborgs1155.robot.vision.VisionFusion.Measurement;
 
-public class Drive extends SubsystemBase implements Logged, AutoCloseable {
+public class Drive extends ProfiledSubsystem implements Logged, AutoCloseable {
+  private final List<Registration> telemetry = new ArrayList<>();
+
+  /**
+   * A consistent snapshot of the drive's estimated state, published once per odometry update.
+   *
+   * <p>Snapshots are shared between every reader, so the speeds must not be modified.
+   *
+   * @param pose The estimated pose of the robot.
+   * @param robotRelativeSpeeds The robot relative chassis speeds.
+   * @param fieldRelativeSpeeds The field relative chassis speeds.
+   * @param timestamp The FPGA timestamp the snapshot was published at, in seconds.
+   */
+  public static record PoseState(
+      Pose2d pose,
+      ChassisSpeeds robotRelativeSpeeds,
+      ChassisSpeeds fieldRelativeSpeeds,
+      double timestamp) {}
 
   // Modules
   private final SwerveModule frontLeft;
@@ -67,16 +94,55 @@ public class Drive extends SubsystemBase implements Logged, AutoCloseable {
 
   @IgnoreLogged private final List<SwerveModule> modules;
 
+  // every module's last readings and setpoint, updated in place by the modules
+  private final SwerveModuleState[] moduleStates;
+  private final SwerveModuleState[] moduleSetpoints;
+  private final SwerveModulePosition[] modulePositions;
+
   private final GyroIO gyro;
+  @Log.NT private final GyroIO.Inputs gyroInputs = new GyroIO.Inputs();
   private static Rotation2d simRotation = new Rotation2d();
 
   public final SwerveDriveKinematics kinematics = new SwerveDriveKinematics(MODULE_OFFSET);
 
+  // scratch space for allocation free kinematics, see SwerveKinematics
+  private final double[] discretized = new double[3];
+  private final double[] setpointSpeeds = new double[SwerveKinematics.MODULES];
+  private final double[] setpointAngles = new double[SwerveKinematics.MODULES];
+  private final double[] measuredSpeeds = new double[SwerveKinematics.MODULES];
+  private final double[] measuredAngles = new double[SwerveKinematics.MODULES];
+  private final double[] measuredChassis = new double[3];
+  private final double[] commandedSpeeds = new double[SwerveKinematics.MODULES];
+  private final double[] commandedAngles = new double[SwerveKinematics.MODULES];
+  private final double[] commandedChassis = new double[3];
+
   // Odometry and pose estimation
   private final SwerveDrivePoseEstimator odometry;
 
+  // samples from the odometry thread, replayed into pose estimation every periodic
+  private final OdometryThread odometryThread;
+  private final OdometryThread.Samples odometrySamples;
+  private final SwerveModulePosition[] odometryPositions;
+
+  // replaced as a whole, so readers on any thread see a consistent state without locking
+  private volatile PoseState state;
+
+  // estimates from the vision thread, drained every periodic
+  private final SpscQueue<PoseEstimate> visionEstimates = new SpscQueue<>(VISION_QUEUE_CAPACITY);
+  private final List<PoseEstimate> visionBatch = new ArrayList<>(VISION_QUEUE_CAPACITY);
+  private final Consumer<PoseEstimate> addToVisionBatch = visionBatch::add;
+  private final VisionFusion visionFusion = new VisionFusion();
+
+  // estimated poses by time, to compare vision measurements against odometry when they were taken
+  private final TimeInterpolatableBuffer<Pose2d> poseHistory =
+      TimeInterpolatableBuffer.createBuffer(POSE_HISTORY.in(Seconds));
+
   @Log.NT private final Field2d field2d = new Field2d();
   private final FieldObject2d[] modules2d;
+  private final FieldObject2d acceptedVision2d = field2d.getObject("Vision Est Poses");
+  private final FieldObject2d rejectedVision2d = field2d.getObject("Vision Rejected Poses");
+  private final List<Pose2d> acceptedVision = new ArrayList<>();
+  private final List<Pose2d> rejectedVision = new ArrayList<>();
 
   private final SysIdRoutine translationCharacterization;
   private final SysIdRoutine rotationalCharacterization;
@@ -94,10 +160,18 @@ public class Drive extends SubsystemBase implements Logged, AutoCloseable {
       new PIDController(Rotation.P, Rotation.I, Rotation.D);
 
   /**
-   * A factory to create a new swerve drive based on whether the robot is being ran in simulation or
-   * not.
+   * A factory to create a new swerve drive based on whether the robot is being ran in simulation,
+   * replayed from a log, or neither.
    */
   public static Drive create() {
+    if (Robot.isReplay()) {
+      return new Drive(
+          new ReplayGyro("/Robot/drive/gyroInputs"),
+          new ReplayModule("/Robot/drive/frontLeft/inputs"),
+          new ReplayModule("/Robot/drive/frontRight/inputs"),
+          new ReplayModule("/Robot/drive/rearLeft/inputs"),
+          new ReplayModule("/Robot/drive/rearRight/inputs"));
+    }
     return Robot.isReal()
         ? new Drive(
             new NavXGyro(),
@@ -126,6 +200,65 @@ public class Drive extends SubsystemBase implements Logged, AutoCloseable {
     modules = List.of(this.frontLeft, this.frontRight, this.rearLeft, this.rearRight);
     modules2d = new FieldObject2d[modules.size()];
 
+    InputUpdater.register(gyroInputs, gyro::updateInputs);
+    updateModules();
+    InputUpdater.register(this::updateModules);
+    moduleStates = modules.stream().map(SwerveModule::state).toArray(SwerveModuleState[]::new);
+    moduleSetpoints =
+        modules.stream().map(SwerveModule::desiredState).toArray(SwerveModuleState[]::new);
+    modulePositions =
+        modules.stream().map(SwerveModule::position).toArray(SwerveModulePosition[]::new);
+    telemetry.add(
+        Telemetry.addArray(
+            "/Robot/drive/getModuleStates",
+            Rate.FAST,
+            SwerveModuleState.struct,
+            this::getModuleStates,
+            0.01));
+    telemetry.add(
+        Telemetry.addArray(
+            "/Robot/drive/getModuleSetpoints",
+            Rate.FAST,
+            SwerveModuleState.struct,
+            this::getModuleSetpoints,
+            0.01));
+    telemetry.add(
+        Telemetry.addArray(
+            "/Robot/drive/getModulePositions",
+            Rate.MEDIUM,
+            SwerveModulePosition.struct,
+            this::getModulePositions,
+            1e-3));
+    telemetry.add(
+        Telemetry.add(
+            "/Robot/drive/getRobotRelativeChassisSpeeds",
+            Rate.FAST,
+            ChassisSpeeds.struct,
+            this::getRobotRelativeChassisSpeeds,
+            0.01));
+    telemetry.add(
+        Telemetry.add(
+            "/Robot/drive/getFieldRelativeChassisSpeeds",
+            Rate.MEDIUM,
+            ChassisSpeeds.struct,
+            this::getFieldRelativeChassisSpeeds,
+            0.01));
+
+    odometryThread =
+        new OdometryThread(
+            () ->
+                (Robot.isReal() || Robot.isReplay() ? gyro.getRotation2d() : simRotation)
+                    .getRadians(),
+            frontLeft,
+            frontRight,
+            rearLeft,
+            rearRight);
+    odometrySamples = new OdometryThread.Samples(modules.size());
+    odometryPositions = new SwerveModulePosition[modules.size()];
+    for (int i = 0; i < odometryPositions.length; i++) {
+      odometryPositions[i] = new SwerveModulePosition();
+    }
+
     translationCharacterization =
         new SysIdRoutine(
             new SysIdRoutine.Config(),
@@ -165,13 +298,22 @@ public class Drive extends SubsystemBase implements Logged, AutoCloseable {
       var module = modules.get(i);
       modules2d[i] = field2d.getObject("module-" + module.name);
     }
+    telemetry.add(Telemetry.schedule(Rate.MEDIUM, () -> field2d.setRobotPose(pose())));
+    telemetry.add(Telemetry.schedule(Rate.SLOW, this::updateModules2d));
 
     gyro.reset();
+    publishState();
 
     translationController.setTolerance(Translation.TOLERANCE.in(Meters));
     rotationController.enableContinuousInput(0, 2 * Math.PI);
     rotationController.setTolerance(Rotation.TOLERANCE.in(Radians));
 
+    // simulated and replayed modules only change in the main loop, so they are sampled there
+    // instead
+    if (Robot.isReal()) {
+      odometryThread.start(ODOMETRY_PERIOD.in(Seconds));
+    }
+
     SmartDashboard.putData(
         "translation quasistatic forward",
         translationCharacterization.quasistatic(Direction.kForward));
@@ -193,6 +335,15 @@ public class Drive extends SubsystemBase implements Logged, AutoCloseable {
         "rotation dynamic backward", rotationalCharacterization.dynamic(Direction.kReverse));
   }
 
+  /**
+   * Returns the latest snapshot of the drive's estimated state.
+   *
+   * @return The state, as of the last odometry update.
+   */
+  public PoseState state() {
+    return state;
+  }
+
   /**
    * Returns the currently-estimated pose of the robot.
    *
@@ -200,7 +351,7 @@ public class Drive extends SubsystemBase implements Logged, AutoCloseable {
    */
   @Log.NT
   public Pose2d pose() {
-    return odometry.getEstimatedPosition();
+    return state.pose();
   }
 
   /**
@@ -209,7 +360,12 @@ public class Drive extends SubsystemBase implements Logged, AutoCloseable {
    * @param pose The pose to which to set the odometry.
    */
   public void resetOdometry(Pose2d pose) {
+    // samples from before the reset would otherwise be replayed after it
+    odometryThread.drain(odometrySamples);
+    poseHistory.clear();
+    updateModules();
     odometry.resetPosition(gyro.getRotation2d(), getModulePositions(), pose);
+    publishState();
   }
 
   public Rotation2d heading() {
@@ -236,7 +392,7 @@ public class Drive extends SubsystemBase implements Logged, AutoCloseable {
 
   public boolean isFacing(Translation2d target) {
     return Math.abs(
-            gyro.getRotation2d().getRadians()
+            gyroInputs.rotation.getZ()
                 - target.minus(pose().getTranslation()).getAngle().getRadians())
         < rotationController.getPositionTolerance();
   }
@@ -288,11 +444,19 @@ public class Drive extends SubsystemBase implements Logged, AutoCloseable {
     double sum = speed + angularSpeed;
     double factor = sum == 0 ? 0 : speed / sum;
 
-    setModuleStates(
-        kinematics.toSwerveModuleStates(
-            ChassisSpeeds.discretize(speeds, Constants.PERIOD.in(Seconds))),
-        mode,
-        factor);
+    SwerveKinematics.discretize(
+        speeds.vxMetersPerSecond,
+        speeds.vyMetersPerSecond,
+        speeds.omegaRadiansPerSecond,
+        Constants.PERIOD.in(Seconds),
+        discretized);
+    SwerveKinematics.toModuleStates(
+        discretized[0], discretized[1], discretized[2], setpointSpeeds, setpointAngles);
+    SwerveKinematics.desaturate(setpointSpeeds, MAX_SPEED.in(MetersPerSecond));
+
+    for (int i = 0; i < modules.size(); i++) {
+      modules.get(i).updateSetpoint(setpointSpeeds[i], setpointAngles[i], mode, factor);
+    }
   }
 
   /**
@@ -343,63 +507,134 @@ public class Drive extends SubsystemBase implements Logged, AutoCloseable {
     return runOnce(gyro::reset);
   }
 
-  /** Returns the module states. */
-  @Log.NT
+  /**
+   * Reads every module's sensors once, for the module accessors to return until the next read. This
+   * is run by {@link InputUpdater} at the start of every loop.
+   */
+  private void updateModules() {
+    for (int i = 0; i < modules.size(); i++) {
+      modules.get(i).update();
+    }
+  }
+
+  /**
+   * Returns the module states as of the start of this tick.
+   *
+   * @return The module states, which are reused and must not be modified.
+   */
   public SwerveModuleState[] getModuleStates() {
-    return modules.stream().map(SwerveModule::state).toArray(SwerveModuleState[]::new);
+    return moduleStates;
   }
 
-  /** Returns the module states. */
-  @Log.NT
+  /** Returns the module setpoints, which are reused and must not be modified. */
   private SwerveModuleState[] getModuleSetpoints() {
-    return modules.stream().map(SwerveModule::desiredState).toArray(SwerveModuleState[]::new);
+    return moduleSetpoints;
   }
 
-  /** Returns the module positions */
-  @Log.NT
+  /**
+   * Returns the module positions as of the start of this tick.
+   *
+   * @return The module positions, which are reused and must not be modified.
+   */
   public SwerveModulePosition[] getModulePositions() {
-    return modules.stream().map(SwerveModule::position).toArray(SwerveModulePosition[]::new);
+    return modulePositions;
   }
 
   /** Returns the robot relative chassis speeds. */
-  @Log.NT
   public ChassisSpeeds getRobotRelativeChassisSpeeds() {
-    return kinematics.toChassisSpeeds(getModuleStates());
+    return state.robotRelativeSpeeds();
   }
 
   /** Returns the field relative chassis speeds. */
-  @Log.NT
   public ChassisSpeeds getFieldRelativeChassisSpeeds() {
-    return ChassisSpeeds.fromRobotRelativeSpeeds(getRobotRelativeChassisSpeeds(), heading());
-  }
-
-  /** Updates pose estimation based on provided {@link EstimatedRobotPose} */
-  public void updateEstimates(PoseEstimate... poses) {
-    Pose3d[] loggedEstimates = new Pose3d[poses.length];
-    for (int i = 0; i < poses.length; i++) {
-      loggedEstimates[i] = poses[i].estimatedPose().estimatedPose;
-      odometry.addVisionMeasurement(
-          poses[i].estimatedPose().estimatedPose.toPose2d(),
-          poses[i].estimatedPose().timestampSeconds,
-          poses[i].standardDev());
-      field2d
-          .getObject("Cam " + i + " Est Pose")
-          .setPose(poses[i].estimatedPose().estimatedPose.toPose2d());
+    return state.fieldRelativeSpeeds();
+  }
+
+  /** Shows each module on the field, which is only worth its cost for diagnostics. */
+  private void updateModules2d() {
+    for (int i = 0; i < modules2d.length; i++) {
+      var transform = new Transform2d(MODULE_OFFSET[i], modulePositions[i].angle);
+      modules2d[i].setPose(pose().transformBy(transform));
     }
-    log("estimated poses", loggedEstimates);
   }
 
-  @Override
-  public void periodic() {
-    odometry.update(Robot.isReal() ? gyro.getRotation2d() : simRotation, getModulePositions());
+  /** Publishes a new state from the current pose estimate and module states. */
+  private void publishState() {
+    Pose2d pose = odometry.getEstimatedPosition();
+    for (int i = 0; i < modules.size(); i++) {
+      measuredSpeeds[i] = moduleStates[i].speedMetersPerSecond;
+      measuredAngles[i] = moduleStates[i].angle.getRadians();
+    }
+    SwerveKinematics.toChassisSpeeds(measuredSpeeds, measuredAngles, measuredChassis);
+    ChassisSpeeds robotRelative =
+        new ChassisSpeeds(measuredChassis[0], measuredChassis[1], measuredChassis[2]);
+    state =
+        new PoseState(
+            pose,
+            robotRelative,
+            ChassisSpeeds.fromRobotRelativeSpeeds(robotRelative, pose.getRotation()),
+            Timer.getFPGATimestamp());
+  }
 
-    field2d.setRobotPose(pose());
+  /**
+   * Returns the queue that vision estimates should be added to. It is drained at the start of every
+   * {@link #periodic()}.
+   */
+  public SpscQueue<PoseEstimate> visionEstimates() {
+    return visionEstimates;
+  }
 
-    for (int i = 0; i < modules2d.length; i++) {
-      var module = modules.get(i);
-      var transform = new Transform2d(MODULE_OFFSET[i], module.position().angle);
-      modules2d[i].setPose(pose().transformBy(transform));
+  /**
+   * Updates pose estimation based on provided {@link EstimatedRobotPose}s, which are fused into as
+   * few measurements as possible and checked against odometry first.
+   *
+   * @param estimates The estimates to add, which may be reordered.
+   */
+  public void updateEstimates(List<PoseEstimate> estimates) {
+    if (estimates.isEmpty()) {
+      return;
+    }
+    acceptedVision.clear();
+    rejectedVision.clear();
+    for (Measurement measurement : visionFusion.fuse(estimates)) {
+      Optional<Pose2d> odometryPose = poseHistory.getSample(measurement.timestamp());
+      if (odometryPose.isEmpty() || visionFusion.accept(measurement, odometryPose.get())) {
+        odometry.addVisionMeasurement(
+            measurement.pose(), measurement.timestamp(), measurement.standardDev());
+        acceptedVision.add(measurement.pose());
+      } else {
+        rejectedVision.add(measurement.pose());
+      }
     }
+    acceptedVision2d.setPoses(acceptedVision);
+    rejectedVision2d.setPoses(rejectedVision);
+    log("accepted vision measurements", acceptedVision.size());
+    log("rejected vision measurements", rejectedVision.size());
+  }
+
+  @Override
+  protected void profiledPeriodic() {
+    if (Robot.isSimulation()) {
+      odometryThread.sample();
+    }
+    int samples = odometryThread.drain(odometrySamples);
+    for (int k = 0; k < samples; k++) {
+      for (int i = 0; i < odometryPositions.length; i++) {
+        odometryPositions[i].distanceMeters = odometrySamples.distances[i][k];
+        odometryPositions[i].angle = Rotation2d.fromRadians(odometrySamples.angles[i][k]);
+      }
+      odometry.updateWithTime(
+          odometrySamples.timestamps[k],
+          Rotation2d.fromRadians(odometrySamples.yaws[k]),
+          odometryPositions);
+      poseHistory.addSample(odometrySamples.timestamps[k], odometry.getEstimatedPosition());
+    }
+    log("odometry samples", samples);
+
+    visionEstimates.drain(addToVisionBatch);
+    updateEstimates(visionBatch);
+    visionBatch.clear();
+    publishState();
 
     log(
         "turning target",
@@ -412,11 +647,16 @@ public class Drive extends SubsystemBase implements Logged, AutoCloseable {
 
   @Override
   public void simulationPeriodic() {
+    // integrate what the modules are commanded to do over this loop, rather than the speeds
+    // measured at the start of the last one
+    for (int i = 0; i < modules.size(); i++) {
+      commandedSpeeds[i] = moduleSetpoints[i].speedMetersPerSecond;
+      commandedAngles[i] = moduleSetpoints[i].angle.getRadians();
+    }
+    SwerveKinematics.toChassisSpeeds(commandedSpeeds, commandedAngles, commandedChassis);
     simRotation =
         simRotation.rotateBy(
-            Rotation2d.fromRadians(
-                getRobotRelativeChassisSpeeds().omegaRadiansPerSecond
-                    * Constants.PERIOD.in(Seconds)));
+            Rotation2d.fromRadians(commandedChassis[2] * Constants.PERIOD.in(Seconds)));
   }
 
   /** Stops drivetrain */
@@ -461,6 +701,8 @@ public class Drive extends SubsystemBase implements Logged, AutoCloseable {
   }
 
   public void close() throws Exception {
+    telemetry.forEach(Registration::close);
+    odometryThread.close();
     frontLeft.close();
     frontRight.close();
     rearLeft.close();
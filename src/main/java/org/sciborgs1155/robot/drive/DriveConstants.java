@@ -9,6 +9,7 @@ import edu.wpi.first.units.Angle;
 import edu.wpi.first.units.Current;
 import edu.wpi.first.units.Distance;
 import edu.wpi.first.units.Measure;
+import edu.wpi.first.units.Time;
 import edu.wpi.first.units.Velocity;
 import java.util.List;
 
@@ -54,6 +55,15 @@ public final class DriveConstants {
 
   public static final Rotation3d GYRO_OFFSET = new Rotation3d(0, 0, Math.PI);
 
+  // time between odometry samples, faster than the main loop for accurate fast movement
+  public static final Measure<Time> ODOMETRY_PERIOD = Seconds.of(1.0 / 250);
+
+  // how long estimated poses are kept to compare against delayed vision estimates
+  public static final Measure<Time> POSE_HISTORY = Seconds.of(1.5);
+
+  // vision estimates that can be waiting for the next drive periodic
+  public static final int VISION_QUEUE_CAPACITY = 16;
+
   public static final class Translation {
     public static final double P = 3.0;
     public static final double I = 0.0;
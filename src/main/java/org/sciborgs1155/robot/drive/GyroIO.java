@@ -2,9 +2,30 @@ package org.sciborgs1155.robot.drive;
 
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Rotation3d;
+import monologue.Annotations.Log;
+import monologue.Logged;
 
 /** Generalized gyroscope. Pigeon2, Navx, and SimGyro are to be implemented */
 public interface GyroIO extends AutoCloseable {
+  /** Sensor readings from the gyro, read once per loop. */
+  public static class Inputs implements Logged {
+    /** The rate of rotation. */
+    @Log.NT public double rate;
+
+    /** The orientation of the robot. */
+    @Log.NT public Rotation3d rotation = new Rotation3d();
+  }
+
+  /**
+   * Reads every sensor into inputs.
+   *
+   * @param inputs The inputs to fill.
+   */
+  default void updateInputs(Inputs inputs) {
+    inputs.rate = getRate();
+    inputs.rotation = getRotation3d();
+  }
+
   /** Calibrates the gyroscope. Pigeon2 does not need to do anything here. */
   default void calibrate() {}
 
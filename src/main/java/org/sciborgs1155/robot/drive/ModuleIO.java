@@ -1,10 +1,34 @@
 package org.sciborgs1155.robot.drive;
 
 import edu.wpi.first.math.geometry.Rotation2d;
+import monologue.Annotations.Log;
 import monologue.Logged;
 
 /** Generalized hardware internals for a swerve module */
 public interface ModuleIO extends AutoCloseable, Logged {
+  /** Sensor readings from a swerve module, read once per loop. */
+  public static class Inputs implements Logged {
+    /** The distance the wheel traveled, in radians. */
+    @Log.NT public double drivePosition;
+
+    /** The velocity of the wheel, in radians / second. */
+    @Log.NT public double driveVelocity;
+
+    /** The angular position of the module, in radians. */
+    @Log.NT public double angle;
+  }
+
+  /**
+   * Reads every sensor into inputs.
+   *
+   * @param inputs The inputs to fill.
+   */
+  default void updateInputs(Inputs inputs) {
+    inputs.drivePosition = drivePosition();
+    inputs.driveVelocity = driveVelocity();
+    inputs.angle = angle();
+  }
+
   /**
    * Sets the drive voltage of the module.
    *
@@ -40,6 +64,15 @@ public interface ModuleIO extends AutoCloseable, Logged {
    */
   Rotation2d rotation();
 
+  /**
+   * Returns the angular position of the module, without allocating a {@link Rotation2d}.
+   *
+   * @return The adjusted turn encoder position value, in radians.
+   */
+  default double angle() {
+    return rotation().getRadians();
+  }
+
   /** Resets all encoders. */
   void resetEncoders();
 
@@ -2,11 +2,13 @@ package org.sciborgs1155.robot.drive;
 
 import com.kauailabs.navx.frc.AHRS;
 import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.wpilibj.SPI;
 import org.sciborgs1155.lib.FaultLogger;
 
 /** GyroIO implementation for NavX */
 public class NavXGyro implements GyroIO {
-  private final AHRS ahrs = new AHRS();
+  // 200 hz is the fastest the navx can update, close to the odometry thread's rate
+  private final AHRS ahrs = new AHRS(SPI.Port.kMXP, (byte) 200);
 
   public NavXGyro() {
     FaultLogger.register(ahrs);
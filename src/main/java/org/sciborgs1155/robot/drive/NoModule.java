@@ -25,6 +25,11 @@ public class NoModule implements ModuleIO {
     return new Rotation2d();
   }
 
+  @Override
+  public double angle() {
+    return 0;
+  }
+
   @Override
   public void resetEncoders() {}
 
@@ -0,0 +1,152 @@
+package org.sciborgs1155.robot.drive;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Samples gyro yaw and swerve module positions faster than the main loop, into timestamped ring
+ * buffers that are drained and replayed into pose estimation every {@link Drive#periodic()}.
+ *
+ * <p>The lock is only held while writing one sample or copying samples out, never while reading
+ * hardware or updating the pose estimator.
+ */
+public class OdometryThread implements AutoCloseable {
+  /** The number of samples buffered between drains before the oldest are overwritten. */
+  public static final int CAPACITY = 32;
+
+  /** A batch of samples copied out of the buffers, oldest first. */
+  public static final class Samples {
+    public final double[] timestamps = new double[CAPACITY];
+    public final double[] yaws = new double[CAPACITY];
+    public final double[][] distances;
+    public final double[][] angles;
+
+    /**
+     * Creates space for a batch of samples.
+     *
+     * @param modules The number of swerve modules sampled.
+     */
+    public Samples(int modules) {
+      distances = new double[modules][CAPACITY];
+      angles = new double[modules][CAPACITY];
+    }
+  }
+
+  private final DoubleSupplier yaw;
+  private final ModuleIO[] modules;
+  private final Notifier notifier = new Notifier(this::sample);
+
+  // scratch space for one sample, only used by the sampling thread
+  private final double[] distances;
+  private final double[] angles;
+
+  // ring buffers, guarded by lock
+  private final ReentrantLock lock = new ReentrantLock();
+  private final double[] timestamps = new double[CAPACITY];
+  private final double[] yaws = new double[CAPACITY];
+  private final double[][] moduleDistances;
+  private final double[][] moduleAngles;
+  private int next = 0;
+  private int size = 0;
+  private long dropped = 0;
+
+  /**
+   * Creates a new odometry thread, which does not sample until started.
+   *
+   * @param yaw A supplier for the yaw of the robot, in radians.
+   * @param modules The swerve modules to sample.
+   */
+  public OdometryThread(DoubleSupplier yaw, ModuleIO... modules) {
+    this.yaw = yaw;
+    this.modules = modules;
+    distances = new double[modules.length];
+    angles = new double[modules.length];
+    moduleDistances = new double[modules.length][CAPACITY];
+    moduleAngles = new double[modules.length][CAPACITY];
+    notifier.setName("Odometry");
+  }
+
+  /**
+   * Starts sampling on a separate thread.
+   *
+   * @param period The time between samples, in seconds.
+   */
+  public void start(double period) {
+    notifier.startPeriodic(period);
+  }
+
+  /**
+   * Reads the gyro and every module once, and adds the readings to the buffers. This is run by the
+   * thread once started, and may be called directly otherwise.
+   */
+  public void sample() {
+    double timestamp = Timer.getFPGATimestamp();
+    double yaw = this.yaw.getAsDouble();
+    for (int i = 0; i < modules.length; i++) {
+      distances[i] = modules[i].drivePosition();
+      angles[i] = modules[i].angle();
+    }
+
+    lock.lock();
+    try {
+      timestamps[next] = timestamp;
+      yaws[next] = yaw;
+      for (int i = 0; i < modules.length; i++) {
+        moduleDistances[i][next] = distances[i];
+        moduleAngles[i][next] = angles[i];
+      }
+      next = (next + 1) % CAPACITY;
+      if (size == CAPACITY) {
+        dropped++;
+      } else {
+        size++;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Moves every buffered sample into a batch, oldest first.
+   *
+   * @param out The batch to copy samples into.
+   * @return The number of samples copied.
+   */
+  public int drain(Samples out) {
+    lock.lock();
+    try {
+      int start = (next - size + CAPACITY) % CAPACITY;
+      for (int k = 0; k < size; k++) {
+        int j = (start + k) % CAPACITY;
+        out.timestamps[k] = timestamps[j];
+        out.yaws[k] = yaws[j];
+        for (int i = 0; i < modules.length; i++) {
+          out.distances[i][k] = moduleDistances[i][j];
+          out.angles[i][k] = moduleAngles[i][j];
+        }
+      }
+      int count = size;
+      size = 0;
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Returns the number of samples overwritten before they were drained. */
+  public long dropped() {
+    lock.lock();
+    try {
+      return dropped;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void close() {
+    notifier.close();
+  }
+}
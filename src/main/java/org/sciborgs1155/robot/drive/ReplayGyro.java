@@ -0,0 +1,37 @@
+package org.sciborgs1155.robot.drive;
+
+import edu.wpi.first.math.geometry.Rotation3d;
+import org.sciborgs1155.lib.LogReplay;
+
+/** GyroIO implementation that plays back recorded inputs, see {@link LogReplay}. */
+public class ReplayGyro implements GyroIO {
+  private final Rotation3d zero = new Rotation3d();
+  private final String rate;
+  private final String rotation;
+
+  /**
+   * Creates a gyro that plays back recorded inputs.
+   *
+   * @param inputs The logged path of the gyro's inputs, such as {@code /Robot/drive/gyroInputs}.
+   */
+  public ReplayGyro(String inputs) {
+    rate = "NT:" + inputs + "/rate";
+    rotation = "NT:" + inputs + "/rotation";
+  }
+
+  @Override
+  public void close() throws Exception {}
+
+  @Override
+  public double getRate() {
+    return LogReplay.getDouble(rate, 0);
+  }
+
+  @Override
+  public Rotation3d getRotation3d() {
+    return LogReplay.getStruct(rotation, Rotation3d.struct, zero);
+  }
+
+  @Override
+  public void reset() {}
+}
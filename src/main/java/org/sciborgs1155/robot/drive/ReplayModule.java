@@ -0,0 +1,55 @@
+package org.sciborgs1155.robot.drive;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import org.sciborgs1155.lib.LogReplay;
+
+/** ModuleIO implementation that plays back a module's recorded inputs, see {@link LogReplay}. */
+public class ReplayModule implements ModuleIO {
+  private final String drivePosition;
+  private final String driveVelocity;
+  private final String angle;
+
+  /**
+   * Creates a module that plays back recorded inputs.
+   *
+   * @param inputs The logged path of the module's inputs, such as {@code
+   *     /Robot/drive/frontLeft/inputs}.
+   */
+  public ReplayModule(String inputs) {
+    drivePosition = "NT:" + inputs + "/drivePosition";
+    driveVelocity = "NT:" + inputs + "/driveVelocity";
+    angle = "NT:" + inputs + "/angle";
+  }
+
+  @Override
+  public void setDriveVoltage(double voltage) {}
+
+  @Override
+  public void setTurnVoltage(double voltage) {}
+
+  @Override
+  public double drivePosition() {
+    return LogReplay.getDouble(drivePosition, 0);
+  }
+
+  @Override
+  public double driveVelocity() {
+    return LogReplay.getDouble(driveVelocity, 0);
+  }
+
+  @Override
+  public Rotation2d rotation() {
+    return Rotation2d.fromRadians(angle());
+  }
+
+  @Override
+  public double angle() {
+    return LogReplay.getDouble(angle, 0);
+  }
+
+  @Override
+  public void resetEncoders() {}
+
+  @Override
+  public void close() {}
+}
@@ -51,6 +51,11 @@ public class SimModule implements ModuleIO {
     return Rotation2d.fromRadians(turn.getAngularPositionRad());
   }
 
+  @Override
+  public double angle() {
+    return turn.getAngularPositionRad();
+  }
+
   @Override
   public void resetEncoders() {
     drive.setState(VecBuilder.fill(0, 0));
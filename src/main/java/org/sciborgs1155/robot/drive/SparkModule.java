@@ -3,13 +3,17 @@ package org.sciborgs1155.robot.drive;
 import static edu.wpi.first.units.Units.*;
 import static org.sciborgs1155.lib.FaultLogger.*;
 import static org.sciborgs1155.robot.drive.DriveConstants.ModuleConstants.COUPLING_RATIO;
+import static org.sciborgs1155.robot.drive.DriveConstants.ODOMETRY_PERIOD;
 
 import com.revrobotics.CANSparkBase.IdleMode;
 import com.revrobotics.CANSparkFlex;
 import com.revrobotics.CANSparkLowLevel.MotorType;
+import com.revrobotics.CANSparkLowLevel.PeriodicFrame;
 import com.revrobotics.CANSparkMax;
+import com.revrobotics.REVLibError;
 import com.revrobotics.RelativeEncoder;
 import com.revrobotics.SparkAbsoluteEncoder;
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Rotation2d;
 import java.util.Set;
 import org.sciborgs1155.lib.SparkUtils;
@@ -28,9 +32,16 @@ public class SparkModule implements ModuleIO {
 
   private final Rotation2d angularOffset;
 
-  private double lastPosition;
+  // status frame period for data read by the odometry thread, in milliseconds
+  private static final int ODOMETRY_FRAME = (int) ODOMETRY_PERIOD.in(Milliseconds);
+
+  // read by both the odometry thread and the main loop
+  private volatile double lastPosition;
   private double lastVelocity;
 
+  // set by the odometry thread and reported on the main loop, since FaultLogger is not thread safe
+  private volatile REVLibError positionError = REVLibError.kOk;
+
   /**
    * Constructs a SwerveModule for rev's MAX Swerve.
    *
@@ -57,6 +68,8 @@ public class SparkModule implements ModuleIO {
             Set.of(Data.POSITION, Data.VELOCITY, Data.APPLIED_OUTPUT),
             Set.of(Sensor.INTEGRATED),
             false));
+    // position is sampled by the odometry thread, so it is sent as often as it is read
+    check(driveMotor, driveMotor.setPeriodicFramePeriod(PeriodicFrame.kStatus2, ODOMETRY_FRAME));
     check(driveMotor, driveMotor.burnFlash());
 
     turnMotor = new CANSparkMax(turnPort, MotorType.kBrushless);
@@ -73,22 +86,8 @@ public class SparkModule implements ModuleIO {
         turnMotor,
         turningEncoder.setVelocityConversionFactor(Turning.VELOCITY_FACTOR.in(RadiansPerSecond)));
     check(turnMotor, turningEncoder.setAverageDepth(2));
-    check(
-        turnMotor,
-        SparkUtils.configureFrameStrategy(
-            turnMotor,
-            Set.of(Data.POSITION, Data.VELOCITY, Data.APPLIED_OUTPUT),
-            Set.of(Sensor.ABSOLUTE),
-            false));
-    SparkUtils.addChecker(
-        () ->
-            check(
-                turnMotor,
-                SparkUtils.configureFrameStrategy(
-                    turnMotor,
-                    Set.of(Data.POSITION, Data.VELOCITY, Data.APPLIED_OUTPUT),
-                    Set.of(Sensor.ABSOLUTE),
-                    false)));
+    configureTurnFrames();
+    SparkUtils.addChecker(SparkUtils.name(turnMotor) + " frames", this::configureTurnFrames);
     check(turnMotor, turnMotor.burnFlash());
 
     register(driveMotor);
@@ -99,6 +98,17 @@ public class SparkModule implements ModuleIO {
     this.angularOffset = angularOffset;
   }
 
+  private void configureTurnFrames() {
+    check(
+        turnMotor,
+        SparkUtils.configureFrameStrategy(
+            turnMotor,
+            Set.of(Data.POSITION, Data.VELOCITY, Data.APPLIED_OUTPUT),
+            Set.of(Sensor.ABSOLUTE),
+            false));
+    check(turnMotor, turnMotor.setPeriodicFramePeriod(PeriodicFrame.kStatus5, ODOMETRY_FRAME));
+  }
+
   @Override
   public void setDriveVoltage(double voltage) {
     driveMotor.setVoltage(voltage);
@@ -112,16 +122,36 @@ public class SparkModule implements ModuleIO {
     check(turnMotor);
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This is sampled by the odometry thread, so errors are only recorded here and are reported by
+   * the next call to {@link #driveVelocity()} on the main loop.
+   */
   @Override
   public double drivePosition() {
-    lastPosition = SparkUtils.wrapCall(driveMotor, driveEncoder.getPosition()).orElse(lastPosition);
+    double position = driveEncoder.getPosition();
+    REVLibError error = driveMotor.getLastError();
+    if (error == REVLibError.kOk) {
+      lastPosition = position;
+    } else {
+      positionError = error;
+    }
     // account for rotation of turn motor on rotation of drive motor
     return lastPosition - turningEncoder.getPosition() * COUPLING_RATIO;
   }
 
   @Override
   public double driveVelocity() {
-    lastVelocity = SparkUtils.wrapCall(driveMotor, driveEncoder.getVelocity()).orElse(lastVelocity);
+    REVLibError error = positionError;
+    if (error != REVLibError.kOk) {
+      positionError = REVLibError.kOk;
+      check(driveMotor, error);
+    }
+    double velocity = driveEncoder.getVelocity();
+    if (check(driveMotor)) {
+      lastVelocity = velocity;
+    }
     return lastVelocity;
   }
 
@@ -130,6 +160,11 @@ public class SparkModule implements ModuleIO {
     return Rotation2d.fromRadians(turningEncoder.getPosition()).minus(angularOffset);
   }
 
+  @Override
+  public double angle() {
+    return MathUtil.angleModulus(turningEncoder.getPosition() - angularOffset.getRadians());
+  }
+
   @Override
   public void resetEncoders() {
     driveEncoder.setPosition(0);
@@ -0,0 +1,148 @@
+package org.sciborgs1155.robot.drive;
+
+import static org.sciborgs1155.robot.drive.DriveConstants.MODULE_OFFSET;
+
+import org.ejml.simple.SimpleMatrix;
+
+/**
+ * Allocation free kinematics for this robot's four swerve modules, operating on primitive doubles
+ * and caller owned arrays.
+ *
+ * <p>These are equivalent to {@link edu.wpi.first.math.kinematics.ChassisSpeeds#discretize} and the
+ * methods of {@link edu.wpi.first.math.kinematics.SwerveDriveKinematics}, with the module geometry
+ * from {@link DriveConstants#MODULE_OFFSET} baked in. Module arrays are ordered like {@code
+ * MODULE_OFFSET}, and chassis speed arrays are {@code {vx, vy, omega}}.
+ */
+public final class SwerveKinematics {
+  /** The number of modules. */
+  public static final int MODULES = 4;
+
+  private static final double X0 = MODULE_OFFSET[0].getX();
+  private static final double Y0 = MODULE_OFFSET[0].getY();
+  private static final double X1 = MODULE_OFFSET[1].getX();
+  private static final double Y1 = MODULE_OFFSET[1].getY();
+  private static final double X2 = MODULE_OFFSET[2].getX();
+  private static final double Y2 = MODULE_OFFSET[2].getY();
+  private static final double X3 = MODULE_OFFSET[3].getX();
+  private static final double Y3 = MODULE_OFFSET[3].getY();
+
+  // least squares solution from module velocity components to chassis speeds, computed once
+  private static final double[][] FORWARD = new double[3][2 * MODULES];
+
+  static {
+    if (MODULE_OFFSET.length != MODULES) {
+      throw new IllegalStateException("Expected " + MODULES + " modules");
+    }
+    SimpleMatrix inverse = new SimpleMatrix(2 * MODULES, 3);
+    for (int i = 0; i < MODULES; i++) {
+      inverse.setRow(2 * i, 0, 1, 0, -MODULE_OFFSET[i].getY());
+      inverse.setRow(2 * i + 1, 0, 0, 1, MODULE_OFFSET[i].getX());
+    }
+    SimpleMatrix forward = inverse.pseudoInverse();
+    for (int r = 0; r < 3; r++) {
+      for (int c = 0; c < 2 * MODULES; c++) {
+        FORWARD[r][c] = forward.get(r, c);
+      }
+    }
+  }
+
+  private SwerveKinematics() {}
+
+  /**
+   * Converts continuous chassis speeds into the constant speeds that follow the same arc over one
+   * period, so that translating while rotating does not drift.
+   *
+   * @param vx The robot relative x velocity, in meters per second.
+   * @param vy The robot relative y velocity, in meters per second.
+   * @param omega The angular velocity, in radians per second.
+   * @param dt The period, in seconds.
+   * @param out The array to write the discretized {@code {vx, vy, omega}} to.
+   * @return {@code out}, for chaining.
+   */
+  public static double[] discretize(double vx, double vy, double omega, double dt, double[] out) {
+    // the twist from the origin to the pose reached by moving at these speeds for dt
+    double dtheta = omega * dt;
+    double halfDtheta = dtheta / 2;
+    double cosMinusOne = Math.cos(dtheta) - 1;
+    double halfThetaByTanOfHalfDtheta =
+        Math.abs(cosMinusOne) < 1e-9
+            ? 1 - dtheta * dtheta / 12
+            : -(halfDtheta * Math.sin(dtheta)) / cosMinusOne;
+    double tx = vx * dt;
+    double ty = vy * dt;
+    out[0] = (tx * halfThetaByTanOfHalfDtheta + ty * halfDtheta) / dt;
+    out[1] = (ty * halfThetaByTanOfHalfDtheta - tx * halfDtheta) / dt;
+    out[2] = omega;
+    return out;
+  }
+
+  /**
+   * Calculates module speeds and angles from chassis speeds. If the chassis is not moving, the
+   * module angles are left unchanged, so modules hold their last heading.
+   *
+   * @param vx The robot relative x velocity, in meters per second.
+   * @param vy The robot relative y velocity, in meters per second.
+   * @param omega The angular velocity, in radians per second.
+   * @param speeds The array to write module speeds to, in meters per second.
+   * @param angles The array to write module angles to, in radians within [-pi, pi].
+   */
+  public static void toModuleStates(
+      double vx, double vy, double omega, double[] speeds, double[] angles) {
+    if (vx == 0 && vy == 0 && omega == 0) {
+      speeds[0] = speeds[1] = speeds[2] = speeds[3] = 0;
+      return;
+    }
+    module(0, vx - omega * Y0, vy + omega * X0, speeds, angles);
+    module(1, vx - omega * Y1, vy + omega * X1, speeds, angles);
+    module(2, vx - omega * Y2, vy + omega * X2, speeds, angles);
+    module(3, vx - omega * Y3, vy + omega * X3, speeds, angles);
+  }
+
+  private static void module(int i, double mvx, double mvy, double[] speeds, double[] angles) {
+    speeds[i] = Math.hypot(mvx, mvy);
+    angles[i] = Math.atan2(mvy, mvx);
+  }
+
+  /**
+   * Scales module speeds down, keeping their ratios, so that none exceed a maximum.
+   *
+   * @param speeds The module speeds to scale in place.
+   * @param max The maximum module speed.
+   */
+  public static void desaturate(double[] speeds, double max) {
+    double highest =
+        Math.max(
+            Math.max(Math.abs(speeds[0]), Math.abs(speeds[1])),
+            Math.max(Math.abs(speeds[2]), Math.abs(speeds[3])));
+    if (highest > max) {
+      double scale = max / highest;
+      speeds[0] *= scale;
+      speeds[1] *= scale;
+      speeds[2] *= scale;
+      speeds[3] *= scale;
+    }
+  }
+
+  /**
+   * Calculates chassis speeds from module speeds and angles, as the least squares fit to all four.
+   *
+   * @param speeds The module speeds, in meters per second.
+   * @param angles The module angles, in radians.
+   * @param out The array to write {@code {vx, vy, omega}} to.
+   * @return {@code out}, for chaining.
+   */
+  public static double[] toChassisSpeeds(double[] speeds, double[] angles, double[] out) {
+    double vx = 0, vy = 0, omega = 0;
+    for (int i = 0; i < MODULES; i++) {
+      double mvx = speeds[i] * Math.cos(angles[i]);
+      double mvy = speeds[i] * Math.sin(angles[i]);
+      vx += FORWARD[0][2 * i] * mvx + FORWARD[0][2 * i + 1] * mvy;
+      vy += FORWARD[1][2 * i] * mvx + FORWARD[1][2 * i + 1] * mvy;
+      omega += FORWARD[2][2 * i] * mvx + FORWARD[2][2 * i + 1] * mvy;
+    }
+    out[0] = vx;
+    out[1] = vy;
+    out[2] = omega;
+    return out;
+  }
+}
@@ -3,6 +3,7 @@ package org.sciborgs1155.robot.drive;
 import static edu.wpi.first.units.Units.Seconds;
 import static org.sciborgs1155.robot.Constants.PERIOD;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import edu.wpi.first.math.geometry.Rotation2d;
@@ -25,6 +26,7 @@ public class SwerveModule implements Logged, AutoCloseable {
   }
 
   private final ModuleIO hardware;
+  @Log.NT private final ModuleIO.Inputs inputs = new ModuleIO.Inputs();
 
   private final PIDController driveFeedback;
   private final PIDController turnFeedback;
@@ -32,7 +34,14 @@ public class SwerveModule implements Logged, AutoCloseable {
   private final SimpleMotorFeedforward driveTranslationFeedforward;
   private final SimpleMotorFeedforward driveRotationFeedforward;
 
-  private SwerveModuleState setpoint = new SwerveModuleState();
+  // updated in place, so that setting a new setpoint does not allocate a new state
+  private final SwerveModuleState setpoint = new SwerveModuleState();
+
+  // sensor readings from the last update, reused every tick
+  private final SwerveModuleState state = new SwerveModuleState();
+  private final SwerveModulePosition position = new SwerveModulePosition();
+  private double angle = 0;
+  private Rotation2d rotation = new Rotation2d();
 
   public final String name;
 
@@ -61,28 +70,46 @@ public class SwerveModule implements Logged, AutoCloseable {
         new SimpleMotorFeedforward(Driving.FF.S, Driving.FF.V, Driving.FF.kA_linear);
     driveRotationFeedforward =
         new SimpleMotorFeedforward(Driving.FF.S, Driving.FF.V, Driving.FF.kA_angular);
+  }
 
-    setpoint = new SwerveModuleState();
+  /**
+   * Reads every sensor on the module once, to be returned by {@link #state()} and {@link
+   * #position()} until the next update.
+   *
+   * <p>This method should be called periodically, before anything reads the module.
+   */
+  public void update() {
+    hardware.updateInputs(inputs);
+    double angle = inputs.angle;
+    // a new rotation is only needed when the module has turned
+    if (angle != this.angle) {
+      this.angle = angle;
+      rotation = Rotation2d.fromRadians(angle);
+    }
+    state.speedMetersPerSecond = inputs.driveVelocity;
+    state.angle = rotation;
+    position.distanceMeters = inputs.drivePosition;
+    position.angle = rotation;
   }
 
   /**
-   * Returns the current state of the module.
+   * Returns the state of the module as of the last {@link #update()}.
    *
-   * @return The current state of the module.
+   * @return The state of the module, which is reused and must not be modified.
    */
   @Log.NT
   public SwerveModuleState state() {
-    return new SwerveModuleState(hardware.driveVelocity(), hardware.rotation());
+    return state;
   }
 
   /**
-   * Returns the current position of the module.
+   * Returns the position of the module as of the last {@link #update()}.
    *
-   * @return The current position of the module.
+   * @return The position of the module, which is reused and must not be modified.
    */
   @Log.NT
   public SwerveModulePosition position() {
-    return new SwerveModulePosition(hardware.drivePosition(), hardware.rotation());
+    return position;
   }
 
   /**
@@ -96,10 +123,30 @@ public class SwerveModule implements Logged, AutoCloseable {
    *     translational velocity being requested of the entire swerve drive. 1 for only translation,
    */
   public void updateSetpoint(SwerveModuleState setpoint, ControlMode mode, double movementRatio) {
+    updateSetpoint(setpoint.speedMetersPerSecond, setpoint.angle.getRadians(), mode, movementRatio);
+  }
+
+  /**
+   * Updates controllers based on an optimized desired state and actuates the module accordingly.
+   *
+   * <p>This method should be called periodically.
+   *
+   * @param speed The desired speed of the module, in meters per second.
+   * @param angle The desired angle of the module, in radians.
+   * @param mode The control mode to use when calculating drive voltage.
+   * @param movementRatio The ratio of translational velocity to the sum of rotational and
+   *     translational velocity being requested of the entire swerve drive. 1 for only translation,
+   */
+  public void updateSetpoint(double speed, double angle, ControlMode mode, double movementRatio) {
     // Optimize the reference state to avoid spinning further than 90 degrees
-    setpoint = SwerveModuleState.optimize(setpoint, hardware.rotation());
+    double error = MathUtil.angleModulus(angle - this.angle);
+    if (Math.abs(error) > Math.PI / 2) {
+      speed = -speed;
+      angle = MathUtil.angleModulus(angle + Math.PI);
+      error = MathUtil.angleModulus(error + Math.PI);
+    }
     // Scale setpoint by cos of turning error to reduce tread wear
-    setpoint.speedMetersPerSecond *= setpoint.angle.minus(hardware.rotation()).getCos();
+    speed *= Math.cos(error);
 
     // Calculate two feedforward values for using different kA depending on if the robot is rotating
     // or translating.
@@ -107,38 +154,31 @@ public class SwerveModule implements Logged, AutoCloseable {
         switch (mode) {
           case CLOSED_LOOP_VELOCITY ->
               driveTranslationFeedforward.calculate(
-                  this.setpoint.speedMetersPerSecond,
-                  setpoint.speedMetersPerSecond,
-                  PERIOD.in(Seconds));
-          case OPEN_LOOP_VELOCITY ->
-              driveTranslationFeedforward.calculate(setpoint.speedMetersPerSecond);
+                  setpoint.speedMetersPerSecond, speed, PERIOD.in(Seconds));
+          case OPEN_LOOP_VELOCITY -> driveTranslationFeedforward.calculate(speed);
         };
 
     double driveRVolts =
         switch (mode) {
           case CLOSED_LOOP_VELOCITY ->
               driveRotationFeedforward.calculate(
-                  this.setpoint.speedMetersPerSecond,
-                  setpoint.speedMetersPerSecond,
-                  PERIOD.in(Seconds));
-          case OPEN_LOOP_VELOCITY ->
-              driveRotationFeedforward.calculate(setpoint.speedMetersPerSecond);
+                  setpoint.speedMetersPerSecond, speed, PERIOD.in(Seconds));
+          case OPEN_LOOP_VELOCITY -> driveRotationFeedforward.calculate(speed);
         };
 
     double driveVolts = driveTVolts * movementRatio + driveRVolts * (1 - movementRatio);
 
     if (mode == ControlMode.CLOSED_LOOP_VELOCITY) {
-      driveVolts +=
-          driveFeedback.calculate(hardware.driveVelocity(), setpoint.speedMetersPerSecond);
+      driveVolts += driveFeedback.calculate(state.speedMetersPerSecond, speed);
     }
 
-    double turnVolts =
-        turnFeedback.calculate(hardware.rotation().getRadians(), setpoint.angle.getRadians());
+    double turnVolts = turnFeedback.calculate(this.angle, angle);
 
     hardware.setDriveVoltage(driveVolts);
     hardware.setTurnVoltage(turnVolts);
 
-    this.setpoint = setpoint;
+    setpoint.speedMetersPerSecond = speed;
+    setpoint.angle = Rotation2d.fromRadians(angle);
   }
 
   /**
@@ -152,8 +192,7 @@ public class SwerveModule implements Logged, AutoCloseable {
   public void updateDriveVoltage(Rotation2d angle, double voltage) {
     setpoint.angle = angle;
 
-    double turnVolts =
-        turnFeedback.calculate(hardware.rotation().getRadians(), setpoint.angle.getRadians());
+    double turnVolts = turnFeedback.calculate(this.angle, setpoint.angle.getRadians());
 
     hardware.setDriveVoltage(voltage);
     hardware.setTurnVoltage(turnVolts);
@@ -83,6 +83,11 @@ public class TalonModule implements ModuleIO {
     return Rotation2d.fromRadians(turnEncoder.getPosition());
   }
 
+  @Override
+  public double angle() {
+    return turnEncoder.getPosition();
+  }
+
   @Override
   public void resetEncoders() {
     driveMotor.setPosition(0);
@@ -9,19 +9,28 @@ import edu.wpi.first.math.filter.Debouncer.DebounceType;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import java.util.Optional;
 import monologue.Annotations.Log;
 import monologue.Logged;
+import org.sciborgs1155.lib.InputUpdater;
+import org.sciborgs1155.lib.ProfiledSubsystem;
 import org.sciborgs1155.robot.Robot;
 import org.sciborgs1155.robot.commands.NoteVisualizer;
 
-public class Feeder extends SubsystemBase implements AutoCloseable, Logged {
+public class Feeder extends ProfiledSubsystem implements AutoCloseable, Logged {
+
   @Log.NT private final FeederIO feeder;
+  @Log.NT private final FeederIO.Inputs inputs = new FeederIO.Inputs();
 
-  /** Creates a real or non-existent feeder based on {@link Robot#isReal()}. */
+  /**
+   * Creates a real, replayed, or non-existent feeder based on {@link Robot#isReal()} and {@link
+   * Robot#isReplay()}.
+   */
   public static Feeder create() {
+    if (Robot.isReplay()) {
+      return new Feeder(new ReplayFeeder("/Robot/feeder/inputs"));
+    }
     return Robot.isReal() ? new Feeder(new RealFeeder()) : new Feeder(new NoFeeder());
   }
 
@@ -32,6 +41,7 @@ public class Feeder extends SubsystemBase implements AutoCloseable, Logged {
 
   public Feeder(FeederIO feeder) {
     this.feeder = feeder;
+    InputUpdater.register(inputs, feeder::updateInputs);
   }
 
   public Command runFeeder(double power) {
@@ -76,18 +86,18 @@ public class Feeder extends SubsystemBase implements AutoCloseable, Logged {
    * @return A trigger based on the upper feeder beambreak.
    */
   public Trigger noteAtShooter() {
-    return new Trigger(feeder::beambreak)
+    return new Trigger(() -> inputs.beambreak)
         .negate()
         .debounce(DEBOUNCE_TIME.in(Seconds), DebounceType.kFalling);
   }
 
   @Log.NT
   public boolean stalling() {
-    return feeder.current() > DCMotor.getNeoVortex(1).stallCurrentAmps;
+    return inputs.current > DCMotor.getNeoVortex(1).stallCurrentAmps;
   }
 
   @Override
-  public void periodic() {
+  protected void profiledPeriodic() {
     log("command", Optional.ofNullable(getCurrentCommand()).map(Command::getName).orElse("none"));
   }
 
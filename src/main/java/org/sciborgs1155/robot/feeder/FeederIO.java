@@ -1,8 +1,25 @@
 package org.sciborgs1155.robot.feeder;
 
+import monologue.Annotations.Log;
 import monologue.Logged;
 
 public interface FeederIO extends AutoCloseable, Logged {
+  /** Sensor readings from the feeder, read once per loop. */
+  public static class Inputs implements Logged {
+    @Log.NT public double current;
+    @Log.NT public boolean beambreak;
+  }
+
+  /**
+   * Reads every sensor into inputs.
+   *
+   * @param inputs The inputs to fill.
+   */
+  default void updateInputs(Inputs inputs) {
+    inputs.current = current();
+    inputs.beambreak = beambreak();
+  }
+
   void setPower(double power);
 
   double current();
@@ -10,7 +10,6 @@ import com.revrobotics.CANSparkBase.IdleMode;
 import com.revrobotics.CANSparkFlex;
 import com.revrobotics.CANSparkLowLevel.MotorType;
 import edu.wpi.first.wpilibj.DigitalInput;
-import monologue.Annotations.Log;
 import org.sciborgs1155.lib.SparkUtils;
 
 public class RealFeeder implements FeederIO {
@@ -40,7 +39,6 @@ public class RealFeeder implements FeederIO {
   }
 
   @Override
-  @Log.NT
   public boolean beambreak() {
     return beambreak.get();
   }
@@ -0,0 +1,35 @@
+package org.sciborgs1155.robot.feeder;
+
+import org.sciborgs1155.lib.LogReplay;
+
+/** FeederIO implementation that plays back recorded inputs, see {@link LogReplay}. */
+public class ReplayFeeder implements FeederIO {
+  private final String current;
+  private final String beambreak;
+
+  /**
+   * Creates a feeder that plays back recorded inputs.
+   *
+   * @param inputs The logged path of the feeder's inputs, such as {@code /Robot/feeder/inputs}.
+   */
+  public ReplayFeeder(String inputs) {
+    current = "NT:" + inputs + "/current";
+    beambreak = "NT:" + inputs + "/beambreak";
+  }
+
+  @Override
+  public void setPower(double power) {}
+
+  @Override
+  public double current() {
+    return LogReplay.getDouble(current, 0);
+  }
+
+  @Override
+  public boolean beambreak() {
+    return LogReplay.getBoolean(beambreak, true);
+  }
+
+  @Override
+  public void close() throws Exception {}
+}
@@ -8,16 +8,21 @@ import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.wpilibj.event.EventLoop;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import java.util.Optional;
 import monologue.Annotations.Log;
 import monologue.Logged;
+import org.sciborgs1155.lib.InputUpdater;
+import org.sciborgs1155.lib.ProfiledSubsystem;
 import org.sciborgs1155.robot.Robot;
 import org.sciborgs1155.robot.commands.NoteVisualizer;
 
-public class Intake extends SubsystemBase implements Logged, AutoCloseable {
+public class Intake extends ProfiledSubsystem implements Logged, AutoCloseable {
+
   public static Intake create() {
+    if (Robot.isReplay()) {
+      return new Intake(new ReplayIntake("/Robot/intake/inputs"));
+    }
     return Robot.isReal() ? new Intake(new RealIntake()) : new Intake(new NoIntake());
   }
 
@@ -26,13 +31,16 @@ public class Intake extends SubsystemBase implements Logged, AutoCloseable {
   }
 
   private final IntakeIO hardware;
+  @Log.NT private final IntakeIO.Inputs inputs = new IntakeIO.Inputs();
 
   private final EventLoop intakeTriggerPoller = new EventLoop();
   private final Trigger intakeTrigger;
 
   public Intake(IntakeIO hardware) {
     this.hardware = hardware;
+    InputUpdater.register(inputs, hardware::updateInputs);
 
+    // polled faster than the main loop, so read directly instead of from inputs
     intakeTrigger = new Trigger(intakeTriggerPoller, hardware::seenNote);
     intakeTrigger.onFalse(stop());
   }
@@ -84,14 +92,14 @@ public class Intake extends SubsystemBase implements Logged, AutoCloseable {
    * @return A trigger based on the intake beambreak.
    */
   public Trigger hasNote() {
-    return new Trigger(hardware::beambreak)
+    return new Trigger(() -> inputs.beambreak)
         .negate()
         .debounce(DEBOUNCE_TIME.in(Seconds), DebounceType.kFalling);
   }
 
   @Log.NT
   public boolean stalling() {
-    return hardware.current() > DCMotor.getNeoVortex(1).stallCurrentAmps;
+    return inputs.current > DCMotor.getNeoVortex(1).stallCurrentAmps;
   }
 
   public void pollTrigger() {
@@ -99,7 +107,7 @@ public class Intake extends SubsystemBase implements Logged, AutoCloseable {
   }
 
   @Override
-  public void periodic() {
+  protected void profiledPeriodic() {
     log("command", Optional.ofNullable(getCurrentCommand()).map(Command::getName).orElse("none"));
   }
 
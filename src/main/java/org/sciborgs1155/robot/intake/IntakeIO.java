@@ -1,8 +1,27 @@
 package org.sciborgs1155.robot.intake;
 
+import monologue.Annotations.Log;
 import monologue.Logged;
 
 public interface IntakeIO extends AutoCloseable, Logged {
+  /** Sensor readings from the intake, read once per loop. */
+  public static class Inputs implements Logged {
+    @Log.NT public boolean beambreak;
+    @Log.NT public double current;
+    @Log.NT public boolean seenNote;
+  }
+
+  /**
+   * Reads every sensor into inputs.
+   *
+   * @param inputs The inputs to fill.
+   */
+  default void updateInputs(Inputs inputs) {
+    inputs.beambreak = beambreak();
+    inputs.current = current();
+    inputs.seenNote = seenNote();
+  }
+
   void setPower(double percentage);
 
   boolean beambreak();
@@ -9,7 +9,6 @@ import com.revrobotics.CANSparkFlex;
 import com.revrobotics.CANSparkLowLevel.MotorType;
 import edu.wpi.first.wpilibj.AsynchronousInterrupt;
 import edu.wpi.first.wpilibj.DigitalInput;
-import monologue.Annotations.Log;
 import org.sciborgs1155.lib.SparkUtils;
 import org.sciborgs1155.robot.Ports;
 
@@ -55,13 +54,11 @@ public class RealIntake implements IntakeIO {
   }
 
   @Override
-  @Log.NT
   public boolean beambreak() {
     return beambreak.get();
   }
 
   @Override
-  @Log.NT
   public double current() {
     return spark.getOutputCurrent();
   }
@@ -73,7 +70,6 @@ public class RealIntake implements IntakeIO {
   }
 
   @Override
-  @Log.NT
   public boolean seenNote() {
     return noteDetected;
   }
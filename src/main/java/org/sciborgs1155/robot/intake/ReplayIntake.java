@@ -0,0 +1,42 @@
+package org.sciborgs1155.robot.intake;
+
+import org.sciborgs1155.lib.LogReplay;
+
+/** IntakeIO implementation that plays back recorded inputs, see {@link LogReplay}. */
+public class ReplayIntake implements IntakeIO {
+  private final String beambreak;
+  private final String current;
+  private final String seenNote;
+
+  /**
+   * Creates an intake that plays back recorded inputs.
+   *
+   * @param inputs The logged path of the intake's inputs, such as {@code /Robot/intake/inputs}.
+   */
+  public ReplayIntake(String inputs) {
+    beambreak = "NT:" + inputs + "/beambreak";
+    current = "NT:" + inputs + "/current";
+    seenNote = "NT:" + inputs + "/seenNote";
+  }
+
+  @Override
+  public void setPower(double percentage) {}
+
+  @Override
+  public boolean beambreak() {
+    return LogReplay.getBoolean(beambreak, true);
+  }
+
+  @Override
+  public double current() {
+    return LogReplay.getDouble(current, 0);
+  }
+
+  @Override
+  public boolean seenNote() {
+    return LogReplay.getBoolean(seenNote, false);
+  }
+
+  @Override
+  public void close() {}
+}
@@ -0,0 +1,115 @@
+package org.sciborgs1155.robot.led;
+
+import static edu.wpi.first.units.Units.Seconds;
+
+import edu.wpi.first.units.Measure;
+import edu.wpi.first.units.Time;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A segment of the strip showing a pattern over the layers below it. Layers are composited every
+ * tick by {@link LedStrip}, lowest priority first, so several indications can share the strip.
+ *
+ * <p>Commands from {@link #show} don't require the strip, so they run alongside whichever command
+ * sets the background.
+ *
+ * <p>Layers are set from the main loop and read by the strip's render thread, so what a layer shows
+ * is swapped atomically as one immutable {@link Look}.
+ */
+public final class Layer {
+  /** What a layer shows: a pattern, indexed from the start of the segment, and its opacity. */
+  static record Look(Pattern pattern, int alpha) {}
+
+  static final Look HIDDEN = new Look(null, 0);
+
+  final int priority;
+  final int start;
+  final int end;
+
+  final AtomicReference<Look> look = new AtomicReference<>(HIDDEN);
+
+  Layer(int priority, int start, int end) {
+    if (start < 0 || end > LedConstants.LED_LENGTH || start >= end) {
+      throw new IllegalArgumentException("Invalid segment [" + start + ", " + end + ")");
+    }
+    this.priority = priority;
+    this.start = start;
+    this.end = end;
+  }
+
+  /**
+   * Sets the pattern shown on this layer, which is indexed from the start of the segment.
+   *
+   * @param pattern The pattern, or null to hide the layer.
+   * @param alpha The opacity of the layer, from 0 to 255.
+   */
+  public void set(Pattern pattern, int alpha) {
+    alpha = Math.max(0, Math.min(255, alpha));
+    Look current = look.get();
+    // commands set their pattern every loop, which is usually unchanged
+    if (current.pattern() == pattern && current.alpha() == alpha) {
+      return;
+    }
+    look.set(pattern == null ? HIDDEN : new Look(pattern, alpha));
+  }
+
+  /**
+   * Sets an opaque pattern shown on this layer.
+   *
+   * @param pattern The pattern, or null to hide the layer.
+   */
+  public void set(Pattern pattern) {
+    set(pattern, 255);
+  }
+
+  /**
+   * Shows a pattern on this layer while the command runs.
+   *
+   * @param pattern The pattern to show.
+   * @param alpha The opacity of the layer, from 0 to 255.
+   * @return The command to show the pattern.
+   */
+  public Command show(Pattern pattern, int alpha) {
+    return Commands.startEnd(
+            () -> set(pattern, alpha),
+            () -> {
+              // another command may have taken over the layer since
+              if (look.get().pattern() == pattern) {
+                set(null);
+              }
+            })
+        .withName("show");
+  }
+
+  /**
+   * Shows an opaque pattern on this layer while the command runs.
+   *
+   * @param pattern The pattern to show.
+   * @return The command to show the pattern.
+   */
+  public Command show(Pattern pattern) {
+    return show(pattern, 255);
+  }
+
+  /**
+   * Briefly shows a pattern on this layer.
+   *
+   * @param pattern The pattern to show.
+   * @param duration How long to show it.
+   * @return The command to flash the pattern.
+   */
+  public Command flash(Pattern pattern, Measure<Time> duration) {
+    return show(pattern).withTimeout(duration.in(Seconds)).withName("flash");
+  }
+
+  /** Blends two packed colors, with integer math. */
+  static int blend(int below, int above, int alpha) {
+    int inverse = 255 - alpha;
+    int r = ((above >> 16 & 0xFF) * alpha + (below >> 16 & 0xFF) * inverse) / 255;
+    int g = ((above >> 8 & 0xFF) * alpha + (below >> 8 & 0xFF) * inverse) / 255;
+    int b = ((above & 0xFF) * alpha + (below & 0xFF) * inverse) / 255;
+    return r << 16 | g << 8 | b;
+  }
+}
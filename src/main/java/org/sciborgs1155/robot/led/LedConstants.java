@@ -1,11 +1,23 @@
 package org.sciborgs1155.robot.led;
 
+import static edu.wpi.first.units.Units.Microseconds;
+import static edu.wpi.first.units.Units.Seconds;
+
+import edu.wpi.first.units.Measure;
+import edu.wpi.first.units.Time;
 import edu.wpi.first.wpilibj.util.Color;
 
 public class LedConstants {
   // Change to be length of LED strip
   public static final int LED_LENGTH = 60;
 
+  // Patterns advance one tick per TICK, however often frames are rendered
+  public static final Measure<Time> TICK = Seconds.of(0.02);
+  public static final long TICK_MICROS = (long) TICK.in(Microseconds);
+
+  // Time between frames rendered by the LED thread
+  public static final Measure<Time> FRAME_PERIOD = Seconds.of(1.0 / 30);
+
   // Color related
   public static final Color[] COLOR_POOL = {
     Color.kRed, Color.kOrange, Color.kYellow, Color.kGreen, Color.kBlue, Color.kPurple
@@ -14,4 +26,38 @@ public class LedConstants {
   public static final Color[] FIRE_COLORS = {
     Color.kRed, Color.kOrange, Color.kYellow, Color.kOrangeRed, Color.kOrange
   };
+
+  // Palettes, precomputed so that patterns don't evaluate colors or trig per LED
+  public static final int[] COLOR_POOL_PALETTE = new int[COLOR_POOL.length];
+  public static final int[] FIRE_PALETTE = new int[FIRE_COLORS.length];
+
+  /**
+   * One period of a rainbow, where each channel is a phase shifted sine. Length is a power of 2.
+   */
+  public static final int[] RAINBOW_PALETTE = new int[1024];
+
+  /** How far the rainbow moves along its palette per tick (0.1 radians). */
+  public static final double RAINBOW_PER_TICK = 0.1 * RAINBOW_PALETTE.length / (2 * Math.PI);
+
+  /** How far the rainbow moves along its palette per LED. */
+  public static final double RAINBOW_PER_LED =
+      1 / (LED_LENGTH * (Math.PI / 2)) * RAINBOW_PALETTE.length / (2 * Math.PI);
+
+  static {
+    for (int i = 0; i < COLOR_POOL.length; i++) {
+      COLOR_POOL_PALETTE[i] = Pattern.pack(COLOR_POOL[i]);
+    }
+    for (int i = 0; i < FIRE_COLORS.length; i++) {
+      FIRE_PALETTE[i] = Pattern.pack(FIRE_COLORS[i]);
+    }
+    final double scalar = 255 / 2;
+    for (int i = 0; i < RAINBOW_PALETTE.length; i++) {
+      final double theta = 2 * Math.PI * i / RAINBOW_PALETTE.length;
+      RAINBOW_PALETTE[i] =
+          Pattern.pack(
+              (int) ((-Math.sin(theta) + 1) * scalar),
+              (int) ((Math.sin(theta) + 1) * scalar),
+              (int) ((Math.cos(theta) + 1) * scalar));
+    }
+  }
 }
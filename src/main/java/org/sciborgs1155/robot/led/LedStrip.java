@@ -6,104 +6,196 @@ import static org.sciborgs1155.robot.led.LedConstants.*;
 import edu.wpi.first.wpilibj.AddressableLED;
 import edu.wpi.first.wpilibj.AddressableLEDBuffer;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import java.util.function.Function;
+import java.util.Arrays;
+import java.util.Comparator;
 import monologue.Logged;
 
+/**
+ * The robot's LED strip. Commands set layers from the main loop, and the strip is rendered on its
+ * own thread once started, so animating never takes time from the main loop.
+ */
 public class LedStrip extends SubsystemBase implements Logged, AutoCloseable {
   private final AddressableLED led = new AddressableLED(LED_PORT);
 
   // NOTE: THERE CAN ONLY BE ONE ADDRESABLELED (because roborio)
 
-  static double tick = 0; // needs to be double or else rainbow breaks
+  private final Notifier renderer = new Notifier(this::render);
+
+  // frames are rendered into one array and compared against the last one sent, then swapped,
+  // guarded by this
+  private int[] frame = new int[LED_LENGTH];
+  private int[] sent = new int[LED_LENGTH];
+  private final AddressableLEDBuffer buffer = new AddressableLEDBuffer(LED_LENGTH);
+
+  // sorted by priority, lowest first, and replaced rather than modified
+  private volatile Layer[] layers = new Layer[0];
+
+  /** The layer set by this subsystem's commands, beneath every other layer. */
+  public final Layer background = layer(0, 0, LED_LENGTH);
+
+  /** Whether the intake has a note, on the first half of the strip. */
+  public final Layer intakeStatus = layer(1, 0, LED_LENGTH / 2);
+
+  /** Whether the feeder has a note, on the second half of the strip. */
+  public final Layer feederStatus = layer(1, LED_LENGTH / 2, LED_LENGTH);
+
+  /** Transient flashes over the whole strip. */
+  public final Layer alert = layer(2, 0, LED_LENGTH);
 
   public LedStrip() {
     led.setLength(LED_LENGTH);
-    led.setData(new AddressableLEDBuffer(LED_LENGTH));
+    led.setData(buffer);
     led.start();
+    renderer.setName("LedStrip");
+  }
+
+  /**
+   * Starts rendering on a separate thread.
+   *
+   * @param period The time between frames, in seconds.
+   */
+  public void start(double period) {
+    renderer.startPeriodic(period);
   }
 
-  public Command set(AddressableLEDBuffer addressableLEDBuffer) {
-    return run(() -> led.setData(addressableLEDBuffer));
+  /**
+   * Returns the tick patterns are rendered at, which advances every {@link LedConstants#TICK}
+   * however often frames are rendered.
+   */
+  public static int tick() {
+    return (int) (RobotController.getFPGATime() / TICK_MICROS);
+  }
+
+  /**
+   * Creates a layer over a segment of the strip. Layers with higher priority are drawn over lower
+   * ones, and layers with equal priority in the order they were created.
+   *
+   * @param priority The layer's priority.
+   * @param start The first LED of the segment, inclusive.
+   * @param end The last LED of the segment, exclusive.
+   * @return The new, hidden layer.
+   */
+  public synchronized Layer layer(int priority, int start, int end) {
+    Layer layer = new Layer(priority, start, end);
+    Layer[] sorted = Arrays.copyOf(layers, layers.length + 1);
+    sorted[layers.length] = layer;
+    Arrays.sort(sorted, Comparator.comparingInt(l -> l.priority));
+    layers = sorted;
+    return layer;
+  }
+
+  /**
+   * Composites every layer for the current tick, and sends the frame to the strip if it changed.
+   * This is run by the render thread once started, and may be called directly otherwise.
+   *
+   * @return Whether the frame changed and was sent.
+   */
+  public synchronized boolean render() {
+    int tick = tick();
+    Arrays.fill(frame, 0);
+    for (Layer layer : layers) {
+      Layer.Look look = layer.look.get();
+      Pattern pattern = look.pattern();
+      int alpha = look.alpha();
+      if (pattern == null || alpha == 0) {
+        continue;
+      }
+      for (int i = layer.start; i < layer.end; i++) {
+        int color = pattern.color(i - layer.start, tick);
+        frame[i] = alpha == 255 ? color : Layer.blend(frame[i], color, alpha);
+      }
+    }
+
+    boolean dirty = false;
+    for (int i = 0; i < LED_LENGTH; i++) {
+      dirty |= frame[i] != sent[i];
+    }
+    if (!dirty) {
+      return false;
+    }
+    for (int i = 0; i < LED_LENGTH; i++) {
+      int color = frame[i];
+      buffer.setRGB(i, color >> 16 & 0xFF, color >> 8 & 0xFF, color & 0xFF);
+    }
+    led.setData(buffer);
+    int[] swap = sent;
+    sent = frame;
+    frame = swap;
+    return true;
+  }
+
+  /**
+   * Returns the color last sent to an LED.
+   *
+   * @param index The LED.
+   * @return The color, packed as 0xRRGGBB.
+   */
+  public synchronized int color(int index) {
+    return sent[index];
+  }
+
+  public Command set(Pattern pattern) {
+    return run(() -> background.set(pattern));
   }
 
   public Command green() {
-    return set(solidColor(Color.kGreen));
+    return set(Pattern.solid(Color.kGreen));
   }
 
   public Command blue() {
-    return set(solidColor(Color.kDeepSkyBlue));
+    return set(Pattern.solid(Color.kDeepSkyBlue));
   }
 
   public Command bxSciFlash() {
-    return run(() -> led.setData(movingColor(Color.kGreen, Color.kYellow, 5)));
+    return set(Pattern.moving(Color.kGreen, Color.kYellow, 5));
   }
 
   public Command fire() {
-    return run(() -> led.setData(genBuffer(i -> FIRE_COLORS[(int) (Math.floor((i + tick) % 5))])));
+    return set(Pattern.fire());
   }
 
   public Command rainbow() {
-    return run(() -> led.setData(rainbowAddressableLEDBuffer()));
+    return set(Pattern.rainbow());
   }
 
   public AddressableLEDBuffer rainbowAddressableLEDBuffer() {
-    final double scalar = 255 / 2;
-    return genBuffer(
-        i -> {
-          final double theta = tick / 10 + i / (LED_LENGTH * (Math.PI / 2));
-          return new Color(
-              (int) ((-Math.sin(theta) + 1) * scalar),
-              (int) ((Math.sin(theta) + 1) * scalar),
-              (int) ((Math.cos(theta) + 1) * scalar));
-        });
+    return genBuffer(Pattern.rainbow(), tick());
   }
 
   public Command sciborgs() {
-    return run(() -> led.setData(movingColor(Color.kYellow, Color.kYellow, 4)));
+    return set(Pattern.moving(Color.kYellow, Color.kYellow, 4));
   }
 
   public Command femaidens() {
-    return set(alternatingColor(Color.kPurple, Color.kLime));
+    return set(Pattern.alternating(Color.kPurple, Color.kLime));
   }
 
   public Command alliance() {
     var alliance = DriverStation.getAlliance();
+    // chosen when the command is created, and offset by the tick at that time
+    int offset = tick() % 2;
     if (alliance.isPresent()) {
       if (alliance.get() == DriverStation.Alliance.Blue) {
-        return set(genBuffer(i -> (i + tick) % 2 == 0 ? Color.kBlue : Color.kDarkCyan));
+        return set(shift(Pattern.alternating(Color.kBlue, Color.kDarkCyan), offset));
       }
       if (alliance.get() == DriverStation.Alliance.Red) {
-        return set(genBuffer(i -> (i + tick) % 2 == 0 ? Color.kRed : Color.kCrimson));
+        return set(shift(Pattern.alternating(Color.kRed, Color.kCrimson), offset));
       }
     }
-    return set(genBuffer(i -> (i + tick) % 2 == 0 ? Color.kOrange : Color.kYellow));
+    return set(shift(Pattern.alternating(Color.kOrange, Color.kYellow), offset));
   }
 
   public Command chase() {
-    return run(() -> led.setData(movingColor(Color.kDeepSkyBlue, Color.kCrimson, 5)));
+    return set(Pattern.moving(Color.kDeepSkyBlue, Color.kCrimson, 5));
   }
 
-  private static Color[] raindrop = new Color[LED_LENGTH];
-
   public Command raindrop() {
-    return run(
-        () -> {
-          if (Math.random() < 0.5) {
-            raindrop[0] = Color.kBlack;
-          } else {
-            if (Math.round(Math.random()) == 0) {
-              raindrop[0] = COLOR_POOL[(int) (Math.round(Math.random() * (COLOR_POOL.length - 1)))];
-            }
-          }
-
-          for (int i = raindrop.length - 1; i > 0; i -= 1) {
-            raindrop[i] = raindrop[i - 1];
-          }
-          led.setData(genBuffer(i -> raindrop[i] == null ? Color.kBlack : raindrop[i]));
-        });
+    return set(Pattern.raindrop((long) (Math.random() * Long.MAX_VALUE)));
   }
 
   public Command none() {
@@ -111,7 +203,7 @@ public class LedStrip extends SubsystemBase implements Logged, AutoCloseable {
   }
 
   public AddressableLEDBuffer testAlternatingColor() {
-    return alternatingColor(Color.kYellow, Color.kDarkGray);
+    return genBuffer(Pattern.alternating(Color.kYellow, Color.kDarkGray), tick());
   }
 
   public static String getBufferDataString(AddressableLEDBuffer ledBuffer) {
@@ -123,37 +215,29 @@ public class LedStrip extends SubsystemBase implements Logged, AutoCloseable {
   }
 
   /***
-   * Returns an AddressableLEDBuffer based on a function.
+   * Returns a new AddressableLEDBuffer of a pattern, for tests and debugging. The strip renders
+   * its layers into its own buffers with {@link #render()} instead.
    *
-   * @param f A function that takes in an integer and spits out a color.
+   * @param pattern The pattern to render.
+   * @param tick The tick to render at.
    * @return An AddressableLEDBuffer
    */
-  public static AddressableLEDBuffer genBuffer(Function<Integer, Color> f) {
+  public static AddressableLEDBuffer genBuffer(Pattern pattern, int tick) {
     AddressableLEDBuffer buffer = new AddressableLEDBuffer(LED_LENGTH);
-    buffer.forEach((i, r, g, b) -> buffer.setLED(i, f.apply(i)));
+    for (int i = 0; i < LED_LENGTH; i++) {
+      int color = pattern.color(i, tick);
+      buffer.setRGB(i, color >> 16 & 0xFF, color >> 8 & 0xFF, color & 0xFF);
+    }
     return buffer;
   }
 
-  private static AddressableLEDBuffer alternatingColor(Color color1, Color color2) {
-    return genBuffer(i -> i % 2 == 0 ? color1 : color2);
-  }
-
-  private static AddressableLEDBuffer solidColor(Color color1) {
-    return genBuffer(i -> color1);
-  }
-
-  /** "Every (interval) LEDs, LED should be (color 2). Everyting else is (color 1)." */
-  private static AddressableLEDBuffer movingColor(Color color1, Color color2, int interval) {
-    return genBuffer(i -> (i + tick) % interval == 0 ? color2 : color1);
-  }
-
-  @Override
-  public void periodic() {
-    tick += 1;
+  private static Pattern shift(Pattern pattern, int offset) {
+    return (i, tick) -> pattern.color(i + offset, tick);
   }
 
   @Override
   public void close() {
+    renderer.close();
     led.close();
   }
 }
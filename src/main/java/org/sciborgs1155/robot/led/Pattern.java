@@ -0,0 +1,93 @@
+package org.sciborgs1155.robot.led;
+
+import static org.sciborgs1155.robot.led.LedConstants.*;
+
+import edu.wpi.first.wpilibj.util.Color;
+
+/**
+ * A function from an LED's index and the current tick to its color, packed as {@code 0xRRGGBB}.
+ * Patterns are evaluated for every LED every tick, so they should neither allocate nor call
+ * expensive functions; use the precomputed palettes in {@link LedConstants} instead. They are
+ * evaluated on the strip's render thread, so they shouldn't keep mutable state either.
+ */
+@FunctionalInterface
+public interface Pattern {
+  /**
+   * Returns the color of an LED.
+   *
+   * @param i The index of the LED.
+   * @param tick The number of ticks since the strip was created.
+   * @return The packed color.
+   */
+  int color(int i, int tick);
+
+  /** Packs a color as {@code 0xRRGGBB}, rounding the same way {@code AddressableLEDBuffer} does. */
+  static int pack(Color color) {
+    return pack((int) (color.red * 255), (int) (color.green * 255), (int) (color.blue * 255));
+  }
+
+  /** Packs 8 bit components as {@code 0xRRGGBB}. */
+  static int pack(int r, int g, int b) {
+    return (r & 0xFF) << 16 | (g & 0xFF) << 8 | (b & 0xFF);
+  }
+
+  static Pattern solid(Color color) {
+    int c = pack(color);
+    return (i, tick) -> c;
+  }
+
+  static Pattern alternating(Color color1, Color color2) {
+    int c1 = pack(color1);
+    int c2 = pack(color2);
+    return (i, tick) -> i % 2 == 0 ? c1 : c2;
+  }
+
+  /** "Every (interval) LEDs, LED should be (color 2). Everyting else is (color 1)." */
+  static Pattern moving(Color color1, Color color2, int interval) {
+    int c1 = pack(color1);
+    int c2 = pack(color2);
+    return (i, tick) -> (i + tick) % interval == 0 ? c2 : c1;
+  }
+
+  /** Cycles through {@link LedConstants#FIRE_PALETTE}. */
+  static Pattern fire() {
+    return (i, tick) -> FIRE_PALETTE[(i + tick) % FIRE_PALETTE.length];
+  }
+
+  /** Scrolls {@link LedConstants#RAINBOW_PALETTE} along the strip. */
+  static Pattern rainbow() {
+    return (i, tick) ->
+        RAINBOW_PALETTE[
+            (int) (tick * RAINBOW_PER_TICK + i * RAINBOW_PER_LED) & (RAINBOW_PALETTE.length - 1)];
+  }
+
+  /**
+   * Drops of random colors falling one LED per tick. Each drop is off, a new color from {@link
+   * LedConstants#COLOR_POOL_PALETTE}, or the same as the drop before it. Drops are derived from the
+   * tick they entered the strip, so the pattern keeps no state between frames.
+   */
+  static Pattern raindrop(long seed) {
+    return (i, tick) -> {
+      // a run of repeated drops is, on average, only a couple long
+      for (int t = tick - i, k = 0; k < 16; t--, k++) {
+        long hash = mix(seed + t * 0x9e3779b97f4a7c15L);
+        switch ((int) (hash & 3)) {
+          case 0, 1:
+            return 0;
+          case 2:
+            return COLOR_POOL_PALETTE[(int) ((hash >>> 2) % COLOR_POOL_PALETTE.length)];
+          default:
+            // the same as the drop before
+        }
+      }
+      return 0;
+    };
+  }
+
+  /** Scrambles the bits of a number, from SplitMix64. */
+  private static long mix(long x) {
+    x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+    x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+    return x ^ (x >>> 31);
+  }
+}
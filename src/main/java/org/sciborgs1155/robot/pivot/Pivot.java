@@ -21,21 +21,30 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj.util.Color8Bit;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine.Direction;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.DoubleSupplier;
 import monologue.Annotations.Log;
 import monologue.Logged;
 import org.sciborgs1155.lib.InputStream;
+import org.sciborgs1155.lib.InputUpdater;
+import org.sciborgs1155.lib.ProfiledSubsystem;
+import org.sciborgs1155.lib.Telemetry;
+import org.sciborgs1155.lib.Telemetry.Rate;
+import org.sciborgs1155.lib.Telemetry.Registration;
 import org.sciborgs1155.lib.Test;
 import org.sciborgs1155.robot.Constants;
 import org.sciborgs1155.robot.Robot;
 
-public class Pivot extends SubsystemBase implements AutoCloseable, Logged {
+public class Pivot extends ProfiledSubsystem implements AutoCloseable, Logged {
+  private final List<Registration> telemetry = new ArrayList<>();
+
   private final PivotIO hardware;
+  @Log.NT private final PivotIO.Inputs inputs = new PivotIO.Inputs();
   private final SysIdRoutine sysIdRoutine;
 
   // Control
@@ -53,8 +62,14 @@ public class Pivot extends SubsystemBase implements AutoCloseable, Logged {
   @Log.NT
   private final PivotVisualizer setpointVisualizer = new PivotVisualizer(new Color8Bit(0, 0, 255));
 
-  /** Creates a real or simulated pivot based on {@link Robot#isReal()}. */
+  /**
+   * Creates a real, simulated, or replayed pivot based on {@link Robot#isReal()} and {@link
+   * Robot#isReplay()}.
+   */
   public static Pivot create() {
+    if (Robot.isReplay()) {
+      return new Pivot(new ReplayPivot("/Robot/pivot/inputs"));
+    }
     return Robot.isReal() ? new Pivot(new RealPivot()) : new Pivot(new SimPivot());
   }
 
@@ -70,6 +85,17 @@ public class Pivot extends SubsystemBase implements AutoCloseable, Logged {
    */
   public Pivot(PivotIO pivot) {
     this.hardware = pivot;
+    InputUpdater.register(inputs, pivot::updateInputs);
+    telemetry.add(
+        Telemetry.add("/Robot/pivot/rotation", Rate.FAST, Rotation3d.struct, this::rotation, 1e-3));
+    telemetry.add(
+        Telemetry.add("/Robot/pivot/goal", Rate.MEDIUM, Rotation3d.struct, this::goal, 1e-3));
+    telemetry.add(
+        Telemetry.add("/Robot/pivot/setpoint", Rate.FAST, Rotation3d.struct, this::setpoint, 1e-3));
+    telemetry.add(
+        Telemetry.add(
+            "/Robot/pivot/transform", Rate.SLOW, Transform3d.struct, this::transform, 1e-3));
+    telemetry.add(Telemetry.schedule(Rate.SLOW, this::updateVisualizers));
     sysIdRoutine =
         new SysIdRoutine(
             new SysIdRoutine.Config(Volts.per(Second).of(0.5), Volts.of(3), Seconds.of(6)),
@@ -89,7 +115,7 @@ public class Pivot extends SubsystemBase implements AutoCloseable, Logged {
             .andThen(run(() -> pivot.setVoltage(0)))
             .withName("default position"));
 
-    teleop().or(autonomous()).onTrue(Commands.runOnce(() -> pid.reset(hardware.getPosition())));
+    teleop().or(autonomous()).onTrue(Commands.runOnce(() -> pid.reset(inputs.position)));
   }
 
   /**
@@ -127,22 +153,18 @@ public class Pivot extends SubsystemBase implements AutoCloseable, Logged {
     return runOnce(() -> pid.setGoal(goal.getAsDouble())).asProxy();
   }
 
-  @Log.NT
   public Rotation3d rotation() {
-    return new Rotation3d(0.0, hardware.getPosition(), 0.0);
+    return new Rotation3d(0.0, inputs.position, 0.0);
   }
 
-  @Log.NT
   public Rotation3d goal() {
     return new Rotation3d(0.0, pid.getGoal().position, 0.0);
   }
 
-  @Log.NT
   public Rotation3d setpoint() {
     return new Rotation3d(0.0, pid.getSetpoint().position, 0.0);
   }
 
-  @Log.NT
   public Transform3d transform() {
     return new Transform3d(AXLE_FROM_CHASSIS, rotation());
   }
@@ -153,7 +175,7 @@ public class Pivot extends SubsystemBase implements AutoCloseable, Logged {
   }
 
   public double position() {
-    return hardware.getPosition();
+    return inputs.position;
   }
 
   @Log.NT
@@ -162,31 +184,31 @@ public class Pivot extends SubsystemBase implements AutoCloseable, Logged {
   }
 
   public boolean atPosition(double position) {
-    return Math.abs(position - hardware.getPosition()) < POSITION_TOLERANCE.in(Radians);
+    return Math.abs(position - inputs.position) < POSITION_TOLERANCE.in(Radians);
   }
 
   public Command quasistaticForward() {
     return sysIdRoutine
         .quasistatic(Direction.kForward)
-        .until(() -> hardware.getPosition() > MAX_ANGLE.in(Radians) - 0.2);
+        .until(() -> inputs.position > MAX_ANGLE.in(Radians) - 0.2);
   }
 
   public Command quasistaticBack() {
     return sysIdRoutine
         .quasistatic(Direction.kReverse)
-        .until(() -> hardware.getPosition() < MIN_ANGLE.in(Radians) + 0.2);
+        .until(() -> inputs.position < MIN_ANGLE.in(Radians) + 0.2);
   }
 
   public Command dynamicForward() {
     return sysIdRoutine
         .dynamic(Direction.kForward)
-        .until(() -> hardware.getPosition() > MAX_ANGLE.in(Radians) - 0.2);
+        .until(() -> inputs.position > MAX_ANGLE.in(Radians) - 0.2);
   }
 
   public Command dynamicBack() {
     return sysIdRoutine
         .dynamic(Direction.kReverse)
-        .until(() -> hardware.getPosition() < MIN_ANGLE.in(Radians) + 0.2);
+        .until(() -> inputs.position < MIN_ANGLE.in(Radians) + 0.2);
   }
 
   /**
@@ -200,7 +222,7 @@ public class Pivot extends SubsystemBase implements AutoCloseable, Logged {
             ? MAX_ANGLE.in(Radians)
             : MathUtil.clamp(goalAngle, MIN_ANGLE.in(Radians), MAX_ANGLE.in(Radians));
     var prevSetpoint = pid.getSetpoint();
-    double feedback = pid.calculate(hardware.getPosition(), goal);
+    double feedback = pid.calculate(inputs.position, goal);
     double accel = (pid.getSetpoint().velocity - prevSetpoint.velocity) / PERIOD.in(Seconds);
     double feedforward =
         ff.calculate(pid.getSetpoint().position + Math.PI, pid.getSetpoint().velocity, accel);
@@ -221,14 +243,18 @@ public class Pivot extends SubsystemBase implements AutoCloseable, Logged {
   }
 
   @Override
-  public void periodic() {
-    positionVisualizer.setState(hardware.getPosition());
-    setpointVisualizer.setState(setpoint().getY());
+  protected void profiledPeriodic() {
     log("command", Optional.ofNullable(getCurrentCommand()).map(Command::getName).orElse("none"));
   }
 
+  private void updateVisualizers() {
+    positionVisualizer.setState(inputs.position);
+    setpointVisualizer.setState(setpoint().getY());
+  }
+
   @Override
   public void close() throws Exception {
+    telemetry.forEach(Registration::close);
     hardware.close();
     positionVisualizer.close();
     setpointVisualizer.close();
@@ -2,10 +2,30 @@ package org.sciborgs1155.robot.pivot;
 
 import edu.wpi.first.units.Current;
 import edu.wpi.first.units.Measure;
+import monologue.Annotations.Log;
 import monologue.Logged;
 
 /** Represents the hardware of a pivot. */
 public interface PivotIO extends AutoCloseable, Logged {
+  /** Sensor readings from the pivot, read once per loop. */
+  public static class Inputs implements Logged {
+    /** The position of the pivot, in radians. */
+    @Log.NT public double position;
+
+    /** The velocity of the pivot, in radians / second. */
+    @Log.NT public double velocity;
+  }
+
+  /**
+   * Reads every sensor into inputs.
+   *
+   * @param inputs The inputs to fill.
+   */
+  default void updateInputs(Inputs inputs) {
+    inputs.position = getPosition();
+    inputs.velocity = getVelocity();
+  }
+
   /**
    * Sets the pivot's input voltage.
    *
@@ -18,7 +18,6 @@ import edu.wpi.first.units.Current;
 import edu.wpi.first.units.Measure;
 import java.util.List;
 import java.util.Set;
-import monologue.Annotations.Log;
 import org.sciborgs1155.lib.SparkUtils;
 import org.sciborgs1155.lib.SparkUtils.Data;
 import org.sciborgs1155.lib.SparkUtils.Sensor;
@@ -95,7 +94,6 @@ public class RealPivot implements PivotIO {
   }
 
   @Override
-  @Log.NT
   public double getPosition() {
     return encoder.getPosition();
   }
@@ -0,0 +1,42 @@
+package org.sciborgs1155.robot.pivot;
+
+import static edu.wpi.first.units.Units.Radians;
+
+import edu.wpi.first.units.Current;
+import edu.wpi.first.units.Measure;
+import org.sciborgs1155.lib.LogReplay;
+
+/** PivotIO implementation that plays back recorded inputs, see {@link LogReplay}. */
+public class ReplayPivot implements PivotIO {
+  private final String position;
+  private final String velocity;
+
+  /**
+   * Creates a pivot that plays back recorded inputs.
+   *
+   * @param inputs The logged path of the pivot's inputs, such as {@code /Robot/pivot/inputs}.
+   */
+  public ReplayPivot(String inputs) {
+    position = "NT:" + inputs + "/position";
+    velocity = "NT:" + inputs + "/velocity";
+  }
+
+  @Override
+  public void setVoltage(double voltage) {}
+
+  @Override
+  public void setCurrentLimit(Measure<Current> limit) {}
+
+  @Override
+  public double getPosition() {
+    return LogReplay.getDouble(position, PivotConstants.MAX_ANGLE.in(Radians));
+  }
+
+  @Override
+  public double getVelocity() {
+    return LogReplay.getDouble(velocity, 0);
+  }
+
+  @Override
+  public void close() throws Exception {}
+}
@@ -8,7 +8,6 @@ import edu.wpi.first.math.system.plant.LinearSystemId;
 import edu.wpi.first.units.Current;
 import edu.wpi.first.units.Measure;
 import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
-import monologue.Annotations.Log;
 import org.sciborgs1155.robot.Constants;
 
 public class SimPivot implements PivotIO {
@@ -36,7 +35,6 @@ public class SimPivot implements PivotIO {
   public void setCurrentLimit(Measure<Current> limit) {}
 
   @Override
-  @Log.NT
   public double getPosition() {
     return sim.getAngleRads();
   }
@@ -0,0 +1,29 @@
+package org.sciborgs1155.robot.shooter;
+
+import org.sciborgs1155.lib.LogReplay;
+
+/** WheelIO implementation that plays back recorded inputs, see {@link LogReplay}. */
+public class ReplayWheel implements WheelIO {
+  private final String velocity;
+
+  /**
+   * Creates a flywheel that plays back recorded inputs.
+   *
+   * @param inputs The logged path of the flywheel's inputs, such as {@code
+   *     /Robot/shooter/topInputs}.
+   */
+  public ReplayWheel(String inputs) {
+    velocity = "NT:" + inputs + "/velocity";
+  }
+
+  @Override
+  public void close() throws Exception {}
+
+  @Override
+  public void setVoltage(double voltage) {}
+
+  @Override
+  public double velocity() {
+    return LogReplay.getDouble(velocity, 0);
+  }
+}
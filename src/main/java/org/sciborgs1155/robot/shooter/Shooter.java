@@ -17,9 +17,10 @@ import edu.wpi.first.units.Measure;
 import edu.wpi.first.units.Velocity;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine.Direction;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.DoubleSupplier;
@@ -27,15 +28,24 @@ import monologue.Annotations.Log;
 import monologue.Logged;
 import org.sciborgs1155.lib.FakePDH;
 import org.sciborgs1155.lib.InputStream;
+import org.sciborgs1155.lib.InputUpdater;
+import org.sciborgs1155.lib.ProfiledSubsystem;
+import org.sciborgs1155.lib.Telemetry;
+import org.sciborgs1155.lib.Telemetry.Rate;
+import org.sciborgs1155.lib.Telemetry.Registration;
 import org.sciborgs1155.lib.Test;
 import org.sciborgs1155.lib.Tuning;
 import org.sciborgs1155.robot.Constants;
 import org.sciborgs1155.robot.Robot;
 import org.sciborgs1155.robot.commands.Shooting;
 
-public class Shooter extends SubsystemBase implements AutoCloseable, Logged {
+public class Shooter extends ProfiledSubsystem implements AutoCloseable, Logged {
+  private final List<Registration> telemetry = new ArrayList<>();
+
   private final WheelIO top;
   private final WheelIO bottom;
+  @Log.NT private final WheelIO.Inputs topInputs = new WheelIO.Inputs();
+  @Log.NT private final WheelIO.Inputs bottomInputs = new WheelIO.Inputs();
 
   @Log.NT private double setpoint;
 
@@ -54,8 +64,16 @@ public class Shooter extends SubsystemBase implements AutoCloseable, Logged {
   private final SysIdRoutine topCharacterization;
   private final SysIdRoutine bottomCharacterization;
 
-  /** Creates real or simulated shooter based on {@link Robot#isReal()}. */
+  /**
+   * Creates a real, simulated, or replayed shooter based on {@link Robot#isReal()} and {@link
+   * Robot#isReplay()}.
+   */
   public static Shooter create() {
+    if (Robot.isReplay()) {
+      return new Shooter(
+          new ReplayWheel("/Robot/shooter/topInputs"),
+          new ReplayWheel("/Robot/shooter/bottomInputs"));
+    }
     return Robot.isReal()
         ? new Shooter(new RealWheel(TOP_MOTOR, true), new RealWheel(BOTTOM_MOTOR, false))
         : new Shooter(new SimWheel(Top.kV, Top.kA), new SimWheel(Bottom.kV, Bottom.kA));
@@ -69,6 +87,17 @@ public class Shooter extends SubsystemBase implements AutoCloseable, Logged {
   public Shooter(WheelIO top, WheelIO bottom) {
     this.top = top;
     this.bottom = bottom;
+    InputUpdater.register(topInputs, top::updateInputs);
+    InputUpdater.register(bottomInputs, bottom::updateInputs);
+    telemetry.add(Telemetry.add("/Robot/shooter/topVelocity", Rate.FAST, this::topVelocity, 1));
+    telemetry.add(
+        Telemetry.add("/Robot/shooter/bottomVelocity", Rate.FAST, this::bottomVelocity, 1));
+    telemetry.add(
+        Telemetry.add(
+            "/Robot/shooter/rotationalVelocity", Rate.MEDIUM, this::rotationalVelocity, 1));
+    telemetry.add(
+        Telemetry.add(
+            "/Robot/shooter/tangentialVelocity", Rate.MEDIUM, this::tangentialVelocity, 0.01));
 
     topPID.setTolerance(VELOCITY_TOLERANCE.in(RadiansPerSecond));
     bottomPID.setTolerance(VELOCITY_TOLERANCE.in(RadiansPerSecond));
@@ -123,14 +152,12 @@ public class Shooter extends SubsystemBase implements AutoCloseable, Logged {
     bottom.setVoltage(voltage);
   }
 
-  @Log.NT
   public double topVelocity() {
-    return top.velocity();
+    return topInputs.velocity;
   }
 
-  @Log.NT
   public double bottomVelocity() {
-    return bottom.velocity();
+    return bottomInputs.velocity;
   }
 
   public void update(double velocitySetpoint) {
@@ -142,9 +169,9 @@ public class Shooter extends SubsystemBase implements AutoCloseable, Logged {
                 -MAX_VELOCITY.in(RadiansPerSecond),
                 MAX_VELOCITY.in(RadiansPerSecond));
     double topFF = topFeedforward.calculate(setpoint, velocity, PERIOD.in(Seconds));
-    double topFB = topPID.calculate(top.velocity(), velocity);
+    double topFB = topPID.calculate(topInputs.velocity, velocity);
     double bottomFF = bottomFeedforward.calculate(setpoint, velocity, PERIOD.in(Seconds));
-    double bottomFB = bottomPID.calculate(bottom.velocity(), velocity);
+    double bottomFB = bottomPID.calculate(bottomInputs.velocity, velocity);
     log("top output", topFF + topFB);
     log("bottom output", bottomFF + bottomFB);
 
@@ -193,12 +220,10 @@ public class Shooter extends SubsystemBase implements AutoCloseable, Logged {
   /**
    * @return Average shooter velocity in radians per second
    */
-  @Log.NT
   public double rotationalVelocity() {
     return (topVelocity() + bottomVelocity()) / 2.0;
   }
 
-  @Log.NT
   public double tangentialVelocity() {
     return Shooting.flywheelToNoteSpeed(rotationalVelocity());
   }
@@ -215,7 +240,7 @@ public class Shooter extends SubsystemBase implements AutoCloseable, Logged {
   }
 
   @Override
-  public void periodic() {
+  protected void profiledPeriodic() {
     log("command", Optional.ofNullable(getCurrentCommand()).map(Command::getName).orElse("none"));
     topPID.setPID(p.get(), i.get(), d.get());
     bottomPID.setPID(p.get(), i.get(), d.get());
@@ -223,6 +248,7 @@ public class Shooter extends SubsystemBase implements AutoCloseable, Logged {
 
   @Override
   public void close() throws Exception {
+    telemetry.forEach(Registration::close);
     top.close();
     bottom.close();
   }
@@ -1,8 +1,23 @@
 package org.sciborgs1155.robot.shooter;
 
+import monologue.Annotations.Log;
 import monologue.Logged;
 
 public interface WheelIO extends AutoCloseable, Logged {
+  /** Sensor readings from a flywheel, read once per loop. */
+  public static class Inputs implements Logged {
+    @Log.NT public double velocity;
+  }
+
+  /**
+   * Reads every sensor into inputs.
+   *
+   * @param inputs The inputs to fill.
+   */
+  default void updateInputs(Inputs inputs) {
+    inputs.velocity = velocity();
+  }
+
   /**
    * Sets the voltage for the flywheel.
    *
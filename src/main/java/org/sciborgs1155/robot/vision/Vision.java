@@ -10,8 +10,14 @@ import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.geometry.Transform3d;
 import edu.wpi.first.math.numbers.N1;
 import edu.wpi.first.math.numbers.N3;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableEvent.Kind;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableListenerPoller;
+import edu.wpi.first.util.WPIUtilJNI;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 import monologue.Annotations.Log;
@@ -26,19 +32,40 @@ import org.photonvision.simulation.VisionSystemSim;
 import org.photonvision.targeting.PhotonPipelineResult;
 import org.photonvision.targeting.PhotonTrackedTarget;
 import org.sciborgs1155.lib.FaultLogger;
+import org.sciborgs1155.lib.SpscQueue;
 import org.sciborgs1155.robot.Robot;
 
-public class Vision implements Logged {
+public class Vision implements Logged, AutoCloseable {
   public static record CameraConfig(String name, Transform3d robotToCam) {}
 
   public static record PoseEstimate(EstimatedRobotPose estimatedPose, Matrix<N3, N1> standardDev) {}
 
+  /**
+   * What a camera saw in its latest result. Never modified once published.
+   *
+   * @param estimatePresent Whether the result gave a pose estimate, before filtering.
+   * @param seenTags The poses of the tags in the result.
+   */
+  private static record CameraSnapshot(boolean estimatePresent, Pose3d[] seenTags) {
+    static final CameraSnapshot EMPTY = new CameraSnapshot(false, new Pose3d[0]);
+  }
+
   private final PhotonCamera[] cameras;
   private final PhotonPoseEstimator[] estimators;
   private final PhotonCameraSim[] simCameras;
 
   private VisionSystemSim visionSim;
 
+  private final String[] cameraNames;
+
+  // only the thread estimating poses reads from the cameras, which publishes what they saw here for
+  // logging on the main thread, replacing the whole array on every result
+  private volatile CameraSnapshot[] snapshots;
+  @Log.NT private volatile long droppedEstimates = 0;
+
+  private Thread thread;
+  private volatile boolean running = false;
+
   /** A factory to create new vision classes with our two configured cameras */
   public static Vision create() {
     return new Vision(BACK_LEFT_CAMERA, BACK_RIGHT_CAMERA);
@@ -48,6 +75,9 @@ public class Vision implements Logged {
     cameras = new PhotonCamera[configs.length];
     estimators = new PhotonPoseEstimator[configs.length];
     simCameras = new PhotonCameraSim[configs.length];
+    cameraNames = new String[configs.length];
+    snapshots = new CameraSnapshot[configs.length];
+    Arrays.fill(snapshots, CameraSnapshot.EMPTY);
 
     for (int i = 0; i < configs.length; i++) {
       PhotonCamera camera = new PhotonCamera(configs[i].name());
@@ -61,6 +91,7 @@ public class Vision implements Logged {
       estimator.setMultiTagFallbackStrategy(PoseStrategy.LOWEST_AMBIGUITY);
       cameras[i] = camera;
       estimators[i] = estimator;
+      cameraNames[i] = configs[i].name();
 
       FaultLogger.register(camera);
     }
@@ -92,46 +123,142 @@ public class Vision implements Logged {
   /**
    * Returns a list of all currently visible pose estimates and their standard deviation vectors.
    *
+   * <p>This reads from the cameras, so it may only be called before {@link #start(SpscQueue)}.
+   *
    * @return An {@link EstimatedRobotPose} with an estimated pose, estimate timestamp, and targets
    *     used for estimation.
+   * @throws IllegalStateException If the vision thread has been started.
    */
   public PoseEstimate[] getEstimatedGlobalPoses() {
+    if (thread != null) {
+      throw new IllegalStateException("Poses are estimated on the vision thread once it starts");
+    }
     List<PoseEstimate> estimates = new ArrayList<>();
     for (int i = 0; i < estimators.length; i++) {
-      var result = cameras[i].getLatestResult();
-      var estimate = estimators[i].update(result);
-      log("estimates present " + i, estimate.isPresent());
-      estimate
-          .filter(
-              f ->
-                  Field.inField(f.estimatedPose)
-                      && Math.abs(f.estimatedPose.getZ()) < MAX_HEIGHT
-                      && Math.abs(f.estimatedPose.getRotation().getX()) < MAX_ANGLE
-                      && Math.abs(f.estimatedPose.getRotation().getY()) < MAX_ANGLE)
-          .ifPresent(
-              e ->
-                  estimates.add(
-                      new PoseEstimate(
-                          e, getEstimationStdDevs(e.estimatedPose.toPose2d(), result))));
+      estimate(i).ifPresent(estimates::add);
     }
     return estimates.toArray(PoseEstimate[]::new);
   }
 
   /**
-   * Returns the poses of all currently visible tags.
+   * Estimates the robot's pose from a camera's latest result.
+   *
+   * @param i The index of the camera.
+   * @return The estimate, if the camera sees targets and the estimate is plausible.
+   */
+  private Optional<PoseEstimate> estimate(int i) {
+    var result = cameras[i].getLatestResult();
+    var estimate = estimators[i].update(result);
+
+    Pose3d[] seenTags =
+        result.targets.stream()
+            .map(PhotonTrackedTarget::getFiducialId)
+            .map(TAG_LAYOUT::getTagPose)
+            .flatMap(Optional::stream)
+            .toArray(Pose3d[]::new);
+    CameraSnapshot[] next = snapshots.clone();
+    next[i] = new CameraSnapshot(estimate.isPresent(), seenTags);
+    snapshots = next;
+
+    return estimate
+        .filter(
+            f ->
+                Field.inField(f.estimatedPose)
+                    && Math.abs(f.estimatedPose.getZ()) < MAX_HEIGHT
+                    && Math.abs(f.estimatedPose.getRotation().getX()) < MAX_ANGLE
+                    && Math.abs(f.estimatedPose.getRotation().getY()) < MAX_ANGLE)
+        .map(e -> new PoseEstimate(e, getEstimationStdDevs(e.estimatedPose.toPose2d(), result)));
+  }
+
+  /**
+   * Starts estimating poses on a separate thread, which wakes up whenever a camera publishes a new
+   * result. Estimates are handed off through a queue, which should be drained by the main loop.
+   *
+   * <p>{@link #getEstimatedGlobalPoses()} throws once this is started, as the pose estimators are
+   * not thread safe.
+   *
+   * @param estimates The queue to add estimates to. The vision thread is its only producer.
+   */
+  public void start(SpscQueue<PoseEstimate> estimates) {
+    if (thread != null) {
+      return;
+    }
+    running = true;
+    thread = new Thread(() -> run(estimates), "Vision");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void run(SpscQueue<PoseEstimate> estimates) {
+    NetworkTableInstance inst = NetworkTableInstance.getDefault();
+    try (var poller = new NetworkTableListenerPoller(inst)) {
+      // photonlib publishes each camera's serialized results to this topic
+      int[] listeners = new int[cameraNames.length];
+      for (int i = 0; i < cameraNames.length; i++) {
+        listeners[i] =
+            poller.addListener(
+                inst.getTable("photonvision").getSubTable(cameraNames[i]).getRawTopic("rawBytes"),
+                EnumSet.of(Kind.kValueAll));
+      }
+
+      boolean[] updated = new boolean[cameraNames.length];
+      while (running) {
+        // time out periodically to check if we have been closed
+        if (!WPIUtilJNI.waitForObjectTimeout(poller.getHandle(), 0.1)) {
+          continue;
+        }
+        // only process each camera's latest result once, even if several arrived
+        for (NetworkTableEvent event : poller.readQueue()) {
+          for (int i = 0; i < listeners.length; i++) {
+            updated[i] |= event.listener == listeners[i];
+          }
+        }
+        for (int i = 0; i < updated.length; i++) {
+          if (updated[i]) {
+            updated[i] = false;
+            estimate(i)
+                .ifPresent(
+                    e -> {
+                      if (!estimates.offer(e)) {
+                        droppedEstimates++;
+                      }
+                    });
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Returns the poses of all tags in each camera's latest estimated result. This doesn't read from
+   * the cameras, so it is safe to call while the vision thread is running.
    *
    * @return An array of Pose3ds.
    */
   @Log.NT
   public Pose3d[] getSeenTags() {
-    return Arrays.stream(cameras)
-        .flatMap(c -> c.getLatestResult().targets.stream())
-        .map(PhotonTrackedTarget::getFiducialId)
-        .map(TAG_LAYOUT::getTagPose)
-        .map(Optional::get)
+    return Arrays.stream(snapshots)
+        .flatMap(snapshot -> Arrays.stream(snapshot.seenTags()))
         .toArray(Pose3d[]::new);
   }
 
+  /**
+   * Returns whether each camera's latest estimated result gave a pose estimate.
+   *
+   * @return Whether each camera has an estimate, by camera index.
+   */
+  @Log.NT
+  public boolean[] estimatesPresent() {
+    CameraSnapshot[] current = snapshots;
+    boolean[] present = new boolean[current.length];
+    for (int i = 0; i < current.length; i++) {
+      present[i] = current[i].estimatePresent();
+    }
+    return present;
+  }
+
   /**
    * The standard deviations of the estimated pose from {@link #getEstimatedGlobalPose()}, for use
    * with {@link edu.wpi.first.math.estimator.SwerveDrivePoseEstimator SwerveDrivePoseEstimator}.
@@ -178,4 +305,13 @@ public class Vision implements Logged {
   public void simulationPeriodic(Pose2d robotSimPose) {
     visionSim.update(robotSimPose);
   }
+
+  @Override
+  public void close() throws InterruptedException {
+    running = false;
+    if (thread != null) {
+      thread.join();
+      thread = null;
+    }
+  }
 }
@@ -1,6 +1,7 @@
 package org.sciborgs1155.robot.vision;
 
 import static edu.wpi.first.units.Units.Inches;
+import static edu.wpi.first.units.Units.Seconds;
 
 import edu.wpi.first.apriltag.AprilTagFieldLayout;
 import edu.wpi.first.apriltag.AprilTagFields;
@@ -12,6 +13,8 @@ import edu.wpi.first.math.geometry.Transform3d;
 import edu.wpi.first.math.geometry.Translation3d;
 import edu.wpi.first.math.numbers.N1;
 import edu.wpi.first.math.numbers.N3;
+import edu.wpi.first.units.Measure;
+import edu.wpi.first.units.Time;
 import org.sciborgs1155.robot.vision.Vision.CameraConfig;
 
 public class VisionConstants {
@@ -53,6 +56,15 @@ public class VisionConstants {
   public static final Matrix<N3, N1> SINGLE_TAG_STD_DEVS = VecBuilder.fill(1.5, 1.5, 7);
   public static final Matrix<N3, N1> MULTIPLE_TAG_STD_DEVS = VecBuilder.fill(0.3, 0.3, 4);
 
+  // estimates from different cameras captured within this time are merged into one measurement
+  public static final Measure<Time> MERGE_WINDOW = Seconds.of(0.01);
+  // the pose estimator's default state standard deviations, used as odometry's uncertainty
+  public static final Matrix<N3, N1> ODOMETRY_STD_DEVS = VecBuilder.fill(0.1, 0.1, 0.1);
+  // squared mahalanobis distance past which estimates are rejected, chi-squared 3 dof at 99.9%
+  public static final double MAHALANOBIS_GATE = 16.27;
+  // rejections in a row after which odometry is assumed to be wrong instead
+  public static final int MAX_REJECTED = 25;
+
   public static final double MAX_HEIGHT = 0.305;
   public static final double MAX_ANGLE = 0.3;
 
@@ -0,0 +1,205 @@
+package org.sciborgs1155.robot.vision;
+
+import static edu.wpi.first.units.Units.Seconds;
+import static org.sciborgs1155.robot.vision.VisionConstants.*;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.sciborgs1155.robot.vision.Vision.PoseEstimate;
+
+/**
+ * Combines a batch of camera estimates into fewer, better measurements before they are added to
+ * pose estimation.
+ *
+ * <p>Estimates are ordered by capture time, estimates from different cameras captured at nearly the
+ * same time are merged with inverse variance weighting, and merged measurements that disagree with
+ * odometry by more than their uncertainty allows are rejected.
+ */
+public class VisionFusion {
+  /**
+   * A fused vision measurement.
+   *
+   * @param pose The estimated field relative pose of the robot.
+   * @param timestamp The capture time of the measurement, in seconds.
+   * @param standardDev The standard deviations of the x, y, and heading of the pose.
+   * @param count The number of camera estimates merged into this measurement.
+   */
+  public static record Measurement(
+      Pose2d pose, double timestamp, Matrix<N3, N1> standardDev, int count) {}
+
+  private static final Comparator<PoseEstimate> BY_TIMESTAMP =
+      Comparator.comparingDouble(e -> e.estimatedPose().timestampSeconds);
+
+  private final double window = MERGE_WINDOW.in(Seconds);
+  private final List<Measurement> measurements = new ArrayList<>();
+  private int rejected = 0;
+
+  // the last rejected measurement, and how far it was from odometry
+  private Measurement lastRejected;
+  private double rejectedX, rejectedY, rejectedTheta;
+
+  /**
+   * Sorts and merges a batch of estimates.
+   *
+   * @param estimates The estimates to fuse, which are sorted in place.
+   * @return The fused measurements, oldest first. This list is reused by the next call.
+   */
+  public List<Measurement> fuse(List<PoseEstimate> estimates) {
+    measurements.clear();
+    estimates.sort(BY_TIMESTAMP);
+
+    int start = 0;
+    while (start < estimates.size()) {
+      double first = estimates.get(start).estimatedPose().timestampSeconds;
+      int end = start + 1;
+      while (end < estimates.size()
+          && estimates.get(end).estimatedPose().timestampSeconds - first <= window) {
+        end++;
+      }
+      Measurement merged = merge(estimates, start, end);
+      if (merged != null) {
+        measurements.add(merged);
+      }
+      start = end;
+    }
+    return measurements;
+  }
+
+  /**
+   * Merges estimates into one measurement, weighting each axis by the inverse of its variance.
+   * Headings are averaged as offsets from the first estimate, so they are not torn apart at ±π.
+   *
+   * @return The merged measurement, or null if no estimate has a finite variance.
+   */
+  private static Measurement merge(List<PoseEstimate> estimates, int start, int end) {
+    Rotation2d reference =
+        estimates.get(start).estimatedPose().estimatedPose.toPose2d().getRotation();
+    double wx = 0, wy = 0, wt = 0;
+    double x = 0, y = 0, theta = 0;
+    double timestamp = 0;
+
+    for (int i = start; i < end; i++) {
+      PoseEstimate estimate = estimates.get(i);
+      Pose2d pose = estimate.estimatedPose().estimatedPose.toPose2d();
+      double ix = inverseVariance(estimate.standardDev().get(0, 0));
+      double iy = inverseVariance(estimate.standardDev().get(1, 0));
+      double it = inverseVariance(estimate.standardDev().get(2, 0));
+      wx += ix;
+      wy += iy;
+      wt += it;
+      x += ix * pose.getX();
+      y += iy * pose.getY();
+      theta += it * pose.getRotation().minus(reference).getRadians();
+      timestamp += estimate.estimatedPose().timestampSeconds;
+    }
+
+    if (wx == 0 || wy == 0) {
+      return null;
+    }
+    // heading may be unknown even when translation is not, in which case it is left unchanged
+    Rotation2d heading = wt == 0 ? reference : reference.plus(Rotation2d.fromRadians(theta / wt));
+    return new Measurement(
+        new Pose2d(x / wx, y / wy, heading),
+        timestamp / (end - start),
+        VecBuilder.fill(
+            1 / Math.sqrt(wx), 1 / Math.sqrt(wy), wt == 0 ? Double.MAX_VALUE : 1 / Math.sqrt(wt)),
+        end - start);
+  }
+
+  private static double inverseVariance(double standardDev) {
+    double variance = standardDev * standardDev;
+    return Double.isFinite(variance) && variance > 0 ? 1 / variance : 0;
+  }
+
+  /**
+   * Returns the squared Mahalanobis distance between a measurement and the odometry pose at the
+   * same time, treating the measurement and odometry errors as independent on each axis.
+   *
+   * @param measurement The vision measurement.
+   * @param odometry The odometry pose at the time of the measurement.
+   * @return The squared distance, in standard deviations.
+   */
+  public static double mahalanobis(Measurement measurement, Pose2d odometry) {
+    double dx = measurement.pose().getX() - odometry.getX();
+    double dy = measurement.pose().getY() - odometry.getY();
+    double dt = headingError(measurement, odometry);
+    return dx * dx / variance(measurement, 0)
+        + dy * dy / variance(measurement, 1)
+        + dt * dt / variance(measurement, 2);
+  }
+
+  private static double headingError(Measurement measurement, Pose2d odometry) {
+    return MathUtil.angleModulus(
+        measurement.pose().getRotation().minus(odometry.getRotation()).getRadians());
+  }
+
+  private static double variance(Measurement measurement, int axis) {
+    double vision = measurement.standardDev().get(axis, 0);
+    double odometry = ODOMETRY_STD_DEVS.get(axis, 0);
+    return vision * vision + odometry * odometry;
+  }
+
+  /**
+   * Returns whether a measurement agrees with odometry closely enough to be used.
+   *
+   * <p>If many measurements in a row are rejected, odometry may be wrong rather than vision (such
+   * as before the pose is first reset). Measurements are then accepted if they put odometry off by
+   * the same amount as the last rejected measurement, so that vision agreeing with itself can
+   * correct odometry while scattered outliers are still rejected.
+   *
+   * @param measurement The vision measurement.
+   * @param odometry The odometry pose at the time of the measurement.
+   * @return Whether to add the measurement to pose estimation.
+   */
+  public boolean accept(Measurement measurement, Pose2d odometry) {
+    if (mahalanobis(measurement, odometry) <= MAHALANOBIS_GATE) {
+      rejected = 0;
+      lastRejected = null;
+      return true;
+    }
+    double dx = measurement.pose().getX() - odometry.getX();
+    double dy = measurement.pose().getY() - odometry.getY();
+    double dt = headingError(measurement, odometry);
+    boolean consistent = agreesWithLastRejected(measurement, dx, dy, dt);
+    lastRejected = measurement;
+    rejectedX = dx;
+    rejectedY = dy;
+    rejectedTheta = dt;
+    if (rejected < MAX_REJECTED) {
+      rejected++;
+      return false;
+    }
+    return consistent;
+  }
+
+  /**
+   * Returns whether a measurement puts odometry off by the same amount as the last rejected one,
+   * within the gate. Odometry accounts for the robot's motion between the two.
+   */
+  private boolean agreesWithLastRejected(Measurement measurement, double dx, double dy, double dt) {
+    if (lastRejected == null) {
+      return false;
+    }
+    double ex = dx - rejectedX;
+    double ey = dy - rejectedY;
+    double et = MathUtil.angleModulus(dt - rejectedTheta);
+    return ex * ex / combinedVariance(measurement, 0)
+            + ey * ey / combinedVariance(measurement, 1)
+            + et * et / combinedVariance(measurement, 2)
+        <= MAHALANOBIS_GATE;
+  }
+
+  private double combinedVariance(Measurement measurement, int axis) {
+    double a = measurement.standardDev().get(axis, 0);
+    double b = lastRejected.standardDev().get(axis, 0);
+    return a * a + b * b;
+  }
+}
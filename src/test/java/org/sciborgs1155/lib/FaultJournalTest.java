@@ -0,0 +1,123 @@
+package org.sciborgs1155.lib;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.sciborgs1155.lib.UnitTestingUtil.setupTests;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sciborgs1155.lib.FaultJournal.Entry;
+import org.sciborgs1155.lib.FaultLogger.Fault;
+import org.sciborgs1155.lib.FaultLogger.FaultType;
+
+public class FaultJournalTest {
+  static final Fault CAMERA = new Fault("Photon Camera [front]", "disconnected", FaultType.ERROR);
+  static final Fault MOTOR = new Fault("FL drive ID 11", "kOvercurrent", FaultType.ERROR);
+
+  @TempDir Path dir;
+
+  Path path;
+
+  @BeforeEach
+  public void setup() {
+    setupTests();
+    path = dir.resolve("faults.journal");
+  }
+
+  @AfterEach
+  public void destroy() {
+    FaultLogger.stopJournal();
+  }
+
+  @Test
+  void persists() throws Exception {
+    try (var journal = FaultJournal.open(path)) {
+      journal.record(CAMERA, true);
+      journal.record(MOTOR, true);
+      journal.record(CAMERA, false);
+    }
+
+    try (var journal = FaultJournal.open(path)) {
+      assertEquals(3, journal.entries().size());
+      List<Entry> camera = journal.device(CAMERA.name());
+      assertEquals(2, camera.size());
+      assertEquals(CAMERA, camera.get(0).fault());
+      assertTrue(camera.get(0).active());
+      assertFalse(camera.get(1).active());
+
+      // appends after earlier runs
+      journal.record(MOTOR, false);
+    }
+    assertEquals(4, FaultJournal.read(path).size());
+  }
+
+  @Test
+  void dropsTornRecords() throws Exception {
+    try (var journal = FaultJournal.open(path)) {
+      journal.record(CAMERA, true);
+      journal.record(MOTOR, true);
+    }
+    // a power loss partway through a write
+    byte[] bytes = Files.readAllBytes(path);
+    Files.write(path, new byte[] {bytes[0], bytes[1], 0, 0, 7}, StandardOpenOption.APPEND);
+    assertEquals(2, FaultJournal.read(path).size());
+
+    // and the torn record is compacted away, so new records can be read after it
+    try (var journal = FaultJournal.open(path)) {
+      journal.record(CAMERA, false);
+    }
+    assertEquals(3, FaultJournal.read(path).size());
+  }
+
+  @Test
+  void compacts() throws Exception {
+    try (var journal = FaultJournal.open(path)) {
+      for (int i = 0; i < FaultJournal.MAX_ENTRIES + 10; i++) {
+        journal.record(MOTOR, i % 2 == 0);
+      }
+    }
+    try (var journal = FaultJournal.open(path)) {
+      assertEquals(FaultJournal.MAX_ENTRIES, journal.entries().size());
+    }
+    assertEquals(FaultJournal.MAX_ENTRIES, FaultJournal.read(path).size());
+  }
+
+  @Test
+  void compactsWhileRunning() throws Exception {
+    int records = 2 * FaultJournal.MAX_ENTRIES + 200;
+    try (var journal = FaultJournal.open(path)) {
+      for (int i = 0; i < records; i++) {
+        journal.record(MOTOR, i % 2 == 0);
+        if (i % 100 == 99) {
+          journal.flush();
+        }
+      }
+      assertEquals(FaultJournal.MAX_ENTRIES, journal.entries().size());
+      assertTrue(FaultJournal.read(path).size() <= 2 * FaultJournal.MAX_ENTRIES);
+    }
+    List<Entry> entries = FaultJournal.read(path);
+    assertTrue(entries.size() < records);
+    assertFalse(entries.get(entries.size() - 1).active());
+  }
+
+  @Test
+  void recordsTransitions() throws Exception {
+    FaultLogger.startJournal(path);
+    FaultLogger.report(CAMERA);
+    FaultLogger.update();
+    FaultLogger.update();
+    FaultLogger.stopJournal();
+
+    List<Entry> entries = FaultJournal.read(path);
+    assertEquals(2, entries.size());
+    assertTrue(entries.get(0).active());
+    assertFalse(entries.get(1).active());
+  }
+}
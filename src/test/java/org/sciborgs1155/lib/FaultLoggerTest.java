@@ -1,14 +1,23 @@
 package org.sciborgs1155.lib;
 
+import static edu.wpi.first.units.Units.Microseconds;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.sciborgs1155.lib.UnitTestingUtil.busyWait;
 import static org.sciborgs1155.lib.UnitTestingUtil.setupTests;
 
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.sciborgs1155.lib.FaultLogger.Fault;
 import org.sciborgs1155.lib.FaultLogger.FaultType;
+import org.sciborgs1155.lib.FaultLogger.History;
+import org.sciborgs1155.lib.FaultLogger.Priority;
 
 public class FaultLoggerTest {
 
@@ -76,4 +85,72 @@ public class FaultLoggerTest {
     assertEquals(1, activeErrors.get().length);
     assertEquals(1, totalErrors.get().length);
   }
+
+  @Test
+  void history() {
+    Fault fault = new Fault("Test", "History", FaultType.WARNING);
+    FaultLogger.report(fault);
+    FaultLogger.update();
+    History history = FaultLogger.history(fault).orElseThrow();
+    assertTrue(history.active());
+    assertEquals(1, history.count());
+    double firstSeen = history.firstSeen();
+
+    // stays active, without counting again
+    FaultLogger.report("Test", "History", FaultType.WARNING);
+    FaultLogger.update();
+    assertEquals(1, history.count());
+    assertSame(history, FaultLogger.history(fault).orElseThrow());
+
+    // clears when no longer reported
+    FaultLogger.update();
+    assertFalse(history.active());
+    assertEquals(1, FaultLogger.totalFaults().size());
+
+    FaultLogger.report(fault);
+    FaultLogger.update();
+    assertEquals(2, history.count());
+    assertEquals(firstSeen, history.firstSeen());
+    assertTrue(history.lastSeen() >= firstSeen);
+    assertEquals(1, FaultLogger.totalFaults().size());
+
+    FaultLogger.clear();
+    assertEquals(0, history.count());
+    assertFalse(history.active());
+  }
+
+  @Test
+  void priorities() {
+    int[] polls = {0, 0};
+    FaultLogger.register(() -> polls[0]++, Priority.HIGH);
+    FaultLogger.register(() -> polls[1]++, Priority.LOW);
+    SimHooks.pauseTiming();
+    for (int i = 0; i < 250; i++) {
+      FaultLogger.update();
+      SimHooks.stepTiming(0.02);
+    }
+    SimHooks.resumeTiming();
+    assertEquals(10, polls[0]);
+    assertEquals(1, polls[1]);
+  }
+
+  @Test
+  void budget() {
+    int[] polls = new int[5];
+    for (int i = 0; i < polls.length; i++) {
+      int id = i;
+      FaultLogger.register(
+          () -> {
+            polls[id]++;
+            busyWait(1_000_000);
+          },
+          Priority.HIGH);
+    }
+    FaultLogger.setBudget(Microseconds.of(500));
+    for (int i = 0; i < polls.length; i++) {
+      FaultLogger.update();
+      assertEquals(1, polls[i]);
+    }
+    FaultLogger.setBudget(FaultLogger.DEFAULT_BUDGET);
+  }
 }
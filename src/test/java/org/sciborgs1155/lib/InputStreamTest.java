@@ -38,4 +38,35 @@ public class InputStreamTest {
 
     assertEquals(cursed.get(), 0, 0.1); // 0 time passes and we can't mock time
   }
+
+  @Test
+  void fusesStages() {
+    var stream =
+        InputStream.of(this::two)
+            .negate()
+            .scale(0.5)
+            .add(0.25)
+            .add(0.25)
+            .clamp(0.4)
+            .map(x -> x * 3);
+    assertEquals(-1.2, stream.get(), 1e-9);
+    // negate and scale are folded, as are the two offsets
+    assertEquals(4, ((FusedInputStream) stream).stages());
+  }
+
+  @Test
+  void cachesPerLoop() {
+    int[] reads = {0};
+    InputStream x = InputStream.of(() -> ++reads[0]).cache();
+    InputStream r = InputStream.hypot(x, x).scale(2).cache();
+    InputStream sum = r.add(x).add(InputStream.atan(x, x).map(Math::cos).scale(0));
+
+    double first = sum.get();
+    assertEquals(first, sum.get());
+    assertEquals(1, reads[0]);
+
+    InputUpdater.update();
+    assertEquals(2 * Math.hypot(2, 2) + 2, sum.get(), 1e-9);
+    assertEquals(2, reads[0]);
+  }
 }
@@ -0,0 +1,99 @@
+package org.sciborgs1155.lib;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.util.datalog.BooleanArrayLogEntry;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.util.datalog.IntegerLogEntry;
+import edu.wpi.first.util.datalog.StructLogEntry;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LogReplayTest {
+  static final String VELOCITY = "NT:/Robot/shooter/topInputs/velocity";
+  static final String ROTATION = "NT:/Robot/drive/gyroInputs/rotation";
+  static final String OUTPUT = "NT:/Robot/shooter/setpoint";
+
+  @TempDir Path dir;
+
+  /** Records three loops, 20 ms apart. */
+  Path record() {
+    DataLog log = new DataLog(dir.toString(), "test.wpilog");
+    var loops = new IntegerLogEntry(log, InputUpdater.LOOP_ENTRY);
+    var velocity = new DoubleLogEntry(log, VELOCITY);
+    var output = new DoubleLogEntry(log, OUTPUT);
+    var rotation = StructLogEntry.create(log, ROTATION, Rotation3d.struct);
+    var buttons = new BooleanArrayLogEntry(log, "DS:joystick0/buttons");
+
+    loops.append(0, 1_000);
+    velocity.append(1, 1_500);
+    output.append(100, 1_500);
+    rotation.append(new Rotation3d(0, 0, 1), 1_500);
+    loops.append(0, 21_000);
+    buttons.append(new boolean[] {false, true}, 21_500);
+    loops.append(0, 41_000);
+    velocity.append(3, 41_500);
+    log.close();
+    return dir.resolve("test.wpilog");
+  }
+
+  @AfterEach
+  public void destroy() {
+    LogReplay.clear();
+  }
+
+  @Test
+  void reads() throws Exception {
+    List<String> names = new ArrayList<>();
+    List<Long> timestamps = new ArrayList<>();
+    try (var reader = new WPILogReader(record())) {
+      reader.forEach(
+          (entry, timestamp, payload) -> {
+            if (entry.name().equals(VELOCITY)) {
+              assertEquals("double", entry.type());
+              timestamps.add(timestamp);
+            }
+            names.add(entry.name());
+          });
+    }
+    assertEquals(List.of(1_500L, 41_500L), timestamps);
+    assertTrue(names.contains(ROTATION));
+    assertTrue(names.contains(OUTPUT));
+  }
+
+  @Test
+  void replaysLoops() throws Exception {
+    LogReplay.load(record());
+    assertTrue(LogReplay.isActive());
+    assertEquals(3, LogReplay.loops());
+
+    // values logged during a loop are replayed in that loop
+    assertTrue(LogReplay.advance());
+    assertEquals(0.001, LogReplay.timestamp(), 1e-9);
+    assertEquals(1, LogReplay.getDouble(VELOCITY, 0));
+    assertEquals(1, LogReplay.getStruct(ROTATION, Rotation3d.struct, null).getZ(), 1e-9);
+    assertArrayEquals(
+        new double[0], LogReplay.getDoubleArray("DS:joystick0/buttons", new double[0]));
+
+    // and held until they change
+    assertTrue(LogReplay.advance());
+    assertEquals(1, LogReplay.getDouble(VELOCITY, 0));
+    assertArrayEquals(new double[] {0, 1}, LogReplay.getDoubleArray("DS:joystick0/buttons", null));
+
+    assertTrue(LogReplay.advance());
+    assertEquals(3, LogReplay.getDouble(VELOCITY, 0));
+    assertFalse(LogReplay.advance());
+
+    // outputs are not inputs, so are never replayed
+    assertEquals(-1, LogReplay.getDouble(OUTPUT, -1));
+  }
+}
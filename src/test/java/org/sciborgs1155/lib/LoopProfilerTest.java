@@ -0,0 +1,83 @@
+package org.sciborgs1155.lib;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.sciborgs1155.lib.UnitTestingUtil.busyWait;
+import static org.sciborgs1155.lib.UnitTestingUtil.fastForward;
+import static org.sciborgs1155.lib.UnitTestingUtil.reset;
+import static org.sciborgs1155.lib.UnitTestingUtil.setupTests;
+
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sciborgs1155.lib.LoopProfiler.Timing;
+
+public class LoopProfilerTest {
+  final double DELTA = 1e-9;
+
+  @BeforeEach
+  public void setup() {
+    setupTests();
+    LoopProfiler.clear();
+  }
+
+  @AfterEach
+  public void destroy() throws Exception {
+    reset();
+  }
+
+  @Test
+  void wrap() {
+    Runnable wrapped = LoopProfiler.wrap("Test wrap", () -> busyWait(1_000_000));
+    for (int i = 0; i < 10; i++) {
+      wrapped.run();
+    }
+    LoopProfiler.publish();
+
+    Timing timing = LoopProfiler.timing("Test wrap");
+    assertEquals(10, timing.count());
+    assertTrue(timing.p50() >= 1);
+    assertTrue(timing.p50() <= timing.p99());
+    assertTrue(timing.p99() <= timing.max());
+
+    var max =
+        NetworkTableInstance.getDefault()
+            .getTable("Profiler")
+            .getSubTable("Test wrap")
+            .getDoubleTopic("max ms")
+            .subscribe(0);
+    assertEquals(timing.max(), max.get(), DELTA);
+  }
+
+  @Test
+  void rollingWindow() {
+    Timing timing = LoopProfiler.timing("Test window");
+    for (int i = 1; i <= LoopProfiler.WINDOW + 100; i++) {
+      timing.record(i * 1_000_000L);
+    }
+    LoopProfiler.publish();
+
+    // only the most recent WINDOW samples, 101 ms to 356 ms, are kept
+    assertEquals(LoopProfiler.WINDOW, timing.count());
+    assertEquals(LoopProfiler.WINDOW + 100, timing.max(), DELTA);
+    assertEquals(228, timing.p50(), DELTA);
+    assertEquals(354, timing.p99(), DELTA);
+  }
+
+  @Test
+  void commands() {
+    LoopProfiler.profileCommands();
+    Command busy = Commands.run(() -> busyWait(2_000_000)).withName("Test busy");
+    busy.schedule();
+    fastForward(5);
+    busy.cancel();
+    LoopProfiler.publish();
+
+    Timing timing = LoopProfiler.timing("Test busy.execute()");
+    assertEquals(5, timing.count());
+    assertTrue(timing.p50() >= 2);
+  }
+}
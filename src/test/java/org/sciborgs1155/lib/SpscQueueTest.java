@@ -0,0 +1,68 @@
+package org.sciborgs1155.lib;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class SpscQueueTest {
+
+  @Test
+  void capacity() {
+    assertEquals(1, new SpscQueue<>(1).capacity());
+    assertEquals(16, new SpscQueue<>(16).capacity());
+    assertEquals(16, new SpscQueue<>(9).capacity());
+  }
+
+  @Test
+  void fifo() {
+    SpscQueue<Integer> queue = new SpscQueue<>(4);
+    assertNull(queue.poll());
+    for (int i = 0; i < 4; i++) {
+      assertTrue(queue.offer(i));
+    }
+    assertFalse(queue.offer(4));
+    assertEquals(4, queue.size());
+
+    assertEquals(0, queue.poll());
+    assertTrue(queue.offer(4));
+
+    List<Integer> drained = new ArrayList<>();
+    assertEquals(4, queue.drain(drained::add));
+    assertEquals(List.of(1, 2, 3, 4), drained);
+    assertEquals(0, queue.size());
+  }
+
+  @Test
+  void concurrent() throws InterruptedException {
+    int count = 100_000;
+    SpscQueue<Integer> queue = new SpscQueue<>(8);
+    Thread producer =
+        new Thread(
+            () -> {
+              for (int i = 0; i < count; i++) {
+                while (!queue.offer(i)) {
+                  Thread.yield();
+                }
+              }
+            });
+    producer.start();
+
+    // every element arrives exactly once, in order
+    int expected = 0;
+    while (expected < count) {
+      Integer value = queue.poll();
+      if (value == null) {
+        Thread.yield();
+      } else {
+        assertEquals(expected++, value);
+      }
+    }
+    producer.join();
+    assertNull(queue.poll());
+  }
+}
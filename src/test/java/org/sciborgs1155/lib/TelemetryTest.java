@@ -0,0 +1,215 @@
+package org.sciborgs1155.lib;
+
+import static edu.wpi.first.units.Units.Seconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.sciborgs1155.lib.UnitTestingUtil.TICK_RATE;
+import static org.sciborgs1155.lib.UnitTestingUtil.setupTests;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sciborgs1155.lib.Telemetry.Rate;
+import org.sciborgs1155.lib.Telemetry.Registration;
+
+public class TelemetryTest {
+  static final PubSubOption[] OPTIONS = {
+    PubSubOption.keepDuplicates(true), PubSubOption.pollStorage(1000)
+  };
+
+  @TempDir Path dir;
+
+  double value;
+
+  @BeforeEach
+  public void setup() {
+    setupTests();
+    SimHooks.pauseTiming();
+  }
+
+  @AfterEach
+  public void destroy() {
+    Telemetry.unregisterAll();
+    SimHooks.resumeTiming();
+  }
+
+  static void run(double seconds) {
+    for (int i = 0; i < Math.round(seconds / TICK_RATE.in(Seconds)); i++) {
+      Telemetry.update();
+      SimHooks.stepTiming(TICK_RATE.in(Seconds));
+    }
+  }
+
+  @Test
+  void publishesChanges() {
+    var sub =
+        NetworkTableInstance.getDefault()
+            .getDoubleTopic("/Test/telemetry/double")
+            .subscribe(0, OPTIONS);
+    Telemetry.add("/Test/telemetry/double", Rate.FAST, () -> value, 1);
+
+    run(0.1);
+    assertEquals(1, sub.readQueue().length);
+
+    // within the deadband
+    value = 0.5;
+    run(0.5);
+    assertEquals(0, sub.readQueue().length);
+
+    // at the next NT period
+    value = 2;
+    run(0.1);
+    var published = sub.readQueue();
+    assertEquals(1, published.length);
+    assertEquals(2, published[0].value);
+
+    // heartbeat
+    run(1);
+    assertEquals(1, sub.readQueue().length);
+    sub.close();
+  }
+
+  @Test
+  void publishesFastValuesEveryLoop() {
+    var fast =
+        NetworkTableInstance.getDefault()
+            .getDoubleTopic("/Test/telemetry/fast")
+            .subscribe(0, OPTIONS);
+    var medium =
+        NetworkTableInstance.getDefault()
+            .getDoubleTopic("/Test/telemetry/medium")
+            .subscribe(0, OPTIONS);
+    Telemetry.add("/Test/telemetry/fast", Rate.FAST, () -> value, 0);
+    Telemetry.add("/Test/telemetry/medium", Rate.MEDIUM, () -> value, 0);
+
+    for (int i = 0; i < 5; i++) {
+      value = i;
+      run(TICK_RATE.in(Seconds));
+    }
+    assertEquals(5, fast.readQueue().length);
+    assertEquals(1, medium.readQueue().length);
+    fast.close();
+    medium.close();
+  }
+
+  @Test
+  void publishesStructArrays() {
+    var sub =
+        NetworkTableInstance.getDefault()
+            .getStructArrayTopic("/Test/telemetry/states", SwerveModuleState.struct)
+            .subscribe(new SwerveModuleState[0], OPTIONS);
+    SwerveModuleState[] states = {new SwerveModuleState(), new SwerveModuleState()};
+    Telemetry.addArray(
+        "/Test/telemetry/states", Rate.FAST, SwerveModuleState.struct, () -> states, 0.01);
+
+    run(0.1);
+    assertEquals(1, sub.readQueue().length);
+
+    // the same array, modified in place
+    states[1].speedMetersPerSecond = 0.005;
+    run(0.2);
+    assertEquals(0, sub.readQueue().length);
+
+    states[1].angle = Rotation2d.fromRadians(1);
+    run(0.1);
+    var published = sub.readQueue();
+    assertEquals(1, published.length);
+    assertEquals(1, published[0].value[1].angle.getRadians(), 1e-9);
+    sub.close();
+  }
+
+  @Test
+  void logsEveryChange() throws Exception {
+    DataLog log = new DataLog(dir.toString(), "test.wpilog");
+    Telemetry.startLog(log);
+    Telemetry.add("/Test/telemetry/logged", Rate.FAST, () -> value, 1);
+
+    // changes too small for NT are still logged, every loop
+    for (int i = 0; i < 50; i++) {
+      value = i * 1e-3;
+      run(TICK_RATE.in(Seconds));
+    }
+    log.close();
+
+    try (var reader = new WPILogReader(dir.resolve("test.wpilog"))) {
+      var doubles = reader.doubles(reader.entry("/Test/telemetry/logged").orElseThrow());
+      assertEquals(50, doubles.count());
+    }
+  }
+
+  @Test
+  void logsSlowValuesEveryLoop() throws Exception {
+    DataLog log = new DataLog(dir.toString(), "slow.wpilog");
+    Telemetry.startLog(log);
+    var sub =
+        NetworkTableInstance.getDefault()
+            .getDoubleTopic("/Test/telemetry/slow")
+            .subscribe(0, OPTIONS);
+    Telemetry.add("/Test/telemetry/slow", Rate.SLOW, () -> value, 0);
+
+    // published once a second in teleop, but logged every loop
+    DriverStationSim.setTest(false);
+    DriverStationSim.notifyNewData();
+    for (int i = 0; i < 100; i++) {
+      value = i;
+      run(TICK_RATE.in(Seconds));
+    }
+    log.close();
+    assertEquals(2, sub.readQueue().length);
+    sub.close();
+
+    try (var reader = new WPILogReader(dir.resolve("slow.wpilog"))) {
+      var doubles = reader.doubles(reader.entry("/Test/telemetry/slow").orElseThrow());
+      assertEquals(100, doubles.count());
+    }
+  }
+
+  @Test
+  void removesRegistrations() {
+    int[] samples = {0, 0, 0};
+    Registration task = Telemetry.schedule(Rate.ON_CHANGE, () -> samples[0]++);
+    Telemetry.add("/Test/telemetry/replaced", Rate.FAST, () -> samples[1]++, 0);
+    Telemetry.add("/Test/telemetry/replaced", Rate.FAST, () -> samples[2]++, 0);
+
+    run(0.1);
+    assertEquals(5, samples[0]);
+    assertEquals(0, samples[1]);
+    assertEquals(5, samples[2]);
+
+    task.close();
+    run(0.1);
+    assertEquals(5, samples[0]);
+    assertEquals(10, samples[2]);
+  }
+
+  @Test
+  void samplesByMode() {
+    int[] runs = {0, 0};
+    Telemetry.schedule(Rate.SLOW, () -> runs[0]++);
+    Telemetry.schedule(Rate.ON_CHANGE, () -> runs[1]++);
+
+    // once a second in teleop
+    DriverStationSim.setTest(false);
+    DriverStationSim.notifyNewData();
+    run(2);
+    assertEquals(2, runs[0]);
+    assertEquals(100, runs[1]);
+
+    // every loop in test mode
+    DriverStationSim.setTest(true);
+    DriverStationSim.notifyNewData();
+    runs[0] = 0;
+    runs[1] = 0;
+    run(1);
+    assertEquals(50, runs[0]);
+    assertEquals(50, runs[1]);
+  }
+}
@@ -0,0 +1,84 @@
+package org.sciborgs1155.lib;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.sciborgs1155.lib.UnitTestingUtil.setupTests;
+
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class VectorInputStreamTest {
+  double x;
+  double y;
+
+  @BeforeEach
+  public void setup() {
+    setupTests();
+    SimHooks.pauseTiming();
+  }
+
+  @AfterEach
+  public void destroy() {
+    SimHooks.resumeTiming();
+  }
+
+  void assertVector(VectorInputStream stream, double... expected) {
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], stream.get(i), 1e-9);
+    }
+  }
+
+  @Test
+  void shapesMagnitude() {
+    // each axis is within the deadband, but the stick isn't
+    var deadbanded = VectorInputStream.of(() -> 0.12, () -> 0.12).deadband(0.15, 1);
+    assertEquals(Math.hypot(0.12, 0.12) - 0.15, deadbanded.norm() * 0.85, 1e-9);
+    assertEquals(deadbanded.get(0), deadbanded.get(1));
+
+    assertVector(VectorInputStream.of(() -> 0.1, () -> 0.1).deadband(0.15, 1), 0, 0);
+    assertVector(VectorInputStream.of(() -> 3, () -> 4).clamp(1), 0.6, 0.8);
+    assertVector(VectorInputStream.of(() -> 0.3, () -> 0.4).pow(2), 0.15, 0.2);
+    assertVector(VectorInputStream.of(() -> 0, () -> 0).pow(2).scale(2), 0, 0);
+  }
+
+  @Test
+  void rotates() {
+    var stream = VectorInputStream.of(() -> 1, () -> 0, () -> 2).rotate(() -> Math.PI / 2);
+    assertEquals(3, stream.dimension());
+    assertVector(stream, 0, 1, 2);
+    assertThrows(IllegalStateException.class, () -> VectorInputStream.of(() -> 1, () -> 0).z());
+  }
+
+  @Test
+  void rateLimits() {
+    var stream = VectorInputStream.of(() -> x, () -> y).rateLimit(1);
+    assertVector(stream, 0, 0);
+
+    // a diagonal moves as far per second as a straight line
+    x = 3;
+    y = 4;
+    SimHooks.stepTiming(0.5);
+    InputUpdater.update();
+    assertVector(stream, 0.3, 0.4);
+    assertEquals(0.5, stream.norm(), 1e-9);
+  }
+
+  @Test
+  void readsOncePerLoop() {
+    int[] reads = {0};
+    var stream = VectorInputStream.of(() -> ++reads[0], () -> 0).scale(2);
+    InputStream x = stream.x();
+    InputStream y = stream.y();
+    InputStream magnitude = stream.magnitude();
+
+    assertEquals(2, x.get() + y.get());
+    assertEquals(2, magnitude.get());
+    assertEquals(1, reads[0]);
+
+    InputUpdater.update();
+    assertEquals(4, x.get());
+    assertEquals(2, reads[0]);
+  }
+}
@@ -0,0 +1,113 @@
+package org.sciborgs1155.lib;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.util.datalog.StringArrayLogEntry;
+import edu.wpi.first.util.datalog.StructLogEntry;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.sciborgs1155.lib.WPILogReader.Entry;
+
+public class WPILogReaderTest {
+  static final int RECORDS = 200;
+
+  @TempDir Path dir;
+
+  /** Records {@link #RECORDS} of each type, 20 ms apart. */
+  Path record() {
+    DataLog log = new DataLog(dir.toString(), "test.wpilog");
+    var doubles = new DoubleLogEntry(log, "double");
+    var poses = StructLogEntry.create(log, "pose2d", Pose2d.struct);
+    var poses3d = StructLogEntry.create(log, "pose3d", Pose3d.struct);
+    var strings = new StringArrayLogEntry(log, "strings");
+    for (int i = 0; i < RECORDS; i++) {
+      long timestamp = 20_000L * (i + 1);
+      doubles.append(i, timestamp);
+      poses.append(new Pose2d(i, -i, Rotation2d.fromRadians(0.01 * i)), timestamp);
+      poses3d.append(new Pose3d(new Pose2d(i, 1, new Rotation2d())), timestamp);
+      if (i % 10 == 0) {
+        strings.append(new String[] {"note", Integer.toString(i)}, timestamp);
+      }
+    }
+    log.close();
+    return dir.resolve("test.wpilog");
+  }
+
+  @ParameterizedTest
+  @ValueSource(longs = {Integer.MAX_VALUE, 4096, 100})
+  void readsTypedRecords(long window) throws Exception {
+    try (var reader = new WPILogReader(record(), window)) {
+      Entry entry = reader.entry("double").orElseThrow();
+      assertEquals("double", entry.type());
+
+      var doubles = reader.doubles(entry);
+      assertEquals(RECORDS, doubles.count());
+      for (int i = 0; i < RECORDS; i++) {
+        assertTrue(doubles.next());
+        assertEquals(i, doubles.value());
+        assertEquals(20_000L * (i + 1), doubles.timestamp());
+      }
+      assertFalse(doubles.next());
+
+      var poses = reader.structs(reader.entry("pose2d").orElseThrow(), Pose2d.struct);
+      assertTrue(poses.next());
+      assertTrue(poses.next());
+      assertEquals(new Pose2d(1, -1, Rotation2d.fromRadians(0.01)), poses.value());
+
+      var poses3d = reader.structs(reader.entry("pose3d").orElseThrow(), Pose3d.struct);
+      int count = 0;
+      while (poses3d.next()) {
+        assertEquals(count++, poses3d.value().getX(), 1e-9);
+      }
+      assertEquals(RECORDS, count);
+
+      var strings = reader.stringArrays(reader.entry("strings").orElseThrow());
+      assertEquals(RECORDS / 10, strings.count());
+      assertTrue(strings.next());
+      assertTrue(strings.next());
+      assertArrayEquals(new String[] {"note", "10"}, strings.value());
+    }
+  }
+
+  @Test
+  void seeks() throws Exception {
+    try (var reader = new WPILogReader(record())) {
+      var doubles = reader.doubles(reader.entry("double").orElseThrow());
+      doubles.seek(1_000_000);
+      assertTrue(doubles.next());
+      assertEquals(1_000_000, doubles.timestamp());
+      assertEquals(49, doubles.value());
+
+      doubles.seek(1_000_001);
+      assertTrue(doubles.next());
+      assertEquals(50, doubles.value());
+
+      doubles.seek(Long.MAX_VALUE);
+      assertFalse(doubles.next());
+    }
+  }
+
+  @Test
+  void checksTypes() throws Exception {
+    try (var reader = new WPILogReader(record())) {
+      Entry strings = reader.entry("strings").orElseThrow();
+      assertThrows(IllegalArgumentException.class, () -> reader.doubles(strings));
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> reader.structs(reader.entry("pose3d").orElseThrow(), Pose2d.struct));
+      assertTrue(reader.entry("missing").isEmpty());
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package org.sciborgs1155.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.sciborgs1155.lib.UnitTestingUtil.*;
+
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sciborgs1155.lib.InputUpdater;
+import org.sciborgs1155.robot.feeder.Feeder;
+import org.sciborgs1155.robot.feeder.NoFeeder;
+
+public class InputsTest {
+  /** A feeder that counts sensor reads. */
+  static class CountingFeeder extends NoFeeder {
+    int reads = 0;
+    double current = 0;
+
+    @Override
+    public double current() {
+      reads++;
+      return current;
+    }
+  }
+
+  CountingFeeder hardware;
+  Feeder feeder;
+
+  @BeforeEach
+  public void setup() {
+    setupTests();
+    hardware = new CountingFeeder();
+    feeder = new Feeder(hardware);
+  }
+
+  @AfterEach
+  public void destroy() throws Exception {
+    reset(feeder);
+  }
+
+  @Test
+  void readsOncePerLoop() {
+    // inputs are filled when registered
+    assertEquals(1, hardware.reads);
+    for (int i = 0; i < 5; i++) {
+      fastForward(1);
+      feeder.stalling();
+      feeder.stalling();
+    }
+    assertEquals(6, hardware.reads);
+  }
+
+  @Test
+  void readsAreConsistentWithinLoop() {
+    Trigger stalling = new Trigger(feeder::stalling);
+    hardware.current = 1000;
+    assertFalse(stalling.getAsBoolean());
+    InputUpdater.update();
+    assertTrue(stalling.getAsBoolean());
+  }
+}
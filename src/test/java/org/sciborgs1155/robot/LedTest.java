@@ -1,14 +1,20 @@
 package org.sciborgs1155.robot;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.sciborgs1155.lib.UnitTestingUtil.*;
 
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj.util.Color;
+import edu.wpi.first.wpilibj2.command.Command;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.sciborgs1155.robot.led.LedConstants;
 import org.sciborgs1155.robot.led.LedStrip;
+import org.sciborgs1155.robot.led.Pattern;
 
 public class LedTest {
   LedStrip led;
@@ -18,6 +24,8 @@ public class LedTest {
   @BeforeEach
   public void setup() {
     setupTests();
+    // patterns advance with time, which only tests should step
+    SimHooks.pauseTiming();
     led = new LedStrip();
   }
 
@@ -40,8 +48,51 @@ public class LedTest {
     assertNotEquals(rainbow1, rainbow2);
   }
 
+  @Test
+  public void sendsOnlyChangedFrames() {
+    led.background.set(Pattern.solid(Color.kGreen));
+    assertTrue(led.render());
+    fastForward(2);
+    assertFalse(led.render());
+
+    led.background.set(Pattern.rainbow());
+    assertTrue(led.render());
+    assertFalse(led.render());
+  }
+
+  @Test
+  public void compositesLayers() {
+    int red = 0xFF0000;
+    int blue = 0x0000FF;
+    led.background.set(Pattern.solid(Color.kRed));
+    led.intakeStatus.set(Pattern.solid(Color.kBlue));
+    led.alert.set(Pattern.solid(Color.kBlue), 0);
+    led.render();
+
+    // the status segment covers only the first half
+    assertEquals(blue, led.color(0));
+    assertEquals(red, led.color(LedConstants.LED_LENGTH - 1));
+
+    // and blends under a translucent alert
+    led.alert.set(Pattern.solid(Color.kWhite), 128);
+    led.render();
+    assertEquals(0x8080FF, led.color(0));
+    assertEquals(0xFF8080, led.color(LedConstants.LED_LENGTH - 1));
+
+    // status commands don't interrupt the background
+    led.alert.set(null);
+    Command rainbow = led.rainbow();
+    rainbow.schedule();
+    led.feederStatus.show(Pattern.solid(Color.kBlue)).schedule();
+    fastForward(2);
+    led.render();
+    assertTrue(rainbow.isScheduled());
+    assertEquals(blue, led.color(LedConstants.LED_LENGTH - 1));
+  }
+
   @AfterEach
   public void destroy() throws Exception {
     reset(led);
+    SimHooks.resumeTiming();
   }
 }
@@ -0,0 +1,144 @@
+package org.sciborgs1155.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.sciborgs1155.lib.UnitTestingUtil.reset;
+import static org.sciborgs1155.lib.UnitTestingUtil.setupTests;
+
+import com.sun.management.ThreadMXBean;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sciborgs1155.lib.InputUpdater;
+import org.sciborgs1155.robot.drive.Drive;
+import org.sciborgs1155.robot.drive.NoGyro;
+import org.sciborgs1155.robot.drive.SimModule;
+import org.sciborgs1155.robot.drive.SwerveModule;
+
+public class ModuleSnapshotTest {
+  /** A simulated module that counts sensor reads. */
+  static class CountingModule extends SimModule {
+    int reads = 0;
+
+    @Override
+    public double drivePosition() {
+      reads++;
+      return super.drivePosition();
+    }
+
+    @Override
+    public double driveVelocity() {
+      reads++;
+      return super.driveVelocity();
+    }
+
+    @Override
+    public Rotation2d rotation() {
+      reads++;
+      return super.rotation();
+    }
+
+    @Override
+    public double angle() {
+      reads++;
+      return super.angle();
+    }
+  }
+
+  CountingModule module;
+  Drive drive;
+
+  @BeforeEach
+  public void setup() {
+    setupTests();
+    module = new CountingModule();
+    drive = new Drive(new NoGyro(), module, new SimModule(), new SimModule(), new SimModule());
+  }
+
+  @AfterEach
+  public void destroy() throws Exception {
+    reset(drive);
+  }
+
+  @Test
+  void accessorsDoNotReadHardware() {
+    drive.periodic();
+    int reads = module.reads;
+    for (int i = 0; i < 10; i++) {
+      drive.getModuleStates();
+      drive.getModulePositions();
+      drive.getRobotRelativeChassisSpeeds();
+      drive.getFieldRelativeChassisSpeeds();
+      drive.pose();
+    }
+    assertEquals(reads, module.reads);
+    assertSame(drive.getModuleStates(), drive.getModuleStates());
+  }
+
+  @Test
+  void driveModuleReadsDoNotAllocate() {
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    double sum = 0;
+    // warm up, so that the measured loop is compiled
+    for (int i = 0; i < 20_000; i++) {
+      sum += driveTick();
+    }
+    long before = threads.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < 20_000; i++) {
+      sum += driveTick();
+    }
+    long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+    assertEquals(0, allocated);
+    assertEquals(0, sum);
+  }
+
+  @Test
+  void moduleUpdateDoesNotAllocate() {
+    SwerveModule swerve = new SwerveModule(new SimModule(), new Rotation2d(), "test");
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    double sum = 0;
+    // warm up, so that the measured loop is compiled
+    for (int i = 0; i < 20_000; i++) {
+      sum += snapshot(swerve);
+    }
+    long before = threads.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < 20_000; i++) {
+      sum += snapshot(swerve);
+    }
+    long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+    assertEquals(0, allocated);
+    assertEquals(0, sum);
+    swerve.close();
+  }
+
+  /**
+   * Reads every input the drive registered, which is how it reads its four modules and gyro once
+   * per loop, then reads the modules back the way the drive's periodic and commands do.
+   */
+  private double driveTick() {
+    InputUpdater.update();
+    double sum = 0;
+    SwerveModuleState[] states = drive.getModuleStates();
+    SwerveModulePosition[] positions = drive.getModulePositions();
+    for (int i = 0; i < states.length; i++) {
+      sum += states[i].speedMetersPerSecond + positions[i].distanceMeters;
+    }
+    return sum;
+  }
+
+  private double snapshot(SwerveModule swerve) {
+    swerve.update();
+    return swerve.state().speedMetersPerSecond
+        + swerve.position().distanceMeters
+        + drive.getModuleStates()[0].speedMetersPerSecond
+        + drive.getModulePositions()[0].distanceMeters;
+  }
+}
@@ -0,0 +1,120 @@
+package org.sciborgs1155.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.sciborgs1155.lib.UnitTestingUtil.setupTests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.sciborgs1155.robot.commands.MovingShotSolver;
+import org.sciborgs1155.robot.commands.MovingShotSolver.MovingShot;
+import org.sciborgs1155.robot.commands.Shooting;
+import org.sciborgs1155.robot.commands.ShotTable;
+
+public class MovingShotSolverTest {
+  final double SPEAKER_X = 0.24;
+  final double SPEAKER_Y = 5.55;
+  final double SHOT_VELOCITY = 12.0;
+  final double MAX_MISS = 0.01;
+  final double DELTA = 1e-6;
+
+  ShotTable table;
+  MovingShotSolver solver;
+
+  @BeforeEach
+  public void setup() {
+    setupTests();
+    table = new ShotTable();
+    solver = new MovingShotSolver(table, d -> SHOT_VELOCITY);
+  }
+
+  @Test
+  public void stationaryMatchesTable() {
+    MovingShot shot =
+        solver.solve(3.0, 5.0, 0, 0, SPEAKER_X, SPEAKER_Y, 500, 0.5, new MovingShot());
+    double distance = Math.hypot(SPEAKER_X - 3.0, SPEAKER_Y - 5.0);
+    assertTrue(shot.valid());
+    assertEquals(table.pitch(distance, SHOT_VELOCITY, 0.5), shot.pitch, DELTA);
+    assertEquals(3.0, shot.releaseX, DELTA);
+    assertEquals(5.0, shot.releaseY, DELTA);
+    assertEquals(0, shot.miss, DELTA);
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "3.0, 5.5, 2.0, 0.0",
+    "3.0, 5.5, -3.0, 1.0",
+    "4.0, 3.0, 0.0, 4.0",
+    "2.0, 7.0, 4.0, -2.0",
+    "2.5, 4.0, -2.0, 1.0"
+  })
+  public void convergesWhileMoving(double x, double y, double vx, double vy) {
+    MovingShot shot = solver.solve(x, y, vx, vy, SPEAKER_X, SPEAKER_Y, 300, 1.0, new MovingShot());
+    assertTrue(shot.valid());
+    assertTrue(shot.iterations <= MovingShotSolver.MAX_ITERATIONS);
+    assertTrue(shot.miss < MAX_MISS, "miss: " + shot.miss);
+    assertTrue(shot.latency > 0);
+
+    // the note keeps the robot's velocity, so the note's horizontal speed relative to the robot
+    // must cover the distance to the virtual target in the time of flight
+    double horizontal = Math.hypot(shot.noteVelocity.x, shot.noteVelocity.y);
+    double virtualX = SPEAKER_X - vx * shot.timeOfFlight;
+    double virtualY = SPEAKER_Y - vy * shot.timeOfFlight;
+    assertEquals(
+        Math.hypot(virtualX - shot.releaseX, virtualY - shot.releaseY),
+        horizontal * shot.timeOfFlight,
+        MAX_MISS);
+  }
+
+  @ParameterizedTest
+  @CsvSource({"9.0, 5.5, 2.0, 1.0", "14.0, 2.0, -3.0, 0.5"})
+  public void boundedBeyondTable(double x, double y, double vx, double vy) {
+    int[] evaluations = {0};
+    MovingShotSolver counting =
+        new MovingShotSolver(
+            table,
+            d -> {
+              evaluations[0]++;
+              return SHOT_VELOCITY;
+            });
+    MovingShot shot =
+        counting.solve(x, y, vx, vy, SPEAKER_X, SPEAKER_Y, 300, 1.0, new MovingShot());
+
+    // one exact stationary solve, instead of iterating on the exact solver
+    double distance = Math.hypot(SPEAKER_X - x, SPEAKER_Y - y);
+    assertEquals(0, shot.iterations);
+    assertEquals(1, evaluations[0]);
+    assertEquals(Shooting.calculateStationaryPitch(distance, SHOT_VELOCITY, 1.0), shot.pitch);
+
+    // the shot is released from where it was aimed from, so without the robot's velocity the note
+    // would reach the speaker
+    assertEquals(0, shot.latency);
+    assertEquals(x, shot.releaseX, DELTA);
+    assertEquals(y, shot.releaseY, DELTA);
+    assertEquals(SPEAKER_X, shot.impactX - vx * shot.timeOfFlight, MAX_MISS);
+    assertEquals(SPEAKER_Y, shot.impactY - vy * shot.timeOfFlight, MAX_MISS);
+  }
+
+  @Test
+  public void unreachableShot() {
+    MovingShot shot =
+        new MovingShotSolver(table, d -> 1.0)
+            .solve(5.0, 5.0, 1, 0, SPEAKER_X, SPEAKER_Y, 0, 0, new MovingShot());
+    assertTrue(!shot.valid());
+  }
+
+  @Test
+  public void latencyModels() {
+    assertEquals(0, MovingShotSolver.flywheelLatency(500, 501));
+    assertTrue(MovingShotSolver.flywheelLatency(300, 400) > 0);
+    assertTrue(
+        MovingShotSolver.flywheelLatency(300, 500) > MovingShotSolver.flywheelLatency(300, 400));
+    assertEquals(MovingShotSolver.MAX_LATENCY, MovingShotSolver.flywheelLatency(0, 10000));
+
+    assertEquals(0, MovingShotSolver.pivotLatency(0.5, 0.5));
+    assertEquals(2 * Math.sqrt(1 / 13.0), MovingShotSolver.pivotLatency(0, 1), DELTA);
+    assertEquals(MovingShotSolver.MAX_LATENCY, MovingShotSolver.pivotLatency(0, Double.NaN));
+  }
+}
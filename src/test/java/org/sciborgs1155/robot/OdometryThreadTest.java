@@ -0,0 +1,71 @@
+package org.sciborgs1155.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.sciborgs1155.lib.UnitTestingUtil.setupTests;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sciborgs1155.robot.drive.OdometryThread;
+import org.sciborgs1155.robot.drive.OdometryThread.Samples;
+import org.sciborgs1155.robot.drive.SimModule;
+
+public class OdometryThreadTest {
+  final double DELTA = 1e-9;
+
+  SimModule module;
+  double yaw;
+  OdometryThread odometry;
+  Samples samples;
+
+  @BeforeEach
+  public void setup() {
+    setupTests();
+    module = new SimModule();
+    yaw = 0;
+    odometry = new OdometryThread(() -> yaw++, module);
+    samples = new Samples(1);
+  }
+
+  @AfterEach
+  public void destroy() {
+    odometry.close();
+  }
+
+  @Test
+  void drainsInOrder() {
+    for (int i = 0; i < 5; i++) {
+      odometry.sample();
+    }
+    assertEquals(5, odometry.drain(samples));
+    for (int k = 0; k < 5; k++) {
+      assertEquals(k, samples.yaws[k], DELTA);
+    }
+    for (int k = 1; k < 5; k++) {
+      assertTrue(samples.timestamps[k] >= samples.timestamps[k - 1]);
+    }
+    assertEquals(0, odometry.drain(samples));
+  }
+
+  @Test
+  void overwritesOldest() {
+    int extra = 10;
+    for (int i = 0; i < OdometryThread.CAPACITY + extra; i++) {
+      odometry.sample();
+    }
+    assertEquals(OdometryThread.CAPACITY, odometry.drain(samples));
+    assertEquals(extra, odometry.dropped());
+    assertEquals(extra, samples.yaws[0], DELTA);
+    assertEquals(
+        OdometryThread.CAPACITY + extra - 1, samples.yaws[OdometryThread.CAPACITY - 1], DELTA);
+  }
+
+  @Test
+  void samplesOnThread() throws InterruptedException {
+    odometry.start(0.004);
+    Thread.sleep(100);
+    odometry.close();
+    assertTrue(odometry.drain(samples) > 0);
+  }
+}
@@ -4,6 +4,8 @@ import static edu.wpi.first.units.Units.Degrees;
 import static edu.wpi.first.units.Units.Radians;
 import static edu.wpi.first.units.Units.RadiansPerSecond;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.sciborgs1155.lib.Test.runUnitTest;
 import static org.sciborgs1155.lib.UnitTestingUtil.*;
 import static org.sciborgs1155.robot.pivot.PivotConstants.MAX_ANGLE;
@@ -82,6 +84,15 @@ public class ShootingTest {
     assertEquals(400, shooter.rotationalVelocity(), SHOOTER_DELTA);
   }
 
+  @Test
+  public void solutionMemoizedPerCycle() {
+    fastForward(1);
+    var solution = shooting.solution();
+    assertSame(solution, shooting.solution());
+    fastForward(1);
+    assertNotSame(solution, shooting.solution());
+  }
+
   @Test
   public void endConditions() {
     Consumer<Command> testEndCondition =
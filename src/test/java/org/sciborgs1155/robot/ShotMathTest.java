@@ -0,0 +1,104 @@
+package org.sciborgs1155.robot;
+
+import static edu.wpi.first.units.Units.Meters;
+import static edu.wpi.first.units.Units.Seconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.sciborgs1155.lib.UnitTestingUtil.setupTests;
+import static org.sciborgs1155.robot.shooter.ShooterConstants.RADIUS;
+
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.Vector;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Translation3d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.numbers.N3;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.sciborgs1155.robot.commands.Shooting;
+import org.sciborgs1155.robot.commands.ShotMath;
+import org.sciborgs1155.robot.commands.ShotMath.MutablePose;
+import org.sciborgs1155.robot.commands.ShotMath.Vec3;
+
+/** Checks the primitive kernels against the original object based shooting math. */
+public class ShotMathTest {
+  final double DELTA = 1e-9;
+
+  @BeforeEach
+  public void setup() {
+    setupTests();
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "3.1, -1.2, 4.0",
+    "-7.0, 0.5, 2.2",
+    "0.3, 9.1, -0.4",
+    "-2.0, -2.0, 1.0",
+    "10.0, 0.0, 3.0"
+  })
+  public void noteVelocityConversions(double x, double y, double z) {
+    Vector<N3> velocity = VecBuilder.fill(x, y, z);
+
+    double pitch = Math.atan(z / VecBuilder.fill(x, y).norm());
+    Rotation2d yaw = Rotation2d.fromRadians(Math.PI).plus(new Rotation2d(x, y));
+    double flywheel = velocity.norm() / RADIUS.in(Meters) * Shooting.siggysConstant.get();
+
+    assertEquals(pitch, ShotMath.pitch(x, y, z), DELTA);
+    assertEquals(yaw.getCos(), Math.cos(ShotMath.heading(x, y)), DELTA);
+    assertEquals(yaw.getSin(), Math.sin(ShotMath.heading(x, y)), DELTA);
+    assertEquals(flywheel, ShotMath.flywheelSpeed(x, y, z), DELTA);
+
+    assertEquals(pitch, Shooting.pitchFromNoteVelocity(velocity), DELTA);
+    assertEquals(yaw, Shooting.yawFromNoteVelocity(velocity));
+    assertEquals(flywheel, Shooting.rotationalVelocityFromNoteVelocity(velocity), DELTA);
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "2.0, 1.5, 0.6, 9.0, 0.0, 0.0",
+    "-4.0, 0.2, 0.4, 13.0, 1.2, -0.8",
+    "1.0, -3.0, 0.9, 7.5, -2.5, 3.0"
+  })
+  public void noteVelocity(
+      double dx, double dy, double pitch, double shotVelocity, double robotVx, double robotVy) {
+    Rotation3d orientation = new Rotation3d(0, -pitch, Math.atan2(dy, dx));
+    Vector<N3> expected =
+        new Translation3d(1, 0, 0)
+            .rotateBy(orientation)
+            .toVector()
+            .unit()
+            .times(shotVelocity)
+            .minus(VecBuilder.fill(robotVx, robotVy, 0));
+
+    Vec3 actual = ShotMath.noteVelocity(dx, dy, pitch, shotVelocity, robotVx, robotVy, new Vec3());
+
+    assertEquals(expected.get(0), actual.x, DELTA);
+    assertEquals(expected.get(1), actual.y, DELTA);
+    assertEquals(expected.get(2), actual.z, DELTA);
+  }
+
+  @ParameterizedTest
+  @CsvSource({"1.0, 2.0, 0.5, 1.0, -1.0, 2.0", "5.0, -3.0, 3.0, -4.0, 0.0, -6.0"})
+  public void predictedPose(double x, double y, double theta, double vx, double vy, double omega) {
+    double dt = 0.2;
+    Vector<N3> expected =
+        VecBuilder.fill(x, y, theta).plus(VecBuilder.fill(vx, vy, omega).times(dt));
+
+    MutablePose actual = ShotMath.predict(x, y, theta, vx, vy, omega, dt, new MutablePose());
+    assertEquals(expected.get(0), actual.x, DELTA);
+    assertEquals(expected.get(1), actual.y, DELTA);
+    assertEquals(expected.get(2), actual.theta, DELTA);
+
+    Pose2d wrapped =
+        Shooting.predictedPose(
+            new Pose2d(x, y, Rotation2d.fromRadians(theta)),
+            new ChassisSpeeds(vx, vy, omega),
+            Seconds.of(dt));
+    assertEquals(expected.get(0), wrapped.getX(), DELTA);
+    assertEquals(expected.get(1), wrapped.getY(), DELTA);
+    assertEquals(Rotation2d.fromRadians(expected.get(2)), wrapped.getRotation());
+  }
+}
@@ -0,0 +1,54 @@
+package org.sciborgs1155.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.sciborgs1155.lib.UnitTestingUtil.setupTests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.sciborgs1155.robot.commands.Shooting;
+import org.sciborgs1155.robot.commands.ShotTable;
+
+public class ShotTableTest {
+  // the exact solver stops iterating once it changes by less than this
+  final double SOLVER_TOLERANCE = 0.005;
+
+  ShotTable table;
+
+  @BeforeEach
+  public void setup() {
+    setupTests();
+    table = new ShotTable();
+  }
+
+  @Test
+  public void accuracyReport() {
+    var report = table.accuracy(5000, 1155);
+    assertEquals(5000, report.samples());
+    // some of the sampled shots are unreachable, but not all of them
+    assertTrue(report.fallbacks() < report.samples(), report.toString());
+    // within the spread trusted for interpolation, and well within the exact solver's tolerance
+    assertTrue(report.maxError() < ShotTable.MAX_SPREAD, report.toString());
+    assertTrue(report.maxError() < SOLVER_TOLERANCE, report.toString());
+    assertTrue(report.meanError() < SOLVER_TOLERANCE / 10, report.toString());
+  }
+
+  @ParameterizedTest
+  @CsvSource({"1.2, 10.0", "2.5, 12.0", "3.7, 14.2", "4.9, 14.5"})
+  public void matchesExactSolver(double distance, double velocity) {
+    assertEquals(
+        Shooting.calculateStationaryPitch(distance, velocity, 0),
+        table.pitch(distance, velocity, 0),
+        SOLVER_TOLERANCE);
+  }
+
+  @ParameterizedTest
+  @CsvSource({"0.1, 10.0", "8.0, 14.0", "3.0, 20.0"})
+  public void fallsBackOutsideTable(double distance, double velocity) {
+    assertEquals(
+        Shooting.calculateStationaryPitch(distance, velocity, 0.3),
+        table.pitch(distance, velocity, 0.3));
+  }
+}
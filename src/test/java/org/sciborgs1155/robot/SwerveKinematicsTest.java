@@ -0,0 +1,60 @@
+package org.sciborgs1155.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.sciborgs1155.robot.drive.DriveConstants.MODULE_OFFSET;
+
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.sciborgs1155.robot.drive.SwerveKinematics;
+
+public class SwerveKinematicsTest {
+  final double DELTA = 1e-9;
+  final double DT = 0.02;
+
+  final SwerveDriveKinematics kinematics = new SwerveDriveKinematics(MODULE_OFFSET);
+
+  @ParameterizedTest
+  @CsvSource({"1,0,0", "0,-2,0", "0,0,3", "2.5,-1,1.5", "-4,3,-6", "0.1,0.2,12"})
+  void matchesWpilib(double vx, double vy, double omega) {
+    ChassisSpeeds expected = ChassisSpeeds.discretize(new ChassisSpeeds(vx, vy, omega), DT);
+    double[] discretized = SwerveKinematics.discretize(vx, vy, omega, DT, new double[3]);
+    assertEquals(expected.vxMetersPerSecond, discretized[0], DELTA);
+    assertEquals(expected.vyMetersPerSecond, discretized[1], DELTA);
+    assertEquals(expected.omegaRadiansPerSecond, discretized[2], DELTA);
+
+    SwerveModuleState[] states = kinematics.toSwerveModuleStates(expected);
+    SwerveDriveKinematics.desaturateWheelSpeeds(states, 4);
+    double[] speeds = new double[SwerveKinematics.MODULES];
+    double[] angles = new double[SwerveKinematics.MODULES];
+    SwerveKinematics.toModuleStates(discretized[0], discretized[1], discretized[2], speeds, angles);
+    SwerveKinematics.desaturate(speeds, 4);
+    for (int i = 0; i < SwerveKinematics.MODULES; i++) {
+      assertEquals(states[i].speedMetersPerSecond, speeds[i], DELTA);
+      assertEquals(states[i].angle.getRadians(), angles[i], DELTA);
+    }
+
+    ChassisSpeeds forward = kinematics.toChassisSpeeds(states);
+    double[] chassis = SwerveKinematics.toChassisSpeeds(speeds, angles, new double[3]);
+    assertEquals(forward.vxMetersPerSecond, chassis[0], DELTA);
+    assertEquals(forward.vyMetersPerSecond, chassis[1], DELTA);
+    assertEquals(forward.omegaRadiansPerSecond, chassis[2], DELTA);
+  }
+
+  @Test
+  void holdsAnglesWhenStopped() {
+    double[] speeds = new double[SwerveKinematics.MODULES];
+    double[] angles = new double[SwerveKinematics.MODULES];
+    SwerveKinematics.toModuleStates(0, 0, 1, speeds, angles);
+    double[] previous = angles.clone();
+
+    SwerveKinematics.toModuleStates(0, 0, 0, speeds, angles);
+    for (int i = 0; i < SwerveKinematics.MODULES; i++) {
+      assertEquals(0, speeds[i]);
+      assertEquals(previous[i], angles[i]);
+    }
+  }
+}
@@ -2,10 +2,12 @@ package org.sciborgs1155.robot;
 
 import static edu.wpi.first.units.Units.Seconds;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.sciborgs1155.lib.Test.runUnitTest;
 import static org.sciborgs1155.lib.UnitTestingUtil.*;
 
 import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,6 +15,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.sciborgs1155.robot.drive.Drive;
+import org.sciborgs1155.robot.drive.Drive.PoseState;
 import org.sciborgs1155.robot.drive.NoGyro;
 import org.sciborgs1155.robot.drive.SimModule;
 import org.sciborgs1155.robot.drive.SwerveModule.ControlMode;
@@ -107,4 +110,28 @@ public class SwerveTest {
     assertEquals(deltaX, pose.getX(), DELTA * 2);
     assertEquals(deltaY, pose.getY(), DELTA * 2);
   }
+
+  @Test
+  public void publishesState() {
+    Pose2d pose = new Pose2d(1, 2, Rotation2d.fromDegrees(90));
+    drive.resetOdometry(pose);
+
+    PoseState state = drive.state();
+    assertEquals(pose, state.pose());
+    assertSame(state, drive.state());
+
+    run(
+        drive.run(
+            () ->
+                drive.setChassisSpeeds(
+                    new ChassisSpeeds(1, 0, 0), ControlMode.CLOSED_LOOP_VELOCITY)));
+    fastForward();
+
+    // robot relative forward is field relative left when facing 90 degrees
+    state = drive.state();
+    assertEquals(1, state.robotRelativeSpeeds().vxMetersPerSecond, DELTA);
+    assertEquals(1, state.fieldRelativeSpeeds().vyMetersPerSecond, DELTA);
+    assertEquals(0, state.fieldRelativeSpeeds().vxMetersPerSecond, DELTA);
+    assertEquals(state.pose(), drive.pose());
+  }
 }
@@ -0,0 +1,119 @@
+package org.sciborgs1155.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.sciborgs1155.robot.vision.VisionConstants.MAX_REJECTED;
+
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.photonvision.EstimatedRobotPose;
+import org.photonvision.PhotonPoseEstimator.PoseStrategy;
+import org.sciborgs1155.robot.vision.Vision.PoseEstimate;
+import org.sciborgs1155.robot.vision.VisionFusion;
+import org.sciborgs1155.robot.vision.VisionFusion.Measurement;
+
+public class VisionFusionTest {
+  final double DELTA = 1e-6;
+
+  static PoseEstimate estimate(Pose2d pose, double timestamp, double std) {
+    return new PoseEstimate(
+        new EstimatedRobotPose(
+            new Pose3d(pose), timestamp, List.of(), PoseStrategy.MULTI_TAG_PNP_ON_COPROCESSOR),
+        VecBuilder.fill(std, std, std));
+  }
+
+  @Test
+  void sortsAndMerges() {
+    List<PoseEstimate> estimates =
+        new ArrayList<>(
+            List.of(
+                estimate(new Pose2d(5, 5, new Rotation2d()), 1.1, 0.3),
+                estimate(new Pose2d(1, 2, new Rotation2d()), 1.0, 0.3),
+                estimate(new Pose2d(3, 2, new Rotation2d()), 1.005, 0.3)));
+    List<Measurement> measurements = new VisionFusion().fuse(estimates);
+
+    assertEquals(2, measurements.size());
+    Measurement merged = measurements.get(0);
+    assertEquals(2, merged.count());
+    assertEquals(2, merged.pose().getX(), DELTA);
+    assertEquals(2, merged.pose().getY(), DELTA);
+    assertEquals(1.0025, merged.timestamp(), DELTA);
+    // two equal measurements are more certain than either
+    assertEquals(0.3 / Math.sqrt(2), merged.standardDev().get(0, 0), DELTA);
+
+    assertEquals(1, measurements.get(1).count());
+    assertEquals(1.1, measurements.get(1).timestamp(), DELTA);
+  }
+
+  @Test
+  void weightsByVariance() {
+    List<PoseEstimate> estimates =
+        new ArrayList<>(
+            List.of(
+                estimate(new Pose2d(0, 0, Rotation2d.fromDegrees(179)), 1, 1),
+                estimate(new Pose2d(3, 0, Rotation2d.fromDegrees(-178)), 1, 1 / Math.sqrt(2)),
+                estimate(new Pose2d(100, 0, new Rotation2d()), 1, Double.MAX_VALUE)));
+    List<Measurement> measurements = new VisionFusion().fuse(estimates);
+
+    assertEquals(1, measurements.size());
+    // weights of 1 and 2, and the estimate with unknown variance is ignored
+    assertEquals(2, measurements.get(0).pose().getX(), DELTA);
+    // headings are averaged across ±180 degrees
+    assertEquals(-179, measurements.get(0).pose().getRotation().getDegrees(), DELTA);
+  }
+
+  @Test
+  void dropsUnknown() {
+    List<PoseEstimate> estimates =
+        new ArrayList<>(List.of(estimate(new Pose2d(1, 1, new Rotation2d()), 1, Double.MAX_VALUE)));
+    assertTrue(new VisionFusion().fuse(estimates).isEmpty());
+  }
+
+  @Test
+  void gatesOutliers() {
+    VisionFusion fusion = new VisionFusion();
+    Pose2d odometry = new Pose2d(2, 2, new Rotation2d());
+    Measurement near =
+        new Measurement(new Pose2d(2.2, 2, new Rotation2d()), 0, VecBuilder.fill(0.3, 0.3, 4), 1);
+    Measurement far =
+        new Measurement(new Pose2d(6, 2, new Rotation2d()), 0, VecBuilder.fill(0.3, 0.3, 4), 1);
+
+    assertTrue(VisionFusion.mahalanobis(near, odometry) < VisionFusion.mahalanobis(far, odometry));
+    assertTrue(fusion.accept(near, odometry));
+    for (int i = 0; i < MAX_REJECTED; i++) {
+      assertFalse(fusion.accept(far, odometry));
+    }
+    // consistent disagreement means odometry is wrong
+    assertTrue(fusion.accept(far, odometry));
+    assertTrue(fusion.accept(near, odometry));
+    assertFalse(fusion.accept(far, odometry));
+  }
+
+  @Test
+  void keepsGatingInconsistentOutliers() {
+    VisionFusion fusion = new VisionFusion();
+    Pose2d odometry = new Pose2d(2, 2, new Rotation2d());
+    Measurement[] scattered = {
+      new Measurement(new Pose2d(6, 2, new Rotation2d()), 0, VecBuilder.fill(0.3, 0.3, 4), 1),
+      new Measurement(new Pose2d(2, 6, new Rotation2d()), 0, VecBuilder.fill(0.3, 0.3, 4), 1)
+    };
+
+    // outliers that disagree with each other never outweigh odometry
+    for (int i = 0; i < 2 * MAX_REJECTED; i++) {
+      assertFalse(fusion.accept(scattered[i % 2], odometry));
+    }
+    // but vision that agrees with itself while the robot moves does
+    assertTrue(fusion.accept(scattered[1], odometry));
+    Pose2d moved = new Pose2d(3, 2, new Rotation2d());
+    assertTrue(
+        fusion.accept(
+            new Measurement(new Pose2d(3, 6, new Rotation2d()), 0, VecBuilder.fill(0.3, 0.3, 4), 1),
+            moved));
+  }
+}